@@ -2,8 +2,12 @@ package ru.bicev.movie_ratings;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import ru.bicev.movie_ratings.config.NativeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class MovieRatingsApplication {
 
 	public static void main(String[] args) {
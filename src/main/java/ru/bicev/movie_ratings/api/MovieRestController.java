@@ -1,7 +1,8 @@
 package ru.bicev.movie_ratings.api;
 
-import java.util.List;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -10,13 +11,17 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
 import ru.bicev.movie_ratings.services.MovieService;
 
 /**
@@ -35,26 +40,73 @@ public class MovieRestController {
 
     private final MovieService movieService;
 
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final JsonResponseCache jsonResponseCache;
+
     /**
      * Constructor to inject dependencies.
      * 
-     * @param movieService service that handles movie-related operations
+     * @param movieService           service that handles movie-related operations
+     * @param catalogSnapshotService service keeping the snapshot of the catalog
+     * @param jsonResponseCache      cache of serialized response bodies
      */
-    public MovieRestController(MovieService movieService) {
+    public MovieRestController(MovieService movieService, CatalogSnapshotService catalogSnapshotService,
+            JsonResponseCache jsonResponseCache) {
         this.movieService = movieService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jsonResponseCache = jsonResponseCache;
     }
 
     /**
      * Retrieves a list of all movies, sorted by its ratings in descending order.
+     * The list is the pre-serialized JSON of the current catalog snapshot, tagged
+     * with an entity tag, so clients holding the same list get HTTP status 304
+     * (Not Modified). Clients accepting gzip get the JSON compressed once with
+     * the snapshot rather than on every request. Clients asking for CBOR or
+     * Smile get the snapshot in that format from {@link JsonResponseCache},
+     * without an entity tag.
      * 
-     * @return {@link ResponseEntity} containing a list of {@link MovieDto} sorted
-     *         by rating in descending order, wrapped in HTTP status 200 (OK).
+     * @param webRequest the current request, checked for {@code If-None-Match}
+     * @param headers    the headers of the request, selecting the format and the
+     *                   compression of the body
+     * @return {@link ResponseEntity} containing a list of {@link MovieDto}
+     *         sorted by rating in descending order, wrapped in HTTP status 200
+     *         (OK), or {@code null} if the client's version is current.
      */
     @Operation(summary = "Get list of all movies sorted by rating desc")
     @GetMapping
-    public ResponseEntity<List<MovieDto>> getAllMoviesSortedByRating() {
-        List<MovieDto> movieDtos = movieService.getAllMoviesWithRatingsSortedByRatingDesc();
-        return new ResponseEntity<>(movieDtos, HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllMoviesSortedByRating(WebRequest webRequest,
+            @RequestHeader HttpHeaders headers) {
+        CatalogSnapshotService.Snapshot snapshot = catalogSnapshotService.getSnapshot();
+        if (JsonResponseCache.Format.negotiate(headers.getAccept()) != JsonResponseCache.Format.JSON) {
+            return jsonResponseCache.respond(JsonResponseCache.catalog(), snapshot.eTag(), headers,
+                    snapshot::movies);
+        }
+        if (snapshot.gzip() == null) {
+            if (webRequest.checkNotModified(snapshot.eTag())) {
+                return null;
+            }
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .eTag(snapshot.eTag())
+                    .body(snapshot.json());
+        }
+        // Sent with Content-Encoding, the compressed variant is left alone by server.compression. Like Tomcat's own
+        // compression, it gets the weak form of the entity tag, which If-None-Match still matches.
+        boolean gzip = JsonResponseCache.acceptsGzip(headers);
+        String eTag = gzip ? "W/" + snapshot.eTag() : snapshot.eTag();
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .eTag(eTag);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
+        }
+        return response.body(snapshot.json());
     }
 
     /**
@@ -105,17 +157,21 @@ public class MovieRestController {
     }
 
     /**
-     * Retrieves a movie by its ID
+     * Retrieves a movie by its ID. The serialized movie is served from
+     * {@link JsonResponseCache}.
      * 
-     * @param id the ID of the movie to retrieve
-     * @return {@link ResponseEntity} containing found {@link MovieDto} wrapped in
-     *         HTTP status 200 (OK).
+     * @param id             the ID of the movie to retrieve
+     * @param headers        the headers of the request, selecting the format
+     *                       and the compression of the body
+     * @return {@link ResponseEntity} containing found {@link MovieDto} as JSON
+     *         wrapped in HTTP status 200 (OK).
      */
     @Operation(summary = "Get movie by id")
     @GetMapping("/{id}")
-    public ResponseEntity<MovieDto> getMovieById(@PathVariable Long id) {
-        MovieDto foundMovie = movieService.findMovieById(id);
-        return new ResponseEntity<MovieDto>(foundMovie, HttpStatus.OK);
+    public ResponseEntity<byte[]> getMovieById(@PathVariable Long id,
+            @RequestHeader HttpHeaders headers) {
+        return jsonResponseCache.respond(JsonResponseCache.movie(id), "", headers,
+                () -> movieService.findMovieById(id));
     }
 
     /**
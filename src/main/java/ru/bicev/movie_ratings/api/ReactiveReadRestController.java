@@ -0,0 +1,88 @@
+package ru.bicev.movie_ratings.api;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.services.ReactiveReadService;
+
+/**
+ * REST Controller providing a read-only, non-blocking view of movies and
+ * reviews.
+ * <p>
+ * Lists are streamed as newline-delimited JSON ({@code application/x-ndjson}),
+ * one object per line, with backpressure: the next object is only produced
+ * once the previous one has been written to the client.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/rx")
+public class ReactiveReadRestController {
+
+    private final ReactiveReadService reactiveReadService;
+
+    /**
+     * Constructor to inject dependencies.
+     *
+     * @param reactiveReadService service that provides the reactive read paths
+     */
+    public ReactiveReadRestController(ReactiveReadService reactiveReadService) {
+        this.reactiveReadService = reactiveReadService;
+    }
+
+    /**
+     * Streams all movies, sorted by its ratings in descending order.
+     *
+     * @return {@link Flux} of {@link MovieDto} sorted by rating in descending
+     *         order
+     */
+    @Operation(summary = "Stream all movies sorted by rating desc")
+    @GetMapping(value = "/movies", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MovieDto> getAllMoviesSortedByRating() {
+        return reactiveReadService.getAllMoviesSortedByRating();
+    }
+
+    /**
+     * Retrieves a movie by its ID
+     *
+     * @param id the ID of the movie to retrieve
+     * @return {@link Mono} emitting the found {@link MovieDto}
+     */
+    @Operation(summary = "Get movie by id")
+    @GetMapping("/movies/{id}")
+    public Mono<MovieDto> getMovieById(@PathVariable Long id) {
+        return reactiveReadService.findMovieById(id);
+    }
+
+    /**
+     * Streams the reviews of a movie by movie ID
+     *
+     * @param movieId the ID of the movie
+     * @return {@link Flux} of {@link ReviewDto} associated with the movie
+     */
+    @Operation(summary = "Stream reviews by movie id")
+    @GetMapping(value = "/movies/{movieId}/reviews", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReviewDto> getReviewsByMovieId(@PathVariable Long movieId) {
+        return reactiveReadService.streamReviewsByMovie(movieId);
+    }
+
+    /**
+     * Streams the reviews of a user by user ID
+     *
+     * @param userId the ID of the user created the reviews
+     * @return {@link Flux} of {@link ReviewDto} associated with the user
+     */
+    @Operation(summary = "Stream reviews by user id")
+    @GetMapping(value = "/users/{userId}/reviews", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReviewDto> getReviewsByUserId(@PathVariable Long userId) {
+        return reactiveReadService.streamReviewsByUser(userId);
+    }
+
+}
@@ -1,5 +1,6 @@
 package ru.bicev.movie_ratings.api;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,6 +12,7 @@ import ru.bicev.movie_ratings.exceptions.DuplicateUserException;
 import ru.bicev.movie_ratings.exceptions.IllegalAccessException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
 import ru.bicev.movie_ratings.exceptions.ReviewNotFoundException;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
 import ru.bicev.movie_ratings.exceptions.UserNotFoundException;
 
 /**
@@ -67,6 +69,22 @@ public class RestExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body("403 Forbidden: " + ex.getMessage());
     }
 
+    /**
+     * Handles exceptions when a request is shed because the application is
+     * overloaded.
+     * 
+     * @param ex the exception that was thrown.
+     * @return {@link ResponseEntity} containing a 503 service unavailable
+     *         message and HTTP status, with the {@code Retry-After} header.
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<String> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body("503 Service unavailable: " + ex.getMessage());
+    }
+
     /**
      * Handles general exceptions that are not specifically covered by other
      * handlers.
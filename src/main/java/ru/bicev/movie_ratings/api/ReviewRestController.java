@@ -1,9 +1,10 @@
 package ru.bicev.movie_ratings.api;
 
 import java.security.Principal;
-import java.util.List;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,14 +12,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
 import ru.bicev.movie_ratings.dto.UserDto;
+import ru.bicev.movie_ratings.services.ReactiveReadService;
+import ru.bicev.movie_ratings.services.ReviewGroupCommitService;
 import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService.Acknowledgement;
 import ru.bicev.movie_ratings.services.UserService;
 
 /**
@@ -32,41 +42,82 @@ import ru.bicev.movie_ratings.services.UserService;
 @RequestMapping("/api/movies/{movieId}/reviews")
 public class ReviewRestController {
 
+    private static final String PREFER = "Prefer";
+    private static final String PREFERENCE_APPLIED = "Preference-Applied";
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private final ReviewService reviewService;
     private final UserService userService;
+    private final ReactiveReadService reactiveReadService;
+    private final JsonResponseCache jsonResponseCache;
+    private final ReviewWriteBehindService reviewWriteBehindService;
+    private final ReviewGroupCommitService reviewGroupCommitService;
 
     /**
      * Constructor to inject dependencies.
      * 
-     * @param reviewService service that handles review-related operations
-     * @param userService   service that handles user-related operations
+     * @param reviewService       service that handles review-related operations
+     * @param userService         service that handles user-related operations
+     * @param reactiveReadService service that streams reviews
+     * @param jsonResponseCache   cache of serialized response bodies
+     * @param reviewWriteBehindService service that writes reviews in batches
+     *                                 behind the requests
+     * @param reviewGroupCommitService service that commits concurrently
+     *                                 created reviews together
      */
-    public ReviewRestController(ReviewService reviewService, UserService userService) {
+    public ReviewRestController(ReviewService reviewService, UserService userService,
+            ReactiveReadService reactiveReadService, JsonResponseCache jsonResponseCache,
+            ReviewWriteBehindService reviewWriteBehindService, ReviewGroupCommitService reviewGroupCommitService) {
         this.reviewService = reviewService;
         this.userService = userService;
+        this.reactiveReadService = reactiveReadService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.reviewWriteBehindService = reviewWriteBehindService;
+        this.reviewGroupCommitService = reviewGroupCommitService;
     }
 
     /**
      * Creates a new review entry in the system.
+     * <p>
+     * When reviews are written behind, a client sending
+     * {@code Prefer: respond-async} gets HTTP status 202 (Accepted) once the
+     * review is queued, without waiting for it to be committed. Otherwise,
+     * when group commit is enabled, the review is committed together with the
+     * reviews created concurrently.
+     * </p>
      * 
      * @param movieId   the ID of the movie to be reviewed
      * @param reviewDto data transfer object containing review details validated by
      *                  {@link Valid}
+     * @param prefer    the {@code Prefer} header of the request, if any
      * @param principal wrapper for the current user
      * @return {@link ResponseEntity} containing created {@link ReviewDto}, wrapped
-     *         in HTTP status 201 (Created).
+     *         in HTTP status 201 (Created), or the queued review wrapped in
+     *         HTTP status 202 (Accepted).
      */
     @Operation(summary = "Create review")
     @PostMapping
     public ResponseEntity<ReviewDto> createReview(@PathVariable Long movieId, @Valid @RequestBody ReviewDto reviewDto,
-            Principal principal) {
+            @RequestHeader(value = PREFER, required = false) String prefer, Principal principal) {
         String email = principal.getName();
         UserDto userDto = userService.getUserByEmail(email);
 
         reviewDto.setUserId(userDto.getId());
         reviewDto.setMovieId(movieId);
 
-        ReviewDto createdReview = reviewService.createReview(reviewDto);
+        if (!reviewWriteBehindService.isEnabled()) {
+            ReviewDto createdReview = reviewGroupCommitService.isEnabled()
+                    ? reviewGroupCommitService.createReview(reviewDto)
+                    : reviewService.createReview(reviewDto);
+            return new ResponseEntity<>(createdReview, HttpStatus.CREATED);
+        }
+        if (prefer != null && prefer.contains(RESPOND_ASYNC)) {
+            ReviewDto queuedReview = reviewWriteBehindService.createReview(reviewDto, Acknowledgement.ACCEPTED);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(PREFERENCE_APPLIED, RESPOND_ASYNC)
+                    .body(queuedReview);
+        }
+        ReviewDto createdReview = reviewWriteBehindService.createReview(reviewDto, Acknowledgement.DURABLE);
         return new ResponseEntity<>(createdReview, HttpStatus.CREATED);
     }
 
@@ -110,17 +161,60 @@ public class ReviewRestController {
     }
 
     /**
-     * Retrieves a list of review by movie ID
+     * Retrieves a list of review by movie ID. The serialized list is served
+     * from {@link JsonResponseCache}.
      * 
-     * @param movieId the ID of the movie
-     * @return {@link ResponseEntity} containing list of {@link ReviewDto}, wrapped
-     *         in HTTP status 200 (OK).
+     * @param movieId        the ID of the movie
+     * @param headers        the headers of the request, selecting the format
+     *                       and the compression of the body
+     * @return {@link ResponseEntity} containing list of {@link ReviewDto} as
+     *         JSON, wrapped in HTTP status 200 (OK).
      */
     @Operation(summary = "Get list of reviews by movie id")
     @GetMapping
-    public ResponseEntity<List<ReviewDto>> getReviewsByMovieId(@PathVariable Long movieId) {
-        List<ReviewDto> reviews = reviewService.getReviewsByMovie(movieId);
-        return new ResponseEntity<>(reviews, HttpStatus.OK);
+    public ResponseEntity<byte[]> getReviewsByMovieId(@PathVariable Long movieId,
+            @RequestHeader HttpHeaders headers) {
+        return jsonResponseCache.respond(JsonResponseCache.movieReviews(movieId), "", headers,
+                () -> reviewService.getReviewsByMovie(movieId));
+    }
+
+    /**
+     * Retrieves a page of reviews by movie ID, newest first. The serialized
+     * page is served from {@link JsonResponseCache}.
+     * 
+     * @param movieId        the ID of the movie
+     * @param before         the {@code nextCursor} of the previous page; omit for
+     *                       the first page
+     * @param size           the page size, at most
+     *                       {@value ReviewService#MAX_PAGE_SIZE}
+     * @param headers        the headers of the request, selecting the format
+     *                       and the compression of the body
+     * @return {@link ResponseEntity} containing {@link ReviewPageDto} as JSON,
+     *         wrapped in HTTP status 200 (OK).
+     */
+    @Operation(summary = "Get page of reviews by movie id")
+    @GetMapping("/page")
+    public ResponseEntity<byte[]> getReviewPageByMovieId(@PathVariable Long movieId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "" + ReviewService.DEFAULT_PAGE_SIZE) int size,
+            @RequestHeader HttpHeaders headers) {
+        return jsonResponseCache.respond(JsonResponseCache.movieReviews(movieId), "before=" + before + "&size=" + size,
+                headers, () -> reviewService.getReviewsByMovie(movieId, before, size));
+    }
+
+    /**
+     * Streams the reviews of a movie by movie ID as newline-delimited JSON.
+     * Selected instead of {@link #getReviewsByMovieId(Long, HttpHeaders)} when the client
+     * accepts {@code application/x-ndjson}; reviews are written one by one
+     * with backpressure instead of being collected into a list first.
+     * 
+     * @param movieId the ID of the movie
+     * @return {@link Flux} of {@link ReviewDto} associated with the movie
+     */
+    @Operation(summary = "Stream reviews by movie id")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ReviewDto> streamReviewsByMovieId(@PathVariable Long movieId) {
+        return reactiveReadService.streamReviewsByMovie(movieId);
     }
 
     /**
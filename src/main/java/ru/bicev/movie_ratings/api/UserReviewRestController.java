@@ -1,16 +1,18 @@
 package ru.bicev.movie_ratings.api;
 
-import java.util.List;
-
-import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import io.swagger.v3.oas.annotations.Operation;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
 import ru.bicev.movie_ratings.services.ReviewService;
 
 /**
@@ -27,27 +29,59 @@ public class UserReviewRestController {
 
     private final ReviewService reviewService;
 
+    private final JsonResponseCache jsonResponseCache;
+
     /**
      * Contstructor to inject dependencies.
      * 
-     * @param reviewService service that handles review-related operations
+     * @param reviewService     service that handles review-related operations
+     * @param jsonResponseCache cache of serialized response bodies
      */
-    public UserReviewRestController(ReviewService reviewService) {
+    public UserReviewRestController(ReviewService reviewService, JsonResponseCache jsonResponseCache) {
         this.reviewService = reviewService;
+        this.jsonResponseCache = jsonResponseCache;
     }
 
     /**
-     * Retrieves a list of reviews by user ID
+     * Retrieves a list of reviews by user ID. The serialized list is served from
+     * {@link JsonResponseCache}.
      * 
-     * @param userId the ID of the user created the reviews
-     * @return {@link ResponseEntity} containing list of {@link ReviewDto}, wrapped
-     *         in HTTP status 200 (OK).
+     * @param userId         the ID of the user created the reviews
+     * @param headers        the headers of the request, selecting the format
+     *                       and the compression of the body
+     * @return {@link ResponseEntity} containing list of {@link ReviewDto} as
+     *         JSON, wrapped in HTTP status 200 (OK).
      */
     @Operation(summary = "Get list of reviews by user id")
     @GetMapping
-    public ResponseEntity<List<ReviewDto>> getReviewsByUserId(@PathVariable Long userId) {
-        List<ReviewDto> reviews = reviewService.getReviewsByUser(userId);
-        return new ResponseEntity<>(reviews, HttpStatus.OK);
+    public ResponseEntity<byte[]> getReviewsByUserId(@PathVariable Long userId,
+            @RequestHeader HttpHeaders headers) {
+        return jsonResponseCache.respond(JsonResponseCache.userReviews(userId), "", headers,
+                () -> reviewService.getReviewsByUser(userId));
+    }
+
+    /**
+     * Retrieves a page of reviews by user ID, newest first. The serialized page
+     * is served from {@link JsonResponseCache}.
+     * 
+     * @param userId         the ID of the user created the reviews
+     * @param before         the {@code nextCursor} of the previous page; omit for
+     *                       the first page
+     * @param size           the page size, at most
+     *                       {@value ReviewService#MAX_PAGE_SIZE}
+     * @param headers        the headers of the request, selecting the format
+     *                       and the compression of the body
+     * @return {@link ResponseEntity} containing {@link ReviewPageDto} as JSON,
+     *         wrapped in HTTP status 200 (OK).
+     */
+    @Operation(summary = "Get page of reviews by user id")
+    @GetMapping("/page")
+    public ResponseEntity<byte[]> getReviewPageByUserId(@PathVariable Long userId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "" + ReviewService.DEFAULT_PAGE_SIZE) int size,
+            @RequestHeader HttpHeaders headers) {
+        return jsonResponseCache.respond(JsonResponseCache.userReviews(userId), "before=" + before + "&size=" + size,
+                headers, () -> reviewService.getReviewsByUser(userId, before, size));
     }
 
 }
@@ -0,0 +1,220 @@
+package ru.bicev.movie_ratings.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.ui.ExtendedModelMap;
+
+import ru.bicev.movie_ratings.api.MovieRestController;
+import ru.bicev.movie_ratings.controllers.MovieController;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+
+/**
+ * Warms up the caches and the hot read paths before the instance reports
+ * ready.
+ * <p>
+ * Runs once the application context has started, while the readiness state
+ * is still {@code REFUSING_TRAFFIC}: Spring Boot switches it to
+ * {@code ACCEPTING_TRAFFIC} only after all application runners returned. The
+ * warm-up builds the catalog snapshot, loads the
+ * {@code movie-ratings.warmup.top-movies} movies with the most reviews together
+ * with their average ratings into {@link JsonResponseCache} and
+ * {@link HtmlFragmentCache}, reading each of them from the database once.
+ * Then it calls the paths served from those caches, the movie list and the
+ * movie API, {@code movie-ratings.warmup.iterations} times, and requests the
+ * public movie list page through the embedded server, so that they are
+ * compiled by the JIT before the first user arrives without querying the
+ * database again.
+ * </p>
+ * <p>
+ * The warm-up runs on its own thread. If it takes longer than
+ * {@code movie-ratings.warmup.budget-millis}, it is interrupted and the
+ * instance reports ready with whatever was warmed up so far. It can be
+ * switched off with {@code movie-ratings.warmup.enabled=false}.
+ * </p>
+ */
+@Component
+public class CacheWarmup implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmup.class);
+
+    private final ReviewRepository reviewRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final MovieRestController movieRestController;
+    private final MovieController movieController;
+    private final ApplicationContext applicationContext;
+    private final boolean enabled;
+    private final int topMovies;
+    private final int iterations;
+    private final long budgetMillis;
+
+    private volatile boolean completed;
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param reviewRepository       the repository finding the most reviewed
+     *                               movies
+     * @param catalogSnapshotService the service keeping the snapshot of the
+     *                               catalog
+     * @param movieRestController    the controller serving the movie API
+     * @param movieController        the controller serving the movie pages
+     * @param applicationContext     the context, used to find the port of the
+     *                               embedded server
+     * @param enabled                whether the warm-up runs on startup
+     * @param topMovies              the number of most reviewed movies to load
+     * @param iterations             the number of passes over the hot paths
+     * @param budgetMillis           the time after which the warm-up is
+     *                               interrupted
+     */
+    @Autowired
+    public CacheWarmup(ReviewRepository reviewRepository, CatalogSnapshotService catalogSnapshotService,
+            MovieRestController movieRestController, MovieController movieController,
+            ApplicationContext applicationContext,
+            @Value("${movie-ratings.warmup.enabled:true}") boolean enabled,
+            @Value("${movie-ratings.warmup.top-movies:100}") int topMovies,
+            @Value("${movie-ratings.warmup.iterations:200}") int iterations,
+            @Value("${movie-ratings.warmup.budget-millis:30000}") long budgetMillis) {
+        this.reviewRepository = reviewRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.movieRestController = movieRestController;
+        this.movieController = movieController;
+        this.applicationContext = applicationContext;
+        this.enabled = enabled;
+        this.topMovies = topMovies;
+        this.iterations = iterations;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Runs the warm-up and waits for it at most
+     * {@code movie-ratings.warmup.budget-millis}.
+     *
+     * @param args the application arguments, not used
+     * @throws InterruptedException if the startup thread is interrupted while
+     *                              waiting
+     */
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        Thread worker = new Thread(this::warmUp, "cache-warmup");
+        worker.setDaemon(true);
+        worker.start();
+        worker.join(Math.max(1, budgetMillis));
+        long tookMillis = (System.nanoTime() - started) / 1_000_000;
+        if (worker.isAlive()) {
+            worker.interrupt();
+            logger.warn("Warm-up did not finish within {} ms, reporting ready anyway", budgetMillis);
+        } else if (completed) {
+            logger.info("Warm-up finished in {} ms", tookMillis);
+        }
+    }
+
+    /**
+     * Returns whether the last warm-up ran to the end.
+     *
+     * @return {@code true} if the warm-up completed
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    void warmUp() {
+        try {
+            catalogSnapshotService.getSnapshot();
+            List<Long> movieIds = new ArrayList<>();
+            for (Long movieId : reviewRepository.findMovieIdsOrderByReviewCountDesc(Limit.of(topMovies))) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (loadMovie(movieId)) {
+                    movieIds.add(movieId);
+                }
+            }
+            int port = serverPort();
+            HttpClient client = port > 0 ? HttpClient.newHttpClient() : null;
+            for (int i = 0; i < iterations; i++) {
+                movieController.showMovieList(new ExtendedModelMap());
+                for (Long movieId : movieIds) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    readCachedMovie(movieId);
+                }
+                if (client != null) {
+                    client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/movies"))
+                            .timeout(Duration.ofSeconds(5))
+                            .GET()
+                            .build(), HttpResponse.BodyHandlers.discarding());
+                }
+            }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Warm-up failed, reporting ready without it", e);
+        }
+    }
+
+    /**
+     * Fills the caches with every variant of the movie.
+     *
+     * @return {@code false} if the movie was deleted since the ids were read
+     */
+    private boolean loadMovie(Long movieId) {
+        try {
+            readCachedMovie(movieId);
+            movieController.findMovieById(movieId, new ExtendedModelMap());
+            return true;
+        } catch (MovieNotFoundException e) {
+            return false;
+        }
+    }
+
+    private void readCachedMovie(Long movieId) {
+        try {
+            for (JsonResponseCache.Format format : JsonResponseCache.Format.values()) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setAccept(List.of(format.getMediaType()));
+                movieRestController.getMovieById(movieId, headers);
+            }
+            HttpHeaders gzip = new HttpHeaders();
+            gzip.setAccept(List.of(MediaType.APPLICATION_JSON));
+            gzip.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            movieRestController.getMovieById(movieId, gzip);
+        } catch (MovieNotFoundException e) {
+            // Deleted since it was loaded.
+        }
+    }
+
+    private int serverPort() {
+        if (applicationContext instanceof WebServerApplicationContext webContext
+                && webContext.getWebServer() != null) {
+            return webContext.getWebServer().getPort();
+        }
+        return -1;
+    }
+}
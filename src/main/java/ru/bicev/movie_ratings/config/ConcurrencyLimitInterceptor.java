@@ -0,0 +1,143 @@
+package ru.bicev.movie_ratings.config;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import ru.bicev.movie_ratings.api.MovieRestController;
+import ru.bicev.movie_ratings.api.ReviewRestController;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+import ru.bicev.movie_ratings.utils.AdaptiveConcurrencyLimit;
+
+/**
+ * Interceptor shedding load on the movie and review REST endpoints before
+ * their requests reach the service layer.
+ * <p>
+ * Every endpoint of {@link MovieRestController} and
+ * {@link ReviewRestController} has its own {@link AdaptiveConcurrencyLimit},
+ * so a slow endpoint cannot starve the others of Tomcat threads. A request
+ * above the limit of its endpoint fails fast with
+ * {@link ServiceOverloadedException}, answered with 503 and
+ * {@code Retry-After}. Requests slower than
+ * {@code movie-ratings.concurrency-limit.latency-threshold-millis}, and those
+ * ending in a server error, cut the limit; fast ones raise it again.
+ * </p>
+ */
+@Component
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final List<Class<?>> LIMITED_CONTROLLERS = List.of(MovieRestController.class,
+            ReviewRestController.class);
+
+    private static final String ACQUIRED_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".acquired";
+
+    private record Acquired(AdaptiveConcurrencyLimit limit, long startNanos) {
+    }
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final Map<Method, AdaptiveConcurrencyLimit> limitsByMethod = new LinkedHashMap<>();
+    private final Map<String, AdaptiveConcurrencyLimit> limitsByEndpoint = new LinkedHashMap<>();
+
+    /**
+     * Constructor for ConcurrencyLimitInterceptor, creates the limit of every
+     * endpoint.
+     *
+     * @param enabled                whether requests are limited at all
+     * @param initialLimit           the limit every endpoint starts with
+     * @param minLimit               the lowest limit of an endpoint
+     * @param maxLimit               the highest limit of an endpoint
+     * @param latencyThresholdMillis the latency above which a request cuts the
+     *                               limit of its endpoint
+     * @param backoffRatio           the factor a limit is multiplied with when
+     *                               cut
+     * @param retryAfterSeconds      how many seconds rejected clients are told to
+     *                               wait
+     */
+    @Autowired
+    public ConcurrencyLimitInterceptor(
+            @Value("${movie-ratings.concurrency-limit.enabled:true}") boolean enabled,
+            @Value("${movie-ratings.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${movie-ratings.concurrency-limit.min-limit:2}") int minLimit,
+            @Value("${movie-ratings.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${movie-ratings.concurrency-limit.latency-threshold-millis:500}") long latencyThresholdMillis,
+            @Value("${movie-ratings.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${movie-ratings.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        long latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        for (Class<?> controller : LIMITED_CONTROLLERS) {
+            for (Method method : ReflectionUtils.getDeclaredMethods(controller)) {
+                if (AnnotatedElementUtils.hasAnnotation(method, RequestMapping.class)) {
+                    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                            latencyThresholdNanos, backoffRatio);
+                    limitsByMethod.put(method, limit);
+                    limitsByEndpoint.put(controller.getSimpleName() + "." + method.getName(), limit);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Requests resumed after asynchronous processing were admitted on their first dispatch.
+        if (!enabled || request.getDispatcherType() != DispatcherType.REQUEST
+                || !(handler instanceof HandlerMethod handlerMethod)) {
+            return true;
+        }
+        AdaptiveConcurrencyLimit limit = limitsByMethod.get(handlerMethod.getMethod());
+        if (limit == null) {
+            return true;
+        }
+        if (!limit.tryAcquire()) {
+            throw new ServiceOverloadedException("Too many concurrent requests to " + request.getRequestURI(),
+                    retryAfterSeconds);
+        }
+        request.setAttribute(ACQUIRED_ATTRIBUTE, new Acquired(limit, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+            Object handler) {
+        if (request.getAttribute(ACQUIRED_ATTRIBUTE) instanceof Acquired acquired) {
+            request.removeAttribute(ACQUIRED_ATTRIBUTE);
+            acquired.limit().releaseWithoutSample();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(ACQUIRED_ATTRIBUTE) instanceof Acquired acquired) {
+            request.removeAttribute(ACQUIRED_ATTRIBUTE);
+            boolean failed = ex != null || response.getStatus() >= 500;
+            acquired.limit().release(System.nanoTime() - acquired.startNanos(), failed);
+        }
+    }
+
+    /**
+     * Gets the limit of every limited endpoint
+     *
+     * @return the limits keyed by controller and handler method name, such as
+     *         {@code ReviewRestController.createReview}
+     */
+    public Map<String, AdaptiveConcurrencyLimit> getLimits() {
+        return Collections.unmodifiableMap(limitsByEndpoint);
+    }
+}
@@ -0,0 +1,167 @@
+package ru.bicev.movie_ratings.config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * Cache of rendered Thymeleaf fragments of the movie pages.
+ * <p>
+ * A fragment is rendered from data that is the same for every user, such as
+ * the cells of a movie row, and cached under a key together with the version
+ * of the data it was rendered from. The page includes the cached HTML and
+ * renders the per-user parts around it, such as the admin links and the CSRF
+ * token, on every request. An entry is rendered again once the version
+ * changes. At most {@code movie-ratings.fragment-cache.max-entries} fragments
+ * are kept; 0 turns the cache off.
+ * </p>
+ */
+@Component
+public class HtmlFragmentCache {
+
+    private record Fragment(String version, String html) {
+    }
+
+    private record FragmentList(String version, List<String> html) {
+    }
+
+    private final ITemplateEngine templateEngine;
+    private final int maxEntries;
+
+    private final Map<String, Fragment> fragments = new ConcurrentHashMap<>();
+    private final Map<String, FragmentList> fragmentLists = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param templateEngine the engine rendering the fragments
+     * @param maxEntries     the maximum number of cached fragments
+     */
+    @Autowired
+    public HtmlFragmentCache(ITemplateEngine templateEngine,
+            @Value("${movie-ratings.fragment-cache.max-entries:10000}") int maxEntries) {
+        this.templateEngine = templateEngine;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the HTML of the fragment rendered for the value, rendering it
+     * first if it is not cached for the version.
+     *
+     * @param key      the key of the fragment, unique per rendered value
+     * @param version  the version of the data the value was loaded from, read
+     *                 before loading it, or {@code null} if it is not known;
+     *                 the fragment is then rendered and not cached
+     * @param template the template declaring the fragment
+     * @param fragment the name of the fragment
+     * @param name     the name of the variable the fragment renders
+     * @param value    the value to render
+     * @return the rendered HTML
+     */
+    public String render(String key, String version, String template, String fragment, String name,
+            Object value) {
+        Fragment cached = fragments.get(key);
+        if (cached != null && cached.version().equals(version)) {
+            hits.increment();
+            return cached.html();
+        }
+        misses.increment();
+        String html = process(template, fragment, name, value);
+        if (version != null) {
+            store(fragments, key, new Fragment(version, html));
+        }
+        return html;
+    }
+
+    /**
+     * Returns the HTML of the fragment if it is cached for the version, without
+     * rendering it, so that callers can skip loading the value it renders.
+     *
+     * @param key     the key of the fragment
+     * @param version the version of the data, read before looking it up
+     * @return the cached HTML, or {@code null} if it is not cached for the
+     *         version
+     */
+    public String cached(String key, String version) {
+        Fragment cached = fragments.get(key);
+        if (cached == null || !cached.version().equals(version)) {
+            return null;
+        }
+        hits.increment();
+        return cached.html();
+    }
+
+    /**
+     * Returns the HTML of the fragment rendered once for each of the values,
+     * in their order, rendering them first if they are not cached for the
+     * version.
+     *
+     * @param key      the key of the list of fragments
+     * @param version  the version of the data the values were loaded from,
+     *                 read before loading them
+     * @param template the template declaring the fragment
+     * @param fragment the name of the fragment
+     * @param name     the name of the variable the fragment renders
+     * @param values   the values to render
+     * @return the rendered HTML of each value
+     */
+    public List<String> renderEach(String key, String version, String template, String fragment, String name,
+            List<?> values) {
+        FragmentList cached = fragmentLists.get(key);
+        if (cached != null && cached.version().equals(version)) {
+            hits.increment();
+            return cached.html();
+        }
+        misses.increment();
+        List<String> html = values.stream()
+                .map(value -> process(template, fragment, name, value))
+                .toList();
+        store(fragmentLists, key, new FragmentList(version, html));
+        return html;
+    }
+
+    /**
+     * Gets the number of fragments served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of fragments that had to be rendered.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private String process(String template, String fragment, String name, Object value) {
+        Context context = new Context();
+        context.setVariable(name, value);
+        return templateEngine.process(template, Set.of(fragment), context);
+    }
+
+    private <E> void store(Map<String, E> entries, String key, E entry) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        if (!entries.containsKey(key) && fragments.size() + fragmentLists.size() >= maxEntries) {
+            fragments.clear();
+            fragmentLists.clear();
+        }
+        entries.put(key, entry);
+    }
+}
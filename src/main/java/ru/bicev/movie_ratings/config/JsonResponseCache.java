@@ -0,0 +1,362 @@
+package ru.bicev.movie_ratings.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import ru.bicev.movie_ratings.utils.AfterCommit;
+
+/**
+ * Cache of serialized JSON response bodies of the hot read endpoints.
+ * <p>
+ * Bodies are cached per resource, such as a movie or the reviews of a movie,
+ * and per variant of the request, such as the page parameters. Each body is
+ * kept as UTF-8 JSON bytes, or as CBOR or Smile for clients asking for one of
+ * those in {@code Accept}, and, from
+ * {@code movie-ratings.response-cache.gzip-min-bytes} on, also compressed at
+ * {@code movie-ratings.response-cache.gzip-level} for clients accepting gzip.
+ * The services invalidate a resource once a write to it has committed; every
+ * resource carries a version, and a body loaded before the version changed is
+ * neither stored nor served. Bodies are loaded on the primary database, so a
+ * lagging read replica cannot fill the cache with data older than the version
+ * it is stored under. Loaders that coalesce concurrent loads must not share a
+ * load across versions, see {@link #version(String)}. At most
+ * {@code movie-ratings.response-cache.max-entries} bodies are kept; 0 turns
+ * the cache off.
+ * </p>
+ */
+@Component
+public class JsonResponseCache {
+
+    /**
+     * The formats a body can be serialized to.
+     */
+    public enum Format {
+        /**
+         * UTF-8 JSON, the default.
+         */
+        JSON(MediaType.APPLICATION_JSON),
+        /**
+         * Concise Binary Object Representation, RFC 8949.
+         */
+        CBOR(MediaType.APPLICATION_CBOR),
+        /**
+         * Jackson's binary JSON.
+         */
+        SMILE(new MediaType("application", "x-jackson-smile"));
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * Returns the content type of the format.
+         *
+         * @return the media type
+         */
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * Picks the format for the {@code Accept} header of a request: the
+         * first one, by quality, the client accepts, or JSON if it accepts
+         * none of them.
+         *
+         * @param accepted the accepted media types
+         * @return the format to respond with
+         */
+        public static Format negotiate(List<MediaType> accepted) {
+            List<MediaType> byQuality = new ArrayList<>(accepted);
+            byQuality.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+            for (MediaType mediaType : byQuality) {
+                if (mediaType.getQualityValue() == 0) {
+                    break;
+                }
+                for (Format format : values()) {
+                    if (mediaType.includes(format.mediaType)) {
+                        return format;
+                    }
+                }
+            }
+            return JSON;
+        }
+    }
+
+    private record Entry(String resource, long epoch, long version, byte[] body, byte[] gzip) {
+    }
+
+    private final Map<Format, ObjectMapper> mappers = new EnumMap<>(Format.class);
+    private final int maxEntries;
+    private final int gzipMinBytes;
+    private final int gzipLevel;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param objectMapper the mapper serializing the bodies, the same one the
+     *                     REST controllers use; the binary formats share its
+     *                     configuration
+     * @param maxEntries   the maximum number of cached bodies
+     * @param gzipMinBytes the body size from which a gzip variant is kept
+     * @param gzipLevel    the compression level of the gzip variants, 1 (fast)
+     *                     to 9 (small); 6 is the zlib default
+     */
+    @Autowired
+    public JsonResponseCache(ObjectMapper objectMapper,
+            @Value("${movie-ratings.response-cache.max-entries:10000}") int maxEntries,
+            @Value("${movie-ratings.response-cache.gzip-min-bytes:1024}") int gzipMinBytes,
+            @Value("${movie-ratings.response-cache.gzip-level:6}") int gzipLevel) {
+        this.mappers.put(Format.JSON, objectMapper);
+        this.mappers.put(Format.CBOR, objectMapper.copyWith(new CBORFactory()));
+        this.mappers.put(Format.SMILE, objectMapper.copyWith(new SmileFactory()));
+        this.maxEntries = maxEntries;
+        this.gzipMinBytes = gzipMinBytes;
+        this.gzipLevel = gzipLevel;
+    }
+
+    /**
+     * Returns the resource key of the rating-sorted catalog.
+     *
+     * @return the resource key
+     */
+    public static String catalog() {
+        return "catalog";
+    }
+
+    /**
+     * Returns the resource key of a movie.
+     *
+     * @param movieId the ID of the movie
+     * @return the resource key
+     */
+    public static String movie(Long movieId) {
+        return "movie:" + movieId;
+    }
+
+    /**
+     * Returns the resource key of the reviews of a movie.
+     *
+     * @param movieId the ID of the movie
+     * @return the resource key
+     */
+    public static String movieReviews(Long movieId) {
+        return "movie-reviews:" + movieId;
+    }
+
+    /**
+     * Returns the resource key of the reviews of a user.
+     *
+     * @param userId the ID of the user
+     * @return the resource key
+     */
+    public static String userReviews(Long userId) {
+        return "user-reviews:" + userId;
+    }
+
+    /**
+     * Builds the response with the cached body of the resource, loading and
+     * serializing the body first if it is not cached. Exceptions thrown by the
+     * loader are passed on and nothing is cached.
+     *
+     * @param resource       the resource key
+     * @param variant        the variant of the request, empty if there is only
+     *                       one
+     * @param requestHeaders the headers of the request, whose {@code Accept}
+     *                       and {@code Accept-Encoding} select the format and
+     *                       the compression
+     * @param loader         the loader of the body
+     * @return the response with the body in the negotiated format,
+     *         gzip-compressed if the client accepts it and a compressed
+     *         variant is kept
+     */
+    public ResponseEntity<byte[]> respond(String resource, String variant, HttpHeaders requestHeaders,
+            Supplier<?> loader) {
+        Format format = Format.negotiate(requestHeaders.getAccept());
+        Entry entry = get(resource, resource + "?" + variant + "#" + format, format, loader);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(format.getMediaType());
+        if (entry.gzip() == null) {
+            return response.varyBy(HttpHeaders.ACCEPT).body(entry.body());
+        }
+        response.varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(requestHeaders)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzip());
+        }
+        return response.body(entry.body());
+    }
+
+    /**
+     * Invalidates the cached bodies of the resource once the current
+     * transaction commits.
+     *
+     * @param resource the resource key
+     */
+    public void invalidate(String resource) {
+        AfterCommit.run(() -> versions.merge(resource, 1L, Long::sum));
+    }
+
+    /**
+     * Invalidates all cached bodies once the current transaction commits. Used
+     * by writes that touch too many resources to list them.
+     */
+    public void invalidateAll() {
+        AfterCommit.run(() -> {
+            epoch.incrementAndGet();
+            entries.clear();
+        });
+    }
+
+    /**
+     * Returns the current version of the resource, which changes whenever the
+     * resource is invalidated. Caches of other renderings of the resource key
+     * their entries by it; it must be read before the data is loaded. Loaders
+     * that share one load between concurrent callers include it in the key of
+     * the load, so that a caller never joins a load started before the version
+     * changed.
+     *
+     * @param resource the resource key
+     * @return the version of the resource
+     */
+    public String version(String resource) {
+        return epoch.get() + "." + versions.getOrDefault(resource, 0L);
+    }
+
+    /**
+     * Gets the number of requests served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of requests whose body had to be loaded.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private Entry get(String resource, String key, Format format, Supplier<?> loader) {
+        // The versions are read before loading, so a write committed during
+        // the load makes the loaded body stale.
+        long currentEpoch = epoch.get();
+        long version = versions.getOrDefault(resource, 0L);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.epoch() == currentEpoch && entry.version() == version) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        entry = serialize(resource, format, ReplicaRoutingDataSource.onPrimary(loader), currentEpoch, version);
+        if (maxEntries > 0 && epoch.get() == currentEpoch && versions.getOrDefault(resource, 0L) == version) {
+            store(key, entry);
+        }
+        return entry;
+    }
+
+    private void store(String key, Entry entry) {
+        if (entries.size() >= maxEntries) {
+            long currentEpoch = epoch.get();
+            entries.values().removeIf(cached -> cached.epoch() != currentEpoch
+                    || cached.version() != versions.getOrDefault(cached.resource(), 0L));
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(key, entry);
+    }
+
+    private Entry serialize(String resource, Format format, Object value, long epoch, long version) {
+        byte[] body;
+        try {
+            body = mappers.get(format).writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response body cannot be serialized", e);
+        }
+        return new Entry(resource, epoch, version, body, compress(body));
+    }
+
+    /**
+     * Compresses a body the way the cached bodies are compressed, for
+     * responses pre-serialized outside this cache.
+     *
+     * @param body the serialized body
+     * @return the gzip-compressed body, or {@code null} if the body is smaller
+     *         than {@code movie-ratings.response-cache.gzip-min-bytes}
+     */
+    public byte[] compress(byte[] body) {
+        return body.length >= gzipMinBytes ? gzip(body) : null;
+    }
+
+    /**
+     * Checks whether the client accepts a gzip-compressed body.
+     *
+     * @param requestHeaders the headers of the request
+     * @return {@code true} if {@code Accept-Encoding} lists gzip with a
+     *         non-zero quality
+     */
+    public static boolean acceptsGzip(HttpHeaders requestHeaders) {
+        String acceptEncoding = requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new LeveledGZIPOutputStream(compressed, gzipLevel)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static final class LeveledGZIPOutputStream extends GZIPOutputStream {
+
+        LeveledGZIPOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+}
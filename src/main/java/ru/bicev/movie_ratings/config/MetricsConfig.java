@@ -0,0 +1,188 @@
+package ru.bicev.movie_ratings.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import ru.bicev.movie_ratings.services.MovieService;
+import ru.bicev.movie_ratings.services.PurgeService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.ReviewGroupCommitService;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService;
+import ru.bicev.movie_ratings.utils.AdaptiveConcurrencyLimit;
+
+/**
+ * Configuration class for the application-specific metrics.
+ * The registered meters are exposed through the actuator metrics endpoint.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Registers the counters of the movie lookups: how many loads hit the
+     * database and how many concurrent lookups were coalesced into a load
+     * already in flight.
+     *
+     * @param movieService the service performing the movie lookups
+     * @return a {@link MeterBinder} registering the movie lookup counters
+     */
+    @Bean
+    public MeterBinder movieLoadMetrics(MovieService movieService) {
+        return registry -> {
+            FunctionCounter.builder("movies.loads", movieService, MovieService::getMovieLoadCount)
+                    .description("Movie lookups executed against the database")
+                    .register(registry);
+            FunctionCounter.builder("movies.loads.coalesced", movieService, MovieService::getCoalescedMovieLoadCount)
+                    .description("Movie lookups that shared a load already in flight")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Registers the progress of the purge of soft-deleted rows: the rows
+     * removed so far and the rows still waiting after the last run, per entity.
+     *
+     * @param purgeService the service purging the soft-deleted rows
+     * @return a {@link MeterBinder} registering the purge meters
+     */
+    @Bean
+    public MeterBinder purgeMetrics(PurgeService purgeService) {
+        return registry -> {
+            for (String entity : PurgeService.ENTITIES) {
+                FunctionCounter.builder("purge.rows", purgeService, service -> service.getPurgedCount(entity))
+                        .description("Soft-deleted rows physically removed")
+                        .tag("entity", entity)
+                        .register(registry);
+                Gauge.builder("purge.backlog", purgeService, service -> service.getBacklog(entity))
+                        .description("Soft-deleted rows waiting to be purged after the last run")
+                        .tag("entity", entity)
+                        .register(registry);
+            }
+        };
+    }
+
+    /**
+     * Registers the meters of the write-combined rating aggregates: the movie
+     * aggregates flushed so far, the delta rows they were combined from and
+     * the failed flushes.
+     *
+     * @param ratingAggregateService the service flushing the aggregates
+     * @return a {@link MeterBinder} registering the rating aggregate meters
+     */
+    @Bean
+    public MeterBinder ratingAggregateMetrics(RatingAggregateService ratingAggregateService) {
+        return registry -> {
+            FunctionCounter.builder("ratings.aggregate.flushed", ratingAggregateService,
+                    RatingAggregateService::getFlushedMovieCount)
+                    .description("Movie rating aggregates updated by the flushes")
+                    .register(registry);
+            FunctionCounter.builder("ratings.aggregate.flush.failures", ratingAggregateService,
+                    RatingAggregateService::getFailedFlushCount)
+                    .description("Flushes of the rating aggregates that failed and were retried")
+                    .register(registry);
+            FunctionCounter.builder("ratings.aggregate.flushed.deltas", ratingAggregateService,
+                    RatingAggregateService::getFlushedDeltaCount)
+                    .description("Rating delta rows folded into the aggregates by the flushes")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Registers the meters of the write-behind of the reviews: the depth and
+     * the remaining capacity of the queue, and the reviews written, failed and
+     * rejected because the queue was full.
+     *
+     * @param reviewWriteBehindService the service writing the queued reviews
+     * @return a {@link MeterBinder} registering the write-behind meters
+     */
+    @Bean
+    public MeterBinder reviewWriteBehindMetrics(ReviewWriteBehindService reviewWriteBehindService) {
+        return registry -> {
+            Gauge.builder("reviews.write-behind.queue.depth", reviewWriteBehindService,
+                    ReviewWriteBehindService::getQueueDepth)
+                    .description("Reviews waiting to be written")
+                    .register(registry);
+            Gauge.builder("reviews.write-behind.queue.remaining", reviewWriteBehindService,
+                    ReviewWriteBehindService::getRemainingCapacity)
+                    .description("Reviews the queue has room for")
+                    .register(registry);
+            FunctionCounter.builder("reviews.write-behind.written", reviewWriteBehindService,
+                    ReviewWriteBehindService::getWrittenReviewCount)
+                    .description("Queued reviews written")
+                    .register(registry);
+            FunctionCounter.builder("reviews.write-behind.failed", reviewWriteBehindService,
+                    ReviewWriteBehindService::getFailedReviewCount)
+                    .description("Queued reviews that could not be written")
+                    .register(registry);
+            FunctionCounter.builder("reviews.write-behind.rejected", reviewWriteBehindService,
+                    ReviewWriteBehindService::getRejectedReviewCount)
+                    .description("Reviews rejected because the queue was full")
+                    .register(registry);
+            FunctionCounter.builder("reviews.write-behind.batches", reviewWriteBehindService,
+                    ReviewWriteBehindService::getBatchCount)
+                    .description("Transactions written by the writer")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Registers the meters of the group commit of the reviews: the reviews
+     * written and failed, the group commits and the reviews waiting for the
+     * next group. Reviews per group is the ratio of the two counters.
+     *
+     * @param reviewGroupCommitService the service committing the groups
+     * @return a {@link MeterBinder} registering the group commit meters
+     */
+    @Bean
+    public MeterBinder reviewGroupCommitMetrics(ReviewGroupCommitService reviewGroupCommitService) {
+        return registry -> {
+            FunctionCounter.builder("reviews.group-commit.written", reviewGroupCommitService,
+                    ReviewGroupCommitService::getWrittenReviewCount)
+                    .description("Reviews written by group commits")
+                    .register(registry);
+            FunctionCounter.builder("reviews.group-commit.failed", reviewGroupCommitService,
+                    ReviewGroupCommitService::getFailedReviewCount)
+                    .description("Reviews group commits failed to write")
+                    .register(registry);
+            FunctionCounter.builder("reviews.group-commit.groups", reviewGroupCommitService,
+                    ReviewGroupCommitService::getGroupCount)
+                    .description("Group commits")
+                    .register(registry);
+            Gauge.builder("reviews.group-commit.pending", reviewGroupCommitService,
+                    ReviewGroupCommitService::getPendingReviewCount)
+                    .description("Reviews waiting for the next group commit")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Registers the meters of the per-endpoint concurrency limits, tagged with
+     * the endpoint: the current limit, the requests in flight and the requests
+     * rejected with 503.
+     *
+     * @param concurrencyLimitInterceptor the interceptor holding the limits
+     * @return a {@link MeterBinder} registering the concurrency limit meters
+     */
+    @Bean
+    public MeterBinder concurrencyLimitMetrics(ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+        return registry -> concurrencyLimitInterceptor.getLimits().forEach((endpoint, limit) -> {
+            Tags tags = Tags.of("endpoint", endpoint);
+            Gauge.builder("http.concurrency-limit.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .tags(tags)
+                    .description("Concurrent requests currently admitted to the endpoint")
+                    .register(registry);
+            Gauge.builder("http.concurrency-limit.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .tags(tags)
+                    .description("Requests to the endpoint in flight")
+                    .register(registry);
+            FunctionCounter.builder("http.concurrency-limit.rejected", limit,
+                    AdaptiveConcurrencyLimit::getRejectedCount)
+                    .tags(tags)
+                    .description("Requests to the endpoint rejected with 503")
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package ru.bicev.movie_ratings.config;
+
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.security.web.csrf.CsrfToken;
+
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
+import ru.bicev.movie_ratings.dto.ReviewRating;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
+import ru.bicev.movie_ratings.dto.UserDto;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.entitites.MovieRatingAggregate;
+import ru.bicev.movie_ratings.entitites.MovieRatingDelta;
+import ru.bicev.movie_ratings.entitites.Review;
+import ru.bicev.movie_ratings.entitites.SeedHistory;
+import ru.bicev.movie_ratings.entitites.User;
+import ru.bicev.movie_ratings.seed.FixtureSeeder;
+
+/**
+ * Registers the runtime hints the native executable needs beyond the ones
+ * Spring AOT derives from the bean definitions.
+ * <p>
+ * The DTOs are serialized by an {@code ObjectMapper} called directly from the
+ * response cache and the catalog snapshot, and read by the Thymeleaf
+ * templates through SpEL, so nothing tells AOT they are bound; the same goes
+ * for the seed fixtures read by {@link FixtureSeeder}. The interface
+ * projections are JDK proxies created by Spring Data at runtime. The
+ * converters are called directly and need no hints.
+ * </p>
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    /**
+     * Registers the hints.
+     *
+     * @param hints       the hints to add to
+     * @param classLoader the class loader of the application
+     */
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(), MovieDto.class, ReviewDto.class,
+                ReviewPageDto.class, UserDto.class, FixtureSeeder.Fixtures.class);
+
+        for (Class<?> entity : new Class<?>[] { Movie.class, Review.class, User.class, SeedHistory.class,
+                MovieRatingAggregate.class, MovieRatingDelta.class }) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+
+        for (Class<?> projection : new Class<?>[] { MovieSummary.class, ReviewRating.class, ReviewSummary.class }) {
+            hints.reflection().registerType(projection, MemberCategory.INVOKE_PUBLIC_METHODS);
+            hints.proxies().registerJdkProxy(projection, TargetAware.class, SpringProxy.class, Advised.class,
+                    DecoratingProxy.class);
+        }
+
+        // The templates read the CSRF token of the request through SpEL.
+        hints.reflection().registerType(CsrfToken.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(TypeReference.of(
+                "org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler$SupplierCsrfToken"),
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+
+        hints.resources().registerPattern("templates/**/*.html");
+        hints.resources().registerPattern("seed/*.json");
+    }
+}
@@ -0,0 +1,150 @@
+package ru.bicev.movie_ratings.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks the query plans of the repository finder methods on startup.
+ * <p>
+ * For every finder the equivalent SQL is run through {@code EXPLAIN} and a
+ * warning is logged when the plan reads a table with a sequential scan while
+ * the table holds at least {@code movie-ratings.query-plan-check.min-rows}
+ * rows, which usually means an index is missing or not usable. The check only
+ * runs on PostgreSQL and can be switched off with
+ * {@code movie-ratings.query-plan-check.enabled=false}.
+ * </p>
+ * <p>
+ * The SQL includes the {@code deleted = FALSE} restriction Hibernate adds for
+ * the soft-deleted entities.
+ * </p>
+ */
+@Component
+public class QueryPlanInspector {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanInspector.class);
+
+    /**
+     * A finder method together with the SQL it issues and the table it reads.
+     *
+     * @param finder the repository method the query belongs to
+     * @param table  the table expected to be read through an index
+     * @param sql    the SQL equivalent of the finder, with literal parameters
+     */
+    record QueryCheck(String finder, String table, String sql) {
+    }
+
+    static final List<QueryCheck> CHECKS = List.of(
+            new QueryCheck("MovieRepository.findByTitle", "movie",
+                    "SELECT * FROM movie WHERE title = '' AND deleted = FALSE"),
+            new QueryCheck("UserRepository.findByEmail", "users",
+                    "SELECT * FROM users WHERE email = '' AND deleted = FALSE"),
+            new QueryCheck("UserRepository.findByUserName", "users",
+                    "SELECT * FROM users WHERE user_name = '' AND deleted = FALSE"),
+            new QueryCheck("ReviewRepository.findSummariesByMovieId", "review",
+                    "SELECT id, comment, rating, movie_id, user_id FROM review WHERE movie_id = 0 AND deleted = FALSE ORDER BY id"),
+            new QueryCheck("ReviewRepository.findSummariesByUserId", "review",
+                    "SELECT id, comment, rating, movie_id, user_id FROM review WHERE user_id = 0 AND deleted = FALSE ORDER BY id"),
+            new QueryCheck("ReviewRepository.findByUserIdAndMovieId", "review",
+                    "SELECT * FROM review WHERE user_id = 0 AND movie_id = 0 AND deleted = FALSE"),
+            new QueryCheck("ReviewRepository.findSummariesByMovieIdBefore", "review",
+                    "SELECT id, comment, rating, movie_id, user_id FROM review WHERE movie_id = 0 AND id < 9223372036854775807 AND deleted = FALSE ORDER BY id DESC LIMIT 21"),
+            new QueryCheck("ReviewRepository.findSummariesByUserIdBefore", "review",
+                    "SELECT id, comment, rating, movie_id, user_id FROM review WHERE user_id = 0 AND id < 9223372036854775807 AND deleted = FALSE ORDER BY id DESC LIMIT 21"),
+            new QueryCheck("ReviewRepository.findRatingsByUserId", "review",
+                    "SELECT id, movie_id, rating FROM review WHERE user_id = 0 AND deleted = FALSE ORDER BY id LIMIT 1000"),
+            new QueryCheck("ReviewRepository.purgeDeletedChunk", "review",
+                    "SELECT id FROM review WHERE deleted LIMIT 500"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final long minRows;
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param jdbcTemplate the template used to run the {@code EXPLAIN} statements
+     * @param enabled      whether the check runs on startup
+     * @param minRows      the table size from which a sequential scan is reported
+     */
+    @Autowired
+    public QueryPlanInspector(JdbcTemplate jdbcTemplate,
+            @Value("${movie-ratings.query-plan-check.enabled:true}") boolean enabled,
+            @Value("${movie-ratings.query-plan-check.min-rows:10000}") long minRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.minRows = minRows;
+    }
+
+    /**
+     * Runs the check once the application has started, so it does not delay
+     * startup and sees the schema after the migrations were applied.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!isPostgreSql()) {
+                logger.debug("Query plan check skipped: database is not PostgreSQL");
+                return;
+            }
+            inspect().forEach(logger::warn);
+        } catch (DataAccessException e) {
+            logger.warn("Query plan check failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Explains every finder query and collects a warning for each sequential
+     * scan on a table with at least the configured number of rows.
+     *
+     * @return the warnings, empty if all finders on large tables use an index
+     */
+    public List<String> inspect() {
+        Map<String, Long> rowEstimates = new HashMap<>();
+        List<String> warnings = new ArrayList<>();
+        for (QueryCheck check : CHECKS) {
+            long rows = rowEstimates.computeIfAbsent(check.table(), this::estimateRows);
+            if (rows < minRows) {
+                continue;
+            }
+            List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + check.sql(), String.class);
+            if (isSequentialScan(plan, check.table())) {
+                warnings.add(String.format("%s does a sequential scan on %s (~%d rows): %s",
+                        check.finder(), check.table(), rows, String.join(" | ", plan).trim()));
+            }
+        }
+        return warnings;
+    }
+
+    static boolean isSequentialScan(List<String> plan, String table) {
+        String seqScan = "Seq Scan on " + table + " ";
+        return plan.stream().anyMatch(line -> (line + " ").contains(seqScan));
+    }
+
+    private long estimateRows(String table) {
+        Long rows = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(reltuples), 0)::bigint FROM pg_class WHERE relname = ?", Long.class, table);
+        return rows == null ? 0 : rows;
+    }
+
+    private boolean isPostgreSql() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(product);
+    }
+}
@@ -0,0 +1,110 @@
+package ru.bicev.movie_ratings.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers which users have recently written a review, so that their reads
+ * are served by the primary database instead of a replica that may not have
+ * replicated the write yet.
+ * <p>
+ * Users are identified by the name of the authenticated principal. The window
+ * lasts {@code movie-ratings.replicas.read-your-writes-millis} after the write
+ * and only covers requests served by this instance.
+ * </p>
+ */
+@Component
+public class ReadYourWritesWindow {
+
+    private static final int EVICTION_THRESHOLD = 10_000;
+
+    private final long windowNanos;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param windowMillis how long after a write the user's reads go to the
+     *                     primary, in milliseconds
+     */
+    @Autowired
+    public ReadYourWritesWindow(@Value("${movie-ratings.replicas.read-your-writes-millis:5000}") long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000;
+    }
+
+    /**
+     * Opens the window for the currently authenticated user. Does nothing for
+     * anonymous requests.
+     */
+    public void recordWrite() {
+        recordWrite(currentUser());
+    }
+
+    /**
+     * Opens the window for the given user.
+     *
+     * @param username the name of the user who wrote
+     */
+    public void recordWrite(String username) {
+        if (username == null || windowNanos <= 0) {
+            return;
+        }
+        if (lastWrites.size() >= EVICTION_THRESHOLD) {
+            long now = System.nanoTime();
+            lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+        }
+        lastWrites.put(username, System.nanoTime());
+    }
+
+    /**
+     * Checks whether the currently authenticated user has written recently.
+     *
+     * @return {@code true} if the user's reads should go to the primary
+     */
+    public boolean isOpen() {
+        return isOpen(currentUser());
+    }
+
+    /**
+     * Checks whether the given user has written recently.
+     *
+     * @param username the name of the user
+     * @return {@code true} if the user's reads should go to the primary
+     */
+    public boolean isOpen(String username) {
+        if (username == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < windowNanos) {
+            return true;
+        }
+        lastWrites.remove(username, writtenAt);
+        return false;
+    }
+
+    /**
+     * Gets the name of the currently authenticated user, for writes recorded
+     * later on another thread
+     *
+     * @return the name of the principal, {@code null} for anonymous requests
+     */
+    public static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.bicev.movie_ratings.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration class sending read-only transactions to read replicas.
+ * <p>
+ * Only active when {@code movie-ratings.replicas.urls} lists at least one
+ * replica. The primary pool is still configured through
+ * {@code spring.datasource.*}; the replicas share its driver and, unless
+ * {@code movie-ratings.replicas.username} and
+ * {@code movie-ratings.replicas.password} are set, its credentials. Reads run
+ * in read-only transactions, which includes every Spring Data finder called
+ * outside a write transaction.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "movie-ratings.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * Creates the connection pool of the primary database.
+     *
+     * @param properties the {@code spring.datasource.*} properties
+     * @return the primary pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Creates the data source routing between the primary and the replicas.
+     *
+     * @param primaryDataSource    the primary pool
+     * @param properties           the {@code spring.datasource.*} properties
+     * @param readYourWritesWindow the window of users whose reads stay on the
+     *                             primary
+     * @param replicaUrls          the JDBC URLs of the replicas
+     * @param username             the user name for the replicas
+     * @param password             the password for the replicas
+     * @param selection            how a replica is picked, {@code round-robin}
+     *                             or {@code least-loaded}
+     * @param maximumPoolSize      the maximum pool size of each replica
+     * @return the routing data source
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+            DataSourceProperties properties, ReadYourWritesWindow readYourWritesWindow,
+            @Value("${movie-ratings.replicas.urls}") List<String> replicaUrls,
+            @Value("${movie-ratings.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${movie-ratings.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${movie-ratings.replicas.selection:round-robin}") String selection,
+            @Value("${movie-ratings.replicas.maximum-pool-size:10}") int maximumPoolSize) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName(ReplicaRoutingDataSource.replicaKey(replicas.size()));
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, ReplicaRoutingDataSource.Selection.of(selection),
+                readYourWritesWindow);
+    }
+
+    /**
+     * Creates the data source used by JPA, JDBC and Flyway. The proxy delays
+     * fetching the physical connection until the first statement, when the
+     * read-only flag of the transaction is known.
+     *
+     * @param replicaRoutingDataSource the routing data source
+     * @return the lazy data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Makes Hibernate give the connection back after every transaction instead
+     * of holding it for the whole session, so that with open-in-view a write
+     * transaction does not reuse the replica connection of an earlier read in
+     * the same request.
+     *
+     * @return the customizer
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,174 @@
+package ru.bicev.movie_ratings.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+/**
+ * Data source sending read-only transactions to a replica and everything else
+ * to the primary.
+ * <p>
+ * The target is chosen when the connection is first used, so the data source
+ * must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * for the read-only flag of the transaction to be known at that point. Reads of
+ * a user inside their {@link ReadYourWritesWindow} also go to the primary, and
+ * so do the reads made inside {@link #onPrimary(Supplier)}, such as the loads
+ * filling a cache that outlives the request.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    /**
+     * Lookup key of the primary data source.
+     */
+    public static final String PRIMARY = "primary";
+
+    /**
+     * How a replica is picked for a read-only transaction.
+     */
+    public enum Selection {
+        /**
+         * The replicas take turns.
+         */
+        ROUND_ROBIN,
+        /**
+         * The replica with the fewest connections in use is picked.
+         */
+        LEAST_LOADED;
+
+        /**
+         * Parses a property value such as {@code round-robin} or
+         * {@code least-loaded}.
+         *
+         * @param value the property value
+         * @return the matching selection
+         */
+        public static Selection of(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final ThreadLocal<Boolean> primaryForced = new ThreadLocal<>();
+
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final ReadYourWritesWindow readYourWritesWindow;
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Constructor for ReplicaRoutingDataSource.
+     *
+     * @param primary              the data source receiving the writes
+     * @param replicas             the data sources receiving the read-only
+     *                             transactions
+     * @param selection            how a replica is picked
+     * @param readYourWritesWindow the window of users whose reads stay on the
+     *                             primary
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+            ReadYourWritesWindow readYourWritesWindow) {
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+        this.readYourWritesWindow = readYourWritesWindow;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(replicaKey(i), this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * Returns the lookup key of the replica with the given index.
+     *
+     * @param index the index of the replica in the configured list
+     * @return the lookup key
+     */
+    public static String replicaKey(int index) {
+        return "replica-" + index;
+    }
+
+    /**
+     * Runs the call with all its transactions on the primary, read-only ones
+     * included. A transaction already open when the call starts keeps its
+     * connection. Does nothing special when no replicas are configured.
+     *
+     * @param <T>  the type of the result
+     * @param call the call reading data that must not lag behind committed
+     *             writes
+     * @return the result of the call
+     */
+    public static <T> T onPrimary(Supplier<T> call) {
+        if (isPrimaryForced()) {
+            return call.get();
+        }
+        primaryForced.set(Boolean.TRUE);
+        try {
+            return call.get();
+        } finally {
+            primaryForced.remove();
+        }
+    }
+
+    /**
+     * Checks whether the current thread runs inside
+     * {@link #onPrimary(Supplier)}.
+     *
+     * @return {@code true} if all transactions go to the primary
+     */
+    public static boolean isPrimaryForced() {
+        return primaryForced.get() != null;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || isPrimaryForced() || readYourWritesWindow.isOpen()) {
+            return PRIMARY;
+        }
+        return replicaKey(selectReplica());
+    }
+
+    /**
+     * Closes the replica pools. The primary is managed by its own bean.
+     */
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    private int selectReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (selection == Selection.ROUND_ROBIN) {
+            return start;
+        }
+        // Ties are broken in round-robin order, so idle replicas share the load.
+        int selected = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            int active = activeConnections(replicas.get(index));
+            if (active < fewest) {
+                fewest = active;
+                selected = index;
+            }
+        }
+        return selected;
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+}
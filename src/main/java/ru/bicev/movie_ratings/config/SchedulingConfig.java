@@ -0,0 +1,13 @@
+package ru.bicev.movie_ratings.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling the scheduled background jobs, such as the
+ * purge of soft-deleted rows.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,53 @@
+package ru.bicev.movie_ratings.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ru.bicev.movie_ratings.api.MovieRestController;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+
+/**
+ * Configuration class for the fast-startup mode, in which
+ * {@code spring.main.lazy-initialization} creates beans on first use and the
+ * jar is built with Spring AOT and an AppCDS archive.
+ */
+@Configuration
+public class StartupConfig {
+
+    /**
+     * Keeps the beans serving {@code GET /api/movies} eager, so the first
+     * request does not pay for creating them and the JPA setup they depend on.
+     * Beans with scheduled methods are kept eager by Spring Boot itself.
+     *
+     * @return a filter excluding the read path of the catalog from lazy
+     *         initialization
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerCatalogReadPath() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MovieRestController.class, CatalogSnapshotService.class,
+                JsonResponseCache.class);
+    }
+
+    /**
+     * Runs the Flyway migrations on startup unless
+     * {@code movie-ratings.flyway.migrate-on-startup} is {@code false}, as in
+     * the AppCDS training run, which has no database. Unlike
+     * {@code spring.flyway.enabled}, the property is read at runtime, also in
+     * an AOT-processed application.
+     *
+     * @param migrateOnStartup whether to migrate the schema on startup
+     * @return the migration strategy
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${movie-ratings.flyway.migrate-on-startup:true}") boolean migrateOnStartup) {
+        return flyway -> {
+            if (migrateOnStartup) {
+                flyway.migrate();
+            }
+        };
+    }
+}
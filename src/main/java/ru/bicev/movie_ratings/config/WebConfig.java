@@ -0,0 +1,33 @@
+package ru.bicev.movie_ratings.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuration class registering the application's Spring MVC interceptors,
+ * such as the {@link ConcurrencyLimitInterceptor} shedding load on the REST
+ * endpoints.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimitInterceptor concurrencyLimitInterceptor;
+
+    /**
+     * Constructor for WebConfig, initializes required components.
+     *
+     * @param concurrencyLimitInterceptor the interceptor limiting concurrent
+     *                                    requests per endpoint
+     */
+    @Autowired
+    public WebConfig(ConcurrencyLimitInterceptor concurrencyLimitInterceptor) {
+        this.concurrencyLimitInterceptor = concurrencyLimitInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(concurrencyLimitInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,5 +1,7 @@
 package ru.bicev.movie_ratings.controllers;
 
+import java.util.Objects;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -13,7 +15,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.validation.Valid;
+import ru.bicev.movie_ratings.config.HtmlFragmentCache;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.config.ReplicaRoutingDataSource;
 import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService.Snapshot;
 import ru.bicev.movie_ratings.services.MovieService;
 
 /**
@@ -25,27 +32,46 @@ import ru.bicev.movie_ratings.services.MovieService;
 @RequestMapping("/movies")
 public class MovieController {
 
+    private static final String FRAGMENTS = "movie/fragments";
+
     private final MovieService movieService;
 
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final JsonResponseCache jsonResponseCache;
+
+    private final HtmlFragmentCache htmlFragmentCache;
+
     /**
      * Constructor to inject dependencies.
      * 
-     * @param movieService service that handles movie operations
+     * @param movieService           service that handles movie operations
+     * @param catalogSnapshotService service keeping the snapshot of the catalog
+     * @param jsonResponseCache      cache keeping the versions of the movies
+     * @param htmlFragmentCache      cache of the rendered movie fragments
      */
     @Autowired
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, CatalogSnapshotService catalogSnapshotService,
+            JsonResponseCache jsonResponseCache, HtmlFragmentCache htmlFragmentCache) {
         this.movieService = movieService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.htmlFragmentCache = htmlFragmentCache;
     }
 
     /**
-     * Displays a list of the movies sorted by rating in descending order.
+     * Displays a list of the movies sorted by rating in descending order. The
+     * rows are rendered once per catalog snapshot.
      * 
      * @param model a holder for a model attributes
      * @return the view name for displaying the list of the movies
      */
     @GetMapping
     public String showMovieList(Model model) {
-        model.addAttribute("movies", movieService.getAllMoviesWithRatingsSortedByRatingDesc());
+        Snapshot snapshot = catalogSnapshotService.getSnapshot();
+        model.addAttribute("movies", snapshot.movies());
+        model.addAttribute("movieRows", htmlFragmentCache.renderEach("movie-rows",
+                String.valueOf(snapshot.version()), FRAGMENTS, "row", "movie", snapshot.movies()));
         return "movie/list";
     }
 
@@ -104,11 +130,15 @@ public class MovieController {
     public String findMovieByTitle(@RequestParam("title") String title, Model model) {
         MovieDto movieDto = movieService.findMovieByTitle(title);
         model.addAttribute("movie", movieDto);
+        model.addAttribute("movieDetails", htmlFragmentCache.render("movie-details:" + movieDto.getId(), null,
+                FRAGMENTS, "details", "movie", movieDto));
         return "movie/view";
     }
 
     /**
-     * Retrieves a movie by its ID
+     * Retrieves a movie by its ID. The movie details are rendered once per
+     * version of the movie; while they are cached, the movie is loaded like
+     * any other read and may be served by a replica.
      * 
      * @param id    the ID of the movie to retrieve
      * @param model a holder for model attributes
@@ -116,8 +146,23 @@ public class MovieController {
      */
     @GetMapping("/{id}")
     public String findMovieById(@PathVariable Long id, Model model) {
-        MovieDto movieDto = movieService.findMovieById(id);
+        String key = "movie-details:" + id;
+        String version = jsonResponseCache.version(JsonResponseCache.movie(id));
+        String movieDetails = htmlFragmentCache.cached(key, version);
+        MovieDto movieDto;
+        if (movieDetails != null) {
+            movieDto = movieService.findMovieById(id);
+        } else {
+            // The details are cached under the version, so they are loaded from the primary, and not cached if the
+            // movie changed while they were loaded.
+            movieDto = ReplicaRoutingDataSource.onPrimary(() -> movieService.findMovieById(id));
+            if (!Objects.equals(version, jsonResponseCache.version(JsonResponseCache.movie(id)))) {
+                version = null;
+            }
+            movieDetails = htmlFragmentCache.render(key, version, FRAGMENTS, "details", "movie", movieDto);
+        }
         model.addAttribute("movie", movieDto);
+        model.addAttribute("movieDetails", movieDetails);
         return "movie/view";
     }
 
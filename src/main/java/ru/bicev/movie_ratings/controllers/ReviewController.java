@@ -1,8 +1,6 @@
 package ru.bicev.movie_ratings.controllers;
 
 import java.security.Principal;
-import java.util.List;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -14,9 +12,11 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import jakarta.validation.Valid;
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
 import ru.bicev.movie_ratings.dto.UserDto;
 import ru.bicev.movie_ratings.exceptions.IllegalAccessException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
@@ -159,16 +159,22 @@ public class ReviewController {
     }
 
     /**
-     * Retrieves the reviews for a movie by its ID
+     * Retrieves a page of the reviews for a movie by its ID, newest first
      * 
      * @param movieId the ID of the reviewed movie
+     * @param before  the cursor of the page to display, {@code null} for the
+     *                first page
      * @param model   a holder for a model attributes
      * @return the view name for displaying the list of the reviews
      */
     @GetMapping
-    public String getReviewsByMovie(@PathVariable Long movieId, Model model) {
-        List<ReviewDto> reviews = reviewService.getReviewsByMovie(movieId);
-        model.addAttribute("reviews", reviews);
+    public String getReviewsByMovie(@PathVariable Long movieId, @RequestParam(required = false) Long before,
+            Model model) {
+        ReviewPageDto page = reviewService.getReviewsByMovie(movieId, before, ReviewService.DEFAULT_PAGE_SIZE);
+        model.addAttribute("movieId", movieId);
+        model.addAttribute("reviews", page.getReviews());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("pageUrl", "/movies/" + movieId + "/reviews");
         return "review/list";
     }
 
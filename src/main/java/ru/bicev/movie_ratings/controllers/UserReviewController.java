@@ -1,14 +1,13 @@
 package ru.bicev.movie_ratings.controllers;
 
-import java.util.List;
-
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
 import ru.bicev.movie_ratings.services.ReviewService;
 
 /**
@@ -31,16 +30,21 @@ public class UserReviewController {
     }
 
     /**
-     * Retrieves a list of reviews based on users ID
+     * Retrieves a page of reviews based on users ID, newest first
      * 
      * @param userId the ID of the user created reviews
+     * @param before the cursor of the page to display, {@code null} for the
+     *               first page
      * @param model  a holder for model attributes
      * @return the view name for displaying review list
      */
     @GetMapping
-    public String getReviewsByUser(@PathVariable Long userId, Model model) {
-        List<ReviewDto> reviews = reviewService.getReviewsByUser(userId);
-        model.addAttribute("reviews", reviews);
+    public String getReviewsByUser(@PathVariable Long userId, @RequestParam(required = false) Long before,
+            Model model) {
+        ReviewPageDto page = reviewService.getReviewsByUser(userId, before, ReviewService.DEFAULT_PAGE_SIZE);
+        model.addAttribute("reviews", page.getReviews());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("pageUrl", "/users/" + userId + "/reviews");
         return "review/list";
     }
 
@@ -0,0 +1,47 @@
+package ru.bicev.movie_ratings.dto;
+
+/**
+ * Projection of a movie with the columns shown in the movie list and its
+ * average rating.
+ * <p>
+ * Filled by Spring Data straight from the query result, without loading the
+ * {@code Movie} entity, its synopsis or its reviews.
+ * </p>
+ */
+public interface MovieSummary {
+
+    /**
+     * Gets the id of the movie
+     *
+     * @return the id of the movie
+     */
+    Long getId();
+
+    /**
+     * Gets the title of the movie
+     *
+     * @return the title of the movie
+     */
+    String getTitle();
+
+    /**
+     * Gets the genre of the movie
+     *
+     * @return the genre of the movie
+     */
+    String getGenre();
+
+    /**
+     * Gets the release year of the movie
+     *
+     * @return the release year of the movie
+     */
+    int getReleaseYear();
+
+    /**
+     * Gets the average rating of the movie
+     *
+     * @return the average rating, {@code 0.0} if the movie has no reviews
+     */
+    Double getRating();
+}
@@ -0,0 +1,29 @@
+package ru.bicev.movie_ratings.dto;
+
+/**
+ * Projection of the number of reviews of a movie with one rating, a bucket of
+ * the movie's rating histogram.
+ */
+public interface RatingBucket {
+
+    /**
+     * Gets the id of the movie
+     *
+     * @return the id of the movie
+     */
+    Long getMovieId();
+
+    /**
+     * Gets the rating of the reviews
+     *
+     * @return the rating
+     */
+    int getRating();
+
+    /**
+     * Gets the number of reviews with the rating
+     *
+     * @return the number of reviews
+     */
+    long getReviewCount();
+}
@@ -0,0 +1,80 @@
+package ru.bicev.movie_ratings.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object representing one page of reviews, newest first.
+ * <p>
+ * Pages are addressed by a keyset cursor: the next page contains the reviews
+ * with ids lower than {@link #getNextCursor()}.
+ * </p>
+ */
+public class ReviewPageDto {
+
+    /**
+     * The reviews of the page, ordered by id descending.
+     */
+    private List<ReviewDto> reviews;
+
+    /**
+     * The cursor of the next page, or {@code null} if this is the last page.
+     */
+    private Long nextCursor;
+
+    /**
+     * Default constructor.
+     */
+    public ReviewPageDto() {
+    }
+
+    /**
+     * Constructor to create a new review page dto instance with the given
+     * parameters.
+     *
+     * @param reviews    the reviews of the page
+     * @param nextCursor the cursor of the next page, or {@code null} if this is
+     *                   the last page
+     */
+    public ReviewPageDto(List<ReviewDto> reviews, Long nextCursor) {
+        this.reviews = reviews;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the reviews of the page
+     *
+     * @return the reviews of the page
+     */
+    public List<ReviewDto> getReviews() {
+        return reviews;
+    }
+
+    /**
+     * Sets the reviews of the page
+     *
+     * @param reviews the reviews of the page
+     */
+    public void setReviews(List<ReviewDto> reviews) {
+        this.reviews = reviews;
+    }
+
+    /**
+     * Gets the cursor of the next page
+     *
+     * @return the cursor of the next page, or {@code null} if this is the last
+     *         page
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the next page
+     *
+     * @param nextCursor the cursor of the next page
+     */
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+}
@@ -0,0 +1,28 @@
+package ru.bicev.movie_ratings.dto;
+
+/**
+ * Projection of a review with only the columns its movie's rating depends on.
+ */
+public interface ReviewRating {
+
+    /**
+     * Gets the id of the review
+     *
+     * @return the id of the review
+     */
+    Long getId();
+
+    /**
+     * Gets the id of the movie
+     *
+     * @return the id of the movie
+     */
+    Long getMovieId();
+
+    /**
+     * Gets the rating of the review
+     *
+     * @return the rating of the review
+     */
+    int getRating();
+}
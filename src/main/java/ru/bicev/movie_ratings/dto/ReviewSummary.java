@@ -0,0 +1,46 @@
+package ru.bicev.movie_ratings.dto;
+
+/**
+ * Projection of a review with the columns shown in the review lists.
+ * <p>
+ * Filled by Spring Data straight from the query result. The movie and user are
+ * read as foreign keys, so neither entity is loaded.
+ * </p>
+ */
+public interface ReviewSummary {
+
+    /**
+     * Gets the id of the review
+     *
+     * @return the id of the review
+     */
+    Long getId();
+
+    /**
+     * Gets the comment of the review
+     *
+     * @return the comment of the review
+     */
+    String getComment();
+
+    /**
+     * Gets the rating of the review
+     *
+     * @return the rating of the review
+     */
+    int getRating();
+
+    /**
+     * Gets the id of the reviewed movie
+     *
+     * @return the id of the movie
+     */
+    Long getMovieId();
+
+    /**
+     * Gets the id of the user who wrote the review
+     *
+     * @return the id of the user
+     */
+    Long getUserId();
+}
@@ -2,13 +2,17 @@ package ru.bicev.movie_ratings.entitites;
 
 import java.util.List;
 
+import org.hibernate.annotations.SoftDelete;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 
 /**
@@ -22,8 +26,13 @@ import jakarta.persistence.Transient;
  * associated reviews.
  * 
  * This class is mapped to a database table using JPA annotations.
+ * The title is indexed for the lookup by title.
+ * Deleted rows are only marked in the {@code deleted} column and are hidden
+ * from all queries; they are removed later by the purge job.
  */
 @Entity
+@SoftDelete
+@Table(indexes = @Index(name = "idx_movie_title", columnList = "title"))
 public class Movie {
 
     /**
@@ -0,0 +1,109 @@
+package ru.bicev.movie_ratings.entitites;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Represents the persisted number of reviews of a movie with one rating, a
+ * bucket of the movie's rating histogram. The rows are written in batches by
+ * {@link ru.bicev.movie_ratings.services.RatingAggregateService}, not through
+ * JPA.
+ */
+@Entity
+@Table(name = "movie_rating_aggregate")
+@IdClass(MovieRatingAggregate.Key.class)
+public class MovieRatingAggregate {
+
+    /**
+     * Composite identifier of an aggregate, the movie and the rating.
+     */
+    public static class Key implements Serializable {
+
+        private Long movieId;
+        private int rating;
+
+        /**
+         * Default constructor for JPA.
+         */
+        public Key() {
+        }
+
+        /**
+         * Constructor for the identifier of the aggregate of a movie and rating.
+         *
+         * @param movieId the ID of the movie
+         * @param rating  the rating
+         */
+        public Key(Long movieId, int rating) {
+            this.movieId = movieId;
+            this.rating = rating;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(movieId, key.movieId) && rating == key.rating;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(movieId, rating);
+        }
+    }
+
+    /**
+     * ID of the movie.
+     */
+    @Id
+    private Long movieId;
+
+    /**
+     * Rating of the reviews.
+     */
+    @Id
+    private int rating;
+
+    /**
+     * Number of reviews of the movie with the rating.
+     */
+    @Column(nullable = false)
+    private long reviewCount;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public MovieRatingAggregate() {
+    }
+
+    /**
+     * Gets the ID of the movie
+     *
+     * @return the ID of the movie
+     */
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    /**
+     * Gets the rating of the reviews
+     *
+     * @return the rating
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Gets the number of reviews of the movie with the rating
+     *
+     * @return the number of reviews
+     */
+    public long getReviewCount() {
+        return reviewCount;
+    }
+}
@@ -0,0 +1,88 @@
+package ru.bicev.movie_ratings.entitites;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Represents a change of the number of reviews of a movie with one rating,
+ * written with the reviews that caused it and not yet folded into its
+ * {@link MovieRatingAggregate}. The rows are written and folded in batches by
+ * {@link ru.bicev.movie_ratings.services.RatingAggregateService}, not through
+ * JPA.
+ */
+@Entity
+@Table(name = "movie_rating_delta", indexes = @Index(name = "idx_movie_rating_delta_movie_id", columnList = "movie_id"))
+public class MovieRatingDelta {
+
+    /**
+     * Unique identifier of the delta.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * ID of the movie.
+     */
+    @Column(nullable = false)
+    private long movieId;
+
+    /**
+     * Rating of the reviews.
+     */
+    @Column(nullable = false)
+    private int rating;
+
+    /**
+     * Change of the number of reviews of the movie with the rating.
+     */
+    @Column(nullable = false)
+    private long reviewCount;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public MovieRatingDelta() {
+    }
+
+    /**
+     * Gets the ID of the delta
+     *
+     * @return the ID of the delta
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the ID of the movie
+     *
+     * @return the ID of the movie
+     */
+    public long getMovieId() {
+        return movieId;
+    }
+
+    /**
+     * Gets the rating of the reviews
+     *
+     * @return the rating
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * Gets the change of the number of reviews of the movie with the rating
+     *
+     * @return the review count delta
+     */
+    public long getReviewCount() {
+        return reviewCount;
+    }
+}
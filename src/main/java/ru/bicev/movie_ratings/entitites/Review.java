@@ -1,20 +1,38 @@
 package ru.bicev.movie_ratings.entitites;
 
+import org.hibernate.annotations.SoftDelete;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Represents a review entity with details such as comment and rating.
  * This class is used to store and manage information about reviews in the
  * system.
  * This class is mapped to a database table using JPA annotations.
+ * The composite indexes serve the per-movie and per-user listings, which are
+ * filtered by the owner id and paged by review id. A user has at most one
+ * review per movie; the unique constraint also serves the lookup of the review
+ * of a user for a movie. They mirror the schema migrations in
+ * {@code db/migration}.
+ * Deleted rows are only marked in the {@code deleted} column and are hidden
+ * from all queries; they are removed later by the purge job.
  */
 @Entity
+@SoftDelete
+@Table(indexes = {
+        @Index(name = "idx_review_movie_id_id", columnList = "movie_id, id"),
+        @Index(name = "idx_review_user_id_id", columnList = "user_id, id")
+}, uniqueConstraints = @UniqueConstraint(name = "uk_review_user_id_movie_id", columnNames = { "user_id",
+        "movie_id" }))
 public class Review {
 
     /**
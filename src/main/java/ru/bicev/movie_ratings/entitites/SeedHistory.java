@@ -0,0 +1,109 @@
+package ru.bicev.movie_ratings.entitites;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Represents a seed data set applied to the database, with the checksum of
+ * its input at the time it was applied. A seeder whose checksum has not
+ * changed since is not run again.
+ */
+@Entity
+@Table(name = "seed_history")
+public class SeedHistory {
+
+    /**
+     * Name of the seeder, unique.
+     */
+    @Id
+    private String name;
+
+    /**
+     * Checksum of the input of the seeder when it was applied.
+     */
+    @Column(nullable = false)
+    private String checksum;
+
+    /**
+     * When the seeder was applied.
+     */
+    @Column(nullable = false)
+    private Instant appliedAt;
+
+    /**
+     * Default constructor for JPA.
+     */
+    public SeedHistory() {
+    }
+
+    /**
+     * Constructor to create a new history entry with the given parameters.
+     *
+     * @param name      the name of the seeder
+     * @param checksum  the checksum of the input of the seeder
+     * @param appliedAt when the seeder was applied
+     */
+    public SeedHistory(String name, String checksum, Instant appliedAt) {
+        this.name = name;
+        this.checksum = checksum;
+        this.appliedAt = appliedAt;
+    }
+
+    /**
+     * Gets the name of the seeder
+     *
+     * @return the name of the seeder
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the name of the seeder
+     *
+     * @param name the name of the seeder
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the checksum of the input of the seeder
+     *
+     * @return the checksum
+     */
+    public String getChecksum() {
+        return checksum;
+    }
+
+    /**
+     * Sets the checksum of the input of the seeder
+     *
+     * @param checksum the checksum
+     */
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    /**
+     * Gets when the seeder was applied
+     *
+     * @return the time the seeder was applied
+     */
+    public Instant getAppliedAt() {
+        return appliedAt;
+    }
+
+    /**
+     * Sets when the seeder was applied
+     *
+     * @param appliedAt the time the seeder was applied
+     */
+    public void setAppliedAt(Instant appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+}
@@ -2,6 +2,8 @@ package ru.bicev.movie_ratings.entitites;
 
 import java.util.List;
 
+import org.hibernate.annotations.SoftDelete;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -22,8 +24,11 @@ import ru.bicev.movie_ratings.utils.Role;
  * Each user cn have multiple reviews.
  * 
  * This class is mapped to a database table using JPA annotations.
+ * Deleted rows are only marked in the {@code deleted} column and are hidden
+ * from all queries; they are removed later by the purge job.
  */
 @Entity
+@SoftDelete
 @Table(name = "users")
 public class User {
 
@@ -0,0 +1,46 @@
+package ru.bicev.movie_ratings.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * This exception is thrown when a request is shed because the application
+ * cannot take more work of its kind right now, for example when the queue of
+ * reviews waiting to be written is full.
+ * 
+ * Annotated with {@link ResponseStatus}, which will cause Spring to return
+ * an HTTP 503 Service Unavailable status when this exception is thrown. The
+ * REST API also sends the {@code Retry-After} header.
+ * 
+ * @see RuntimeException
+ * 
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a new {@code ServiceOverloadedException} with the specified
+     * detail message.
+     *
+     * @param message           the detail message that explains the reason for
+     *                          the exception
+     * @param retryAfterSeconds how many seconds the client should wait before
+     *                          retrying
+     */
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Gets how many seconds the client should wait before retrying
+     *
+     * @return the delay in seconds
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+}
@@ -4,9 +4,12 @@ import java.util.Optional;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import ru.bicev.movie_ratings.dto.MovieSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 
 /**
@@ -33,11 +36,43 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     Optional<Movie> findByTitle(String title);
 
     /**
-     * Finds all movies sorted by rating desc.
+     * Finds all movies as {@link MovieSummary} projections without reading
+     * their reviews; the ratings are {@code 0.0}.
      * 
-     * @return a list of the movies sorted by its ratings desc.
+     * @return a list of the movie summaries in no particular order
      */
-    @Query("SELECT m FROM Movie m ORDER BY (SELECT AVG(r.rating) FROM Review r WHERE r.movie.id = m.id) DESC")
-    List<Movie> findAllMoviesSortedByRating();
+    @Query("SELECT m.id AS id, m.title AS title, m.genre AS genre, m.releaseYear AS releaseYear, 0.0 AS rating FROM Movie m")
+    List<MovieSummary> findAllSummariesWithoutRatings();
+
+    /**
+     * Deletes the movie by its id with a single statement, without loading its
+     * reviews. The movie is soft-deleted, so Hibernate issues an update of the
+     * {@code deleted} flag.
+     * 
+     * @param id the id of the movie to delete
+     * @return the number of the deleted movies
+     */
+    @Modifying
+    @Query("DELETE FROM Movie m WHERE m.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
+
+    /**
+     * Physically removes at most {@code limit} soft-deleted movies which have no
+     * reviews left.
+     * 
+     * @param limit the maximum number of movies to remove
+     * @return the number of the removed movies
+     */
+    @Modifying
+    @Query(value = "DELETE FROM movie WHERE id IN (SELECT o.id FROM movie o WHERE o.deleted AND NOT EXISTS (SELECT 1 FROM review r WHERE r.movie_id = o.id) LIMIT :limit)", nativeQuery = true)
+    int purgeDeletedChunk(@Param("limit") int limit);
+
+    /**
+     * Counts the soft-deleted movies waiting to be purged
+     * 
+     * @return the number of the soft-deleted movies
+     */
+    @Query(value = "SELECT COUNT(*) FROM movie WHERE deleted", nativeQuery = true)
+    long countDeleted();
 
 }
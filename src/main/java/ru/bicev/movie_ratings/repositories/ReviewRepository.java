@@ -1,19 +1,24 @@
 package ru.bicev.movie_ratings.repositories;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import ru.bicev.movie_ratings.dto.ReviewRating;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
 import ru.bicev.movie_ratings.entitites.Review;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for managing {@link Review} entities.
  * Provides methods for common CRUD operations and additional methods
- * to find review by movie id, user id, user and movie id and to find average
- * rating of the movie based on review's ratings.
+ * to find review by movie id, user id, user and movie id and to aggregate the
+ * ratings of the movies.
  * 
  * This interface extends {@link JpaRepository}, which provides several standard
  * data access methods.
@@ -22,7 +27,7 @@ import java.util.Optional;
  * repository bean, and it is responsible for interacting with the data source.
  */
 @Repository
-public interface ReviewRepository extends JpaRepository<Review, Long> {
+public interface ReviewRepository extends JpaRepository<Review, Long>, ReviewUpsertRepository {
 
     /**
      * Finds the list of the reviews by movie id
@@ -40,6 +45,80 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
      */
     List<Review> findByUserId(Long userId);
 
+    /**
+     * Finds the reviews of the movie as {@link ReviewSummary} projections,
+     * ordered by id.
+     * 
+     * @param movieId the movie id
+     * @return the list of the reviews associated with the movie
+     */
+    @Query("SELECT r.id AS id, r.comment AS comment, r.rating AS rating, r.movie.id AS movieId, r.user.id AS userId FROM Review r WHERE r.movie.id = :movieId ORDER BY r.id")
+    List<ReviewSummary> findSummariesByMovieId(@Param("movieId") Long movieId);
+
+    /**
+     * Finds the reviews of the user as {@link ReviewSummary} projections,
+     * ordered by id.
+     * 
+     * @param userId the user id
+     * @return the list of the reviews associated with the user
+     */
+    @Query("SELECT r.id AS id, r.comment AS comment, r.rating AS rating, r.movie.id AS movieId, r.user.id AS userId FROM Review r WHERE r.user.id = :userId ORDER BY r.id")
+    List<ReviewSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    /**
+     * Finds the reviews of the movie older than the given review id as
+     * {@link ReviewSummary} projections, ordered by id descending.
+     * 
+     * @param movieId the movie id
+     * @param before  the keyset cursor: only reviews with lower ids are returned
+     * @param limit   the maximum number of reviews to return
+     * @return the list of the reviews associated with the movie older than the
+     *         cursor
+     */
+    @Query("SELECT r.id AS id, r.comment AS comment, r.rating AS rating, r.movie.id AS movieId, r.user.id AS userId FROM Review r WHERE r.movie.id = :movieId AND r.id < :before ORDER BY r.id DESC")
+    List<ReviewSummary> findSummariesByMovieIdBefore(@Param("movieId") Long movieId, @Param("before") Long before,
+            Limit limit);
+
+    /**
+     * Finds the reviews of the user older than the given review id as
+     * {@link ReviewSummary} projections, ordered by id descending.
+     * 
+     * @param userId the user id
+     * @param before the keyset cursor: only reviews with lower ids are returned
+     * @param limit  the maximum number of reviews to return
+     * @return the list of the reviews associated with the user older than the
+     *         cursor
+     */
+    @Query("SELECT r.id AS id, r.comment AS comment, r.rating AS rating, r.movie.id AS movieId, r.user.id AS userId FROM Review r WHERE r.user.id = :userId AND r.id < :before ORDER BY r.id DESC")
+    List<ReviewSummary> findSummariesByUserIdBefore(@Param("userId") Long userId, @Param("before") Long before,
+            Limit limit);
+
+    /**
+     * Finds the next chunk of the reviews of the movie in ascending id order,
+     * starting after the given review id.
+     * 
+     * @param movieId the movie id
+     * @param id      the id of the last review already read, {@code 0} to start
+     *                from the beginning
+     * @param limit   the maximum number of reviews to return
+     * @return the list of the reviews associated with the movie with ids greater
+     *         than the given id
+     */
+    List<Review> findByMovieIdAndIdGreaterThanOrderByIdAsc(Long movieId, Long id, Limit limit);
+
+    /**
+     * Finds the next chunk of the reviews of the user in ascending id order,
+     * starting after the given review id.
+     * 
+     * @param userId the user id
+     * @param id     the id of the last review already read, {@code 0} to start
+     *               from the beginning
+     * @param limit  the maximum number of reviews to return
+     * @return the list of the reviews associated with the user with ids greater
+     *         than the given id
+     */
+    List<Review> findByUserIdAndIdGreaterThanOrderByIdAsc(Long userId, Long id, Limit limit);
+
     /**
      * Finds the review associated with the user and the movie.
      * 
@@ -51,12 +130,157 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     Optional<Review> findByUserIdAndMovieId(Long userId, Long movieId);
 
     /**
-     * Find the average rating of the movie based on the reviews.
-     * 
+     * Finds the reviews written by any of the users for any of the movies as
+     * {@link ReviewSummary} projections. Used to look up the reviews of a batch
+     * of user and movie pairs in one query.
+     *
+     * @param userIds  the users' ids
+     * @param movieIds the movies' ids
+     * @return a List of {@link ReviewSummary} of the matching reviews
+     */
+    @Query("SELECT r.id AS id, r.comment AS comment, r.rating AS rating, r.movie.id AS movieId, r.user.id AS userId FROM Review r WHERE r.user.id IN :userIds AND r.movie.id IN :movieIds")
+    List<ReviewSummary> findSummariesByUserIdInAndMovieIdIn(@Param("userIds") Collection<Long> userIds,
+            @Param("movieIds") Collection<Long> movieIds);
+
+    /**
+     * Finds the rating of the review of the user for the movie.
+     *
+     * @param userId  the user's id
      * @param movieId the movie's id
-     * @return the average rating of the movie or {0.0} if there are no reviews
+     * @return an {@link Optional} containing the rating, or empty
+     *         {@link Optional} if the user has not reviewed the movie
+     */
+    @Query("SELECT r.rating FROM Review r WHERE r.user.id = :userId AND r.movie.id = :movieId")
+    Optional<Integer> findRatingByUserIdAndMovieId(@Param("userId") Long userId, @Param("movieId") Long movieId);
+
+    /**
+     * Finds the ids of the movies with the most reviews, ordered by the number
+     * of reviews descending.
+     *
+     * @param limit the maximum number of ids to return
+     * @return the list of the movie ids
+     */
+    @Query("SELECT r.movie.id FROM Review r GROUP BY r.movie.id ORDER BY COUNT(r) DESC, r.movie.id")
+    List<Long> findMovieIdsOrderByReviewCountDesc(Limit limit);
+
+    /**
+     * Finds the ids, movies and ratings of the reviews of the user, ordered by
+     * id.
+     *
+     * @param userId the user id
+     * @param limit  the maximum number of reviews to return
+     * @return the list of the reviews
+     */
+    @Query("SELECT r.id AS id, r.movie.id AS movieId, r.rating AS rating FROM Review r WHERE r.user.id = :userId ORDER BY r.id")
+    List<ReviewRating> findRatingsByUserId(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * Finds the highest review id, including the soft-deleted reviews.
+     *
+     * @return the highest review id, {@code 0} if there are no reviews
+     */
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM review", nativeQuery = true)
+    long findMaxId();
+
+    /**
+     * Counts the reviews of the movie
+     *
+     * @param movieId the movie id
+     * @return the number of the reviews associated with the movie
+     */
+    long countByMovieId(Long movieId);
+
+    /**
+     * Counts the reviews of the user
+     * 
+     * @param userId the user id
+     * @return the number of the reviews associated with the user
+     */
+    long countByUserId(Long userId);
+
+    /**
+     * Deletes all reviews of the movie with a single statement, without loading
+     * them. Reviews are soft-deleted, so Hibernate issues an update of the
+     * {@code deleted} flag.
+     * 
+     * @param movieId the movie id
+     * @return the number of the deleted reviews
+     */
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.movie.id = :movieId")
+    int bulkDeleteByMovieId(@Param("movieId") Long movieId);
+
+    /**
+     * Deletes all reviews of the user with a single statement, without loading
+     * them. Reviews are soft-deleted, so Hibernate issues an update of the
+     * {@code deleted} flag.
+     * 
+     * @param userId the user id
+     * @return the number of the deleted reviews
+     */
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.user.id = :userId")
+    int bulkDeleteByUserId(@Param("userId") Long userId);
+
+    /**
+     * Soft-deletes at most {@code limit} reviews of the movie.
+     * 
+     * @param movieId the movie id
+     * @param limit   the maximum number of reviews to delete
+     * @return the number of the deleted reviews
+     */
+    @Modifying
+    @Query(value = "UPDATE review SET deleted = TRUE WHERE id IN (SELECT id FROM review WHERE movie_id = :movieId AND deleted = FALSE LIMIT :limit)", nativeQuery = true)
+    int deleteChunkByMovieId(@Param("movieId") Long movieId, @Param("limit") int limit);
+
+    /**
+     * Deletes the reviews with the given ids with a single statement, without
+     * loading them. Reviews are soft-deleted, so Hibernate issues an update of
+     * the {@code deleted} flag.
+     * 
+     * @param ids the ids of the reviews
+     * @return the number of the deleted reviews
+     */
+    @Modifying
+    @Query("DELETE FROM Review r WHERE r.id IN :ids")
+    int bulkDeleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Physically removes at most {@code limit} soft-deleted reviews.
+     * 
+     * @param limit the maximum number of reviews to remove
+     * @return the number of the removed reviews
+     */
+    @Modifying
+    @Query(value = "DELETE FROM review WHERE id IN (SELECT id FROM review WHERE deleted LIMIT :limit)", nativeQuery = true)
+    int purgeDeletedChunk(@Param("limit") int limit);
+
+    /**
+     * Physically removes at most {@code limit} reviews of soft-deleted movies.
+     * 
+     * @param limit the maximum number of reviews to remove
+     * @return the number of the removed reviews
+     */
+    @Modifying
+    @Query(value = "DELETE FROM review WHERE id IN (SELECT r.id FROM movie m JOIN review r ON r.movie_id = m.id WHERE m.deleted LIMIT :limit)", nativeQuery = true)
+    int purgeChunkOfDeletedMovies(@Param("limit") int limit);
+
+    /**
+     * Physically removes at most {@code limit} reviews of soft-deleted users.
+     * 
+     * @param limit the maximum number of reviews to remove
+     * @return the number of the removed reviews
+     */
+    @Modifying
+    @Query(value = "DELETE FROM review WHERE id IN (SELECT r.id FROM users u JOIN review r ON r.user_id = u.id WHERE u.deleted LIMIT :limit)", nativeQuery = true)
+    int purgeChunkOfDeletedUsers(@Param("limit") int limit);
+
+    /**
+     * Counts the soft-deleted reviews waiting to be purged
+     * 
+     * @return the number of the soft-deleted reviews
      */
-    @Query("SELECT COALESCE(AVG(r.rating), 0.0) FROM Review r WHERE r.movie.id = :movieId")
-    Double findAverageRatingByMovieId(@Param("movieId") Long movieId);
+    @Query(value = "SELECT COUNT(*) FROM review WHERE deleted", nativeQuery = true)
+    long countDeleted();
 
 }
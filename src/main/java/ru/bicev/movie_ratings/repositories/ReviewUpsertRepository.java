@@ -0,0 +1,39 @@
+package ru.bicev.movie_ratings.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import ru.bicev.movie_ratings.dto.ReviewDto;
+
+/**
+ * Repository fragment providing the atomic insert-or-update of a review.
+ * A user has at most one review per movie, enforced by the unique
+ * {@code (user_id, movie_id)} constraint of the review table.
+ */
+public interface ReviewUpsertRepository {
+
+    /**
+     * Creates the review of the user for the movie, or replaces the rating and
+     * comment of the existing one, in a single statement.
+     *
+     * @param userId  the ID of the user writing the review
+     * @param movieId the ID of the reviewed movie
+     * @param rating  the rating of the movie
+     * @param comment the comment of the review
+     * @return the ID of the created or updated review, or an empty Optional if
+     *         the user or the movie does not exist or is deleted
+     */
+    Optional<Long> upsertReview(Long userId, Long movieId, int rating, String comment);
+
+    /**
+     * Creates or updates the reviews like
+     * {@link #upsertReview(Long, Long, int, String)}, sending the statements to
+     * the database in one JDBC batch.
+     *
+     * @param reviews the reviews to write, with their user and movie IDs set
+     * @return the number of rows written for each review, in order: {@code 0}
+     *         if the user or the movie does not exist or is deleted
+     */
+    int[] upsertReviews(List<ReviewDto> reviews);
+
+}
@@ -0,0 +1,117 @@
+package ru.bicev.movie_ratings.repositories;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+
+/**
+ * Implementation of {@link ReviewUpsertRepository} using the native upsert of
+ * the database: {@code INSERT ... ON CONFLICT DO UPDATE} on PostgreSQL and
+ * {@code MERGE} on H2. Nothing is written unless both the user and the movie
+ * exist and are not deleted; a deleted review of the user for the movie is
+ * restored with the new rating and comment.
+ * <p>
+ * Batches use the same statements with positional parameters and without
+ * returning the ids, which JDBC batches cannot return.
+ * </p>
+ */
+public class ReviewUpsertRepositoryImpl implements ReviewUpsertRepository {
+
+    private static final String POSTGRESQL_UPSERT = """
+            INSERT INTO review (user_id, movie_id, rating, comment, deleted)
+            SELECT u.id, m.id, :rating, :comment, FALSE
+            FROM users u, movie m
+            WHERE u.id = :userId AND u.deleted = FALSE AND m.id = :movieId AND m.deleted = FALSE
+            ON CONFLICT (user_id, movie_id)
+            DO UPDATE SET rating = EXCLUDED.rating, comment = EXCLUDED.comment, deleted = FALSE
+            RETURNING id""";
+
+    private static final String MERGE_UPSERT = """
+            SELECT id FROM FINAL TABLE (
+                MERGE INTO review r
+                USING (SELECT u.id AS user_id, m.id AS movie_id,
+                              CAST(:rating AS INTEGER) AS rating, CAST(:comment AS VARCHAR(255)) AS comment
+                       FROM users u, movie m
+                       WHERE u.id = :userId AND u.deleted = FALSE AND m.id = :movieId AND m.deleted = FALSE) s
+                ON r.user_id = s.user_id AND r.movie_id = s.movie_id
+                WHEN MATCHED THEN UPDATE SET rating = s.rating, comment = s.comment, deleted = FALSE
+                WHEN NOT MATCHED THEN INSERT (user_id, movie_id, rating, comment, deleted)
+                    VALUES (s.user_id, s.movie_id, s.rating, s.comment, FALSE))""";
+
+    private static final String POSTGRESQL_BATCH_UPSERT = """
+            INSERT INTO review (user_id, movie_id, rating, comment, deleted)
+            SELECT u.id, m.id, CAST(? AS INTEGER), CAST(? AS VARCHAR(255)), FALSE
+            FROM users u, movie m
+            WHERE u.id = ? AND u.deleted = FALSE AND m.id = ? AND m.deleted = FALSE
+            ON CONFLICT (user_id, movie_id)
+            DO UPDATE SET rating = EXCLUDED.rating, comment = EXCLUDED.comment, deleted = FALSE""";
+
+    private static final String MERGE_BATCH_UPSERT = """
+            MERGE INTO review r
+            USING (SELECT u.id AS user_id, m.id AS movie_id,
+                          CAST(? AS INTEGER) AS rating, CAST(? AS VARCHAR(255)) AS comment
+                   FROM users u, movie m
+                   WHERE u.id = ? AND u.deleted = FALSE AND m.id = ? AND m.deleted = FALSE) s
+            ON r.user_id = s.user_id AND r.movie_id = s.movie_id
+            WHEN MATCHED THEN UPDATE SET rating = s.rating, comment = s.comment, deleted = FALSE
+            WHEN NOT MATCHED THEN INSERT (user_id, movie_id, rating, comment, deleted)
+                VALUES (s.user_id, s.movie_id, s.rating, s.comment, FALSE)""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile String upsertSql;
+
+    @Override
+    @Transactional
+    public Optional<Long> upsertReview(Long userId, Long movieId, int rating, String comment) {
+        List<?> ids = entityManager.createNativeQuery(upsertSql())
+                .setParameter("userId", userId)
+                .setParameter("movieId", movieId)
+                .setParameter("rating", rating)
+                .setParameter("comment", comment)
+                .getResultList();
+        return ids.stream().findFirst().map(id -> ((Number) id).longValue());
+    }
+
+    @Override
+    @Transactional
+    public int[] upsertReviews(List<ReviewDto> reviews) {
+        String sql = postgreSql() ? POSTGRESQL_BATCH_UPSERT : MERGE_BATCH_UPSERT;
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (ReviewDto review : reviews) {
+                    statement.setInt(1, review.getRating());
+                    statement.setString(2, review.getComment());
+                    statement.setLong(3, review.getUserId());
+                    statement.setLong(4, review.getMovieId());
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+
+    private String upsertSql() {
+        if (upsertSql == null) {
+            upsertSql = postgreSql() ? POSTGRESQL_UPSERT : MERGE_UPSERT;
+        }
+        return upsertSql;
+    }
+
+    private boolean postgreSql() {
+        return entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect() instanceof PostgreSQLDialect;
+    }
+}
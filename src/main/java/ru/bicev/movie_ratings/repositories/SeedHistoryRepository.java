@@ -0,0 +1,17 @@
+package ru.bicev.movie_ratings.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import ru.bicev.movie_ratings.entitites.SeedHistory;
+
+/**
+ * Repository interface for managing {@link SeedHistory} entities, keyed by
+ * the name of the seeder.
+ *
+ * This interface extends {@link JpaRepository}, which provides several standard
+ * data access methods.
+ */
+@Repository
+public interface SeedHistoryRepository extends JpaRepository<SeedHistory, String> {
+}
@@ -1,8 +1,13 @@
 package ru.bicev.movie_ratings.repositories;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import ru.bicev.movie_ratings.entitites.User;
@@ -39,4 +44,47 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUserName(String userName);
 
+    /**
+     * Locks the rows of the users until the end of the current transaction,
+     * in the order of their ids so that concurrent callers cannot deadlock.
+     * Review writes take the lock of their author first, so that the previous
+     * rating they read cannot change before their own write commits.
+     * 
+     * @param ids the ids of the users to lock
+     * @return the ids of the locked users, including soft-deleted ones
+     */
+    @Query(value = "SELECT id FROM users WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Deletes the user by its id with a single statement, without loading its
+     * reviews. The user is soft-deleted, so Hibernate issues an update of the
+     * {@code deleted} flag.
+     * 
+     * @param id the id of the user to delete
+     * @return the number of the deleted users
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
+
+    /**
+     * Physically removes at most {@code limit} soft-deleted users which have no
+     * reviews left.
+     * 
+     * @param limit the maximum number of users to remove
+     * @return the number of the removed users
+     */
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE id IN (SELECT o.id FROM users o WHERE o.deleted AND NOT EXISTS (SELECT 1 FROM review r WHERE r.user_id = o.id) LIMIT :limit)", nativeQuery = true)
+    int purgeDeletedChunk(@Param("limit") int limit);
+
+    /**
+     * Counts the soft-deleted users waiting to be purged
+     * 
+     * @return the number of the soft-deleted users
+     */
+    @Query(value = "SELECT COUNT(*) FROM users WHERE deleted", nativeQuery = true)
+    long countDeleted();
+
 }
@@ -0,0 +1,178 @@
+package ru.bicev.movie_ratings.seed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ru.bicev.movie_ratings.utils.Role;
+
+/**
+ * Seeds the users, movies and reviews listed in the JSON fixture files of
+ * {@code movie-ratings.seed.fixtures}, a comma-separated list of resource
+ * locations. By default only the admin user is seeded; add
+ * {@code classpath:seed/sample-catalog.json} for a small sample catalog.
+ * <p>
+ * The checksum covers the locations and the content of the files, so editing
+ * a fixture applies the rows it adds on the next start. Passwords in the
+ * fixtures are plain text and are encoded while seeding.
+ * </p>
+ */
+@Component
+@Order(1)
+public class FixtureSeeder implements Seeder {
+
+    /**
+     * Content of a fixture file. Missing sections are empty.
+     *
+     * @param users   the users to seed
+     * @param movies  the movies to seed
+     * @param reviews the reviews to seed
+     */
+    public record Fixtures(List<UserFixture> users, List<MovieFixture> movies, List<ReviewFixture> reviews) {
+
+        public Fixtures {
+            users = users == null ? List.of() : users;
+            movies = movies == null ? List.of() : movies;
+            reviews = reviews == null ? List.of() : reviews;
+        }
+    }
+
+    /**
+     * A user of a fixture file.
+     *
+     * @param email    the email of the user
+     * @param userName the username of the user
+     * @param password the plain text password of the user
+     * @param role     the role of the user
+     */
+    public record UserFixture(String email, String userName, String password, Role role) {
+    }
+
+    /**
+     * A movie of a fixture file.
+     *
+     * @param title       the title of the movie
+     * @param synopsis    the synopsis of the movie
+     * @param genre       the genre of the movie
+     * @param releaseYear the release year of the movie
+     */
+    public record MovieFixture(String title, String synopsis, String genre, int releaseYear) {
+    }
+
+    /**
+     * A review of a fixture file.
+     *
+     * @param userEmail  the email of the user
+     * @param movieTitle the title of the movie
+     * @param rating     the rating of the review
+     * @param comment    the comment of the review
+     */
+    public record ReviewFixture(String userEmail, String movieTitle, int rating, String comment) {
+    }
+
+    private final List<String> locations;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final PasswordEncoder passwordEncoder;
+    private final SeedWriter seedWriter;
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param locations       the locations of the fixture files
+     * @param resourceLoader  the loader resolving the locations
+     * @param objectMapper    the mapper reading the fixture files
+     * @param passwordEncoder the encoder of the passwords
+     * @param seedWriter      the writer inserting the rows
+     */
+    @Autowired
+    public FixtureSeeder(@Value("${movie-ratings.seed.fixtures:classpath:seed/admin.json}") List<String> locations,
+            ResourceLoader resourceLoader, ObjectMapper objectMapper, PasswordEncoder passwordEncoder,
+            SeedWriter seedWriter) {
+        this.locations = locations.stream().map(String::trim).filter(location -> !location.isEmpty()).toList();
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.passwordEncoder = passwordEncoder;
+        this.seedWriter = seedWriter;
+    }
+
+    @Override
+    public String getName() {
+        return "fixtures";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !locations.isEmpty();
+    }
+
+    @Override
+    public String getChecksum() {
+        MessageDigest digest = sha256();
+        for (String location : locations) {
+            digest.update(location.getBytes(StandardCharsets.UTF_8));
+            digest.update(read(location));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Inserts the users, then the movies, then the reviews of all files.
+     */
+    @Override
+    public void seed() {
+        List<SeedWriter.UserRow> users = new ArrayList<>();
+        List<SeedWriter.MovieRow> movies = new ArrayList<>();
+        List<SeedWriter.ReviewRow> reviews = new ArrayList<>();
+        for (String location : locations) {
+            Fixtures fixtures;
+            try {
+                fixtures = objectMapper.readValue(read(location), Fixtures.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Fixture " + location + " cannot be read", e);
+            }
+            fixtures.users().forEach(user -> users.add(new SeedWriter.UserRow(user.email(), user.userName(),
+                    passwordEncoder.encode(user.password()), user.role())));
+            fixtures.movies().forEach(movie -> movies.add(new SeedWriter.MovieRow(movie.title(), movie.synopsis(),
+                    movie.genre(), movie.releaseYear())));
+            fixtures.reviews().forEach(review -> reviews.add(new SeedWriter.ReviewRow(review.userEmail(),
+                    review.movieTitle(), review.rating(), review.comment())));
+        }
+        seedWriter.insertUsers(users);
+        seedWriter.insertMovies(movies);
+        seedWriter.insertReviews(reviews);
+    }
+
+    private byte[] read(String location) {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Fixture " + location + " cannot be read", e);
+        }
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
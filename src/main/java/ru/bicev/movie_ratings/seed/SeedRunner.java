@@ -0,0 +1,134 @@
+package ru.bicev.movie_ratings.seed;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.entitites.SeedHistory;
+import ru.bicev.movie_ratings.repositories.SeedHistoryRepository;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+
+/**
+ * Runs the {@link Seeder} beans once the application is ready, on a
+ * background thread, so seeding is not on the startup critical path.
+ * <p>
+ * A seeder is skipped if the checksum recorded in {@link SeedHistory} equals
+ * its current checksum. A failing seeder is logged and not recorded, so it is
+ * retried on the next start; the following seeders still run. The seeders
+ * write with plain SQL, so the catalog snapshot and the response cache are
+ * invalidated and the rating store and aggregates are reloaded afterwards.
+ * Seeding can be switched off with {@code movie-ratings.seed.enabled=false}.
+ * </p>
+ */
+@Component
+public class SeedRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeedRunner.class);
+
+    private final List<Seeder> seeders;
+    private final SeedHistoryRepository seedHistoryRepository;
+    private final TaskExecutor taskExecutor;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final JsonResponseCache jsonResponseCache;
+    private final RatingStoreService ratingStoreService;
+    private final RatingAggregateService ratingAggregateService;
+    private final boolean enabled;
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param seeders                the seeders, in their order
+     * @param seedHistoryRepository  the repository recording the applied
+     *                               seeders
+     * @param taskExecutor           the executor running the pipeline
+     * @param catalogSnapshotService the service keeping the snapshot of the
+     *                               catalog
+     * @param jsonResponseCache      the cache of serialized response bodies
+     * @param ratingStoreService     the service keeping the ratings of the
+     *                               movies
+     * @param ratingAggregateService the service maintaining the persisted
+     *                               rating aggregates of the movies
+     * @param enabled                whether the pipeline runs on startup
+     */
+    @Autowired
+    public SeedRunner(List<Seeder> seeders, SeedHistoryRepository seedHistoryRepository,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            CatalogSnapshotService catalogSnapshotService, JsonResponseCache jsonResponseCache,
+            RatingStoreService ratingStoreService, RatingAggregateService ratingAggregateService,
+            @Value("${movie-ratings.seed.enabled:true}") boolean enabled) {
+        this.seeders = seeders;
+        this.seedHistoryRepository = seedHistoryRepository;
+        this.taskExecutor = taskExecutor;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.ratingStoreService = ratingStoreService;
+        this.ratingAggregateService = ratingAggregateService;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Starts the pipeline in the background once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedInBackground() {
+        if (enabled) {
+            taskExecutor.execute(this::seed);
+        }
+    }
+
+    /**
+     * Runs the seeders whose input changed since they were last applied.
+     *
+     * @return the number of seeders that were run
+     */
+    public int seed() {
+        int applied = 0;
+        for (Seeder seeder : seeders) {
+            if (!seeder.isEnabled()) {
+                continue;
+            }
+            try {
+                if (apply(seeder)) {
+                    applied++;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Seeder {} failed", seeder.getName(), e);
+            }
+        }
+        if (applied > 0) {
+            // The store is loaded from the aggregates, so they are rebuilt first.
+            ratingAggregateService.rebuild();
+            ratingStoreService.reload();
+            catalogSnapshotService.markStale();
+            jsonResponseCache.invalidateAll();
+        }
+        return applied;
+    }
+
+    private boolean apply(Seeder seeder) {
+        String checksum = seeder.getChecksum();
+        Optional<SeedHistory> history = seedHistoryRepository.findById(seeder.getName());
+        if (history.isPresent() && history.get().getChecksum().equals(checksum)) {
+            logger.debug("Seeder {} is up to date", seeder.getName());
+            return false;
+        }
+        long started = System.nanoTime();
+        seeder.seed();
+        seedHistoryRepository.save(new SeedHistory(seeder.getName(), checksum, Instant.now()));
+        logger.info("Seeder {} applied in {} ms", seeder.getName(), (System.nanoTime() - started) / 1_000_000);
+        return true;
+    }
+}
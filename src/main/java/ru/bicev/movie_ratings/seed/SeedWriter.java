@@ -0,0 +1,148 @@
+package ru.bicev.movie_ratings.seed;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.utils.Role;
+
+/**
+ * Writes seed rows with batched {@code INSERT} statements, bypassing the
+ * persistence context.
+ * <p>
+ * Every statement inserts its row only if it is missing, so writing the same
+ * rows twice leaves the database unchanged: users are matched by email or
+ * username, movies by title and release year, reviews by user and movie.
+ * Rows are sent in batches of {@code movie-ratings.seed.batch-size}, each
+ * batch in its own transaction.
+ * </p>
+ */
+@Component
+public class SeedWriter {
+
+    /**
+     * A user to insert.
+     *
+     * @param email        the email of the user
+     * @param userName     the username of the user
+     * @param passwordHash the encoded password of the user
+     * @param role         the role of the user
+     */
+    public record UserRow(String email, String userName, String passwordHash, Role role) {
+    }
+
+    /**
+     * A movie to insert.
+     *
+     * @param title       the title of the movie
+     * @param synopsis    the synopsis of the movie
+     * @param genre       the genre of the movie
+     * @param releaseYear the release year of the movie
+     */
+    public record MovieRow(String title, String synopsis, String genre, int releaseYear) {
+    }
+
+    /**
+     * A review to insert, referring to its user and movie by their natural
+     * keys. The review is skipped if either of them does not exist.
+     *
+     * @param userEmail  the email of the user
+     * @param movieTitle the title of the movie
+     * @param rating     the rating of the review
+     * @param comment    the comment of the review
+     */
+    public record ReviewRow(String userEmail, String movieTitle, int rating, String comment) {
+    }
+
+    private static final String INSERT_USER = """
+            INSERT INTO users (email, user_name, password, role, deleted)
+            SELECT CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)),
+                   CAST(? AS VARCHAR(255)), FALSE
+            WHERE NOT EXISTS (SELECT 1 FROM users WHERE email = ? OR user_name = ?)""";
+
+    private static final String INSERT_MOVIE = """
+            INSERT INTO movie (title, synopsis, genre, release_year, deleted)
+            SELECT CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)),
+                   CAST(? AS INTEGER), FALSE
+            WHERE NOT EXISTS (SELECT 1 FROM movie WHERE title = ? AND release_year = ? AND deleted = FALSE)""";
+
+    private static final String INSERT_REVIEW = """
+            INSERT INTO review (user_id, movie_id, rating, comment, deleted)
+            SELECT u.id, m.id, CAST(? AS INTEGER), CAST(? AS VARCHAR(255)), FALSE
+            FROM users u, movie m
+            WHERE u.email = ? AND u.deleted = FALSE
+              AND m.id = (SELECT MIN(id) FROM movie WHERE title = ? AND deleted = FALSE)
+              AND NOT EXISTS (SELECT 1 FROM review r WHERE r.user_id = u.id AND r.movie_id = m.id)""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param jdbcTemplate       the template running the statements
+     * @param transactionManager the transaction manager used for the batches
+     * @param batchSize          the number of rows per batch
+     */
+    @Autowired
+    public SeedWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${movie-ratings.seed.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Inserts the missing users.
+     *
+     * @param users the users to insert
+     * @return the number of inserted users, as reported by the driver
+     */
+    public int insertUsers(List<UserRow> users) {
+        return insert(INSERT_USER, users, user -> new Object[] { user.email(), user.userName(),
+                user.passwordHash(), user.role().name(), user.email(), user.userName() });
+    }
+
+    /**
+     * Inserts the missing movies.
+     *
+     * @param movies the movies to insert
+     * @return the number of inserted movies, as reported by the driver
+     */
+    public int insertMovies(List<MovieRow> movies) {
+        return insert(INSERT_MOVIE, movies, movie -> new Object[] { movie.title(), movie.synopsis(), movie.genre(),
+                movie.releaseYear(), movie.title(), movie.releaseYear() });
+    }
+
+    /**
+     * Inserts the missing reviews.
+     *
+     * @param reviews the reviews to insert
+     * @return the number of inserted reviews, as reported by the driver
+     */
+    public int insertReviews(List<ReviewRow> reviews) {
+        return insert(INSERT_REVIEW, reviews, review -> new Object[] { review.rating(), review.comment(),
+                review.userEmail(), review.movieTitle() });
+    }
+
+    private <T> int insert(String sql, List<T> rows, Function<T, Object[]> arguments) {
+        int inserted = 0;
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> batch = rows.subList(from, Math.min(rows.size(), from + batchSize)).stream()
+                    .map(arguments)
+                    .toList();
+            int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(sql, batch));
+            for (int count : counts) {
+                inserted += Math.max(0, count);
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.bicev.movie_ratings.seed;
+
+/**
+ * A step of the seeding pipeline run by {@link SeedRunner}.
+ * <p>
+ * Seeders are Spring beans, run in their {@link org.springframework.core.annotation.Order}.
+ * A seeder is run again only when its checksum differs from the one recorded
+ * the last time it was applied, so it must insert only the rows that are
+ * missing: a changed input is applied on top of the existing data.
+ * </p>
+ */
+public interface Seeder {
+
+    /**
+     * Returns the name the seeder is recorded under.
+     *
+     * @return the unique name of the seeder
+     */
+    String getName();
+
+    /**
+     * Returns whether the seeder has anything to write.
+     *
+     * @return {@code false} to skip the seeder
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Returns the checksum of the input of the seeder, such as its files or
+     * its parameters.
+     *
+     * @return the checksum
+     */
+    String getChecksum();
+
+    /**
+     * Writes the missing rows.
+     */
+    void seed();
+}
@@ -0,0 +1,148 @@
+package ru.bicev.movie_ratings.seed;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import ru.bicev.movie_ratings.utils.Role;
+
+/**
+ * Seeds a synthetic dataset for performance testing:
+ * {@code movie-ratings.seed.synthetic.users} users,
+ * {@code movie-ratings.seed.synthetic.movies} movies and up to
+ * {@code movie-ratings.seed.synthetic.reviews-per-movie} reviews per movie,
+ * each by a different user. Nothing is seeded while the counts are 0.
+ * <p>
+ * Every movie and its reviews are generated from
+ * {@code movie-ratings.seed.synthetic.random-seed} and the index of the
+ * movie, so the same settings produce the same data, and raising the counts
+ * only adds rows. The rows are generated and written in chunks, so the
+ * dataset does not have to fit in memory. All synthetic users share the
+ * password {@code synthetic_password}.
+ * </p>
+ */
+@Component
+@Order(2)
+public class SyntheticDataSeeder implements Seeder {
+
+    private static final String PASSWORD = "synthetic_password";
+    private static final String[] GENRES = { "Drama", "Comedy", "Thriller", "Sci-Fi", "Horror", "Documentary",
+            "Animation", "Western" };
+    private static final int CHUNK_SIZE = 10_000;
+
+    private final SeedWriter seedWriter;
+    private final PasswordEncoder passwordEncoder;
+    private final int users;
+    private final int movies;
+    private final int reviewsPerMovie;
+    private final long randomSeed;
+
+    /**
+     * Constructor for injecting dependencies.
+     *
+     * @param seedWriter      the writer inserting the rows
+     * @param passwordEncoder the encoder of the shared password
+     * @param users           the number of users to generate
+     * @param movies          the number of movies to generate
+     * @param reviewsPerMovie the number of reviews per movie, capped at the
+     *                        number of users
+     * @param randomSeed      the seed of the generated values
+     */
+    @Autowired
+    public SyntheticDataSeeder(SeedWriter seedWriter, PasswordEncoder passwordEncoder,
+            @Value("${movie-ratings.seed.synthetic.users:0}") int users,
+            @Value("${movie-ratings.seed.synthetic.movies:0}") int movies,
+            @Value("${movie-ratings.seed.synthetic.reviews-per-movie:0}") int reviewsPerMovie,
+            @Value("${movie-ratings.seed.synthetic.random-seed:42}") long randomSeed) {
+        this.seedWriter = seedWriter;
+        this.passwordEncoder = passwordEncoder;
+        this.users = Math.max(0, users);
+        this.movies = Math.max(0, movies);
+        this.reviewsPerMovie = Math.min(Math.max(0, reviewsPerMovie), this.users);
+        this.randomSeed = randomSeed;
+    }
+
+    @Override
+    public String getName() {
+        return "synthetic";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return users > 0 || movies > 0;
+    }
+
+    @Override
+    public String getChecksum() {
+        String parameters = "users=" + users + ";movies=" + movies + ";reviews-per-movie=" + reviewsPerMovie
+                + ";random-seed=" + randomSeed;
+        return HexFormat.of().formatHex(FixtureSeeder.sha256().digest(parameters.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Inserts the users, then the movies, then the reviews, chunk by chunk.
+     */
+    @Override
+    public void seed() {
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        List<SeedWriter.UserRow> userChunk = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            userChunk.add(new SeedWriter.UserRow(email(i), "synthetic-user-" + i, passwordHash, Role.USER));
+            if (userChunk.size() == CHUNK_SIZE) {
+                seedWriter.insertUsers(userChunk);
+                userChunk.clear();
+            }
+        }
+        seedWriter.insertUsers(userChunk);
+
+        List<SeedWriter.MovieRow> movieChunk = new ArrayList<>();
+        for (int i = 0; i < movies; i++) {
+            SplittableRandom random = random(i);
+            movieChunk.add(new SeedWriter.MovieRow(title(i), "Synthetic movie number " + i,
+                    GENRES[random.nextInt(GENRES.length)], 1950 + random.nextInt(75)));
+            if (movieChunk.size() == CHUNK_SIZE) {
+                seedWriter.insertMovies(movieChunk);
+                movieChunk.clear();
+            }
+        }
+        seedWriter.insertMovies(movieChunk);
+
+        List<SeedWriter.ReviewRow> reviewChunk = new ArrayList<>();
+        for (int i = 0; i < movies && reviewsPerMovie > 0; i++) {
+            SplittableRandom random = random(i);
+            // Skip the values the movie itself was generated from.
+            random.nextInt(GENRES.length);
+            random.nextInt(75);
+            int firstUser = random.nextInt(users);
+            for (int k = 0; k < reviewsPerMovie; k++) {
+                reviewChunk.add(new SeedWriter.ReviewRow(email((firstUser + k) % users), title(i),
+                        1 + random.nextInt(5), "Synthetic review " + k));
+                if (reviewChunk.size() == CHUNK_SIZE) {
+                    seedWriter.insertReviews(reviewChunk);
+                    reviewChunk.clear();
+                }
+            }
+        }
+        seedWriter.insertReviews(reviewChunk);
+    }
+
+    private SplittableRandom random(int movie) {
+        return new SplittableRandom(randomSeed * 31 + movie);
+    }
+
+    private static String email(int user) {
+        return "synthetic-user-" + user + "@example.com";
+    }
+
+    private static String title(int movie) {
+        return String.format("Synthetic movie %07d", movie);
+    }
+}
@@ -0,0 +1,220 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.dto.ReviewRating;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+
+/**
+ * Service class deleting movies and users together with their reviews using
+ * set-based {@code DELETE} statements, without loading the reviews into the
+ * persistence context.
+ * <p>
+ * Owners with up to {@code movie-ratings.bulk-delete.background-threshold}
+ * reviews are deleted at once in the caller's transaction. Larger ones are
+ * deleted by a background job that removes the reviews in chunks of
+ * {@code movie-ratings.bulk-delete.chunk-size}, each in its own short
+ * transaction, and removes the owner last. Until the job has finished the
+ * owner stays visible with a shrinking number of reviews.
+ * </p>
+ * <p>
+ * The ratings kept by {@link RatingStoreService} and
+ * {@link RatingAggregateService} drop a deleted movie once the movie itself is
+ * deleted. The reviews of a deleted user are read with their movies and
+ * ratings just before they are deleted, with the row of the user locked like
+ * review writes do, and each of them is recorded as a removed rating in the
+ * same transaction, so neither the store nor the aggregates are rebuilt.
+ * </p>
+ */
+@Service
+public class CascadeDeleteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CascadeDeleteService.class);
+
+    private final ReviewRepository reviewRepository;
+    private final MovieRepository movieRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor taskExecutor;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final JsonResponseCache jsonResponseCache;
+    private final RatingStoreService ratingStoreService;
+    private final RatingAggregateService ratingAggregateService;
+    private final int chunkSize;
+    private final long backgroundThreshold;
+
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructor for CascadeDeleteService, initializes required components.
+     *
+     * @param reviewRepository    the repository for review data management
+     * @param movieRepository     the repository for movie data management
+     * @param userRepository      the repository for user data management
+     * @param transactionManager  the transaction manager used for the chunk
+     *                            transactions
+     * @param taskExecutor        the executor running the background jobs
+     * @param catalogSnapshotService the service keeping the snapshot of the
+     *                               catalog
+     * @param jsonResponseCache   the cache of serialized response bodies
+     * @param ratingStoreService  the service keeping the ratings of the movies
+     * @param ratingAggregateService the service maintaining the persisted
+     *                               rating aggregates of the movies
+     * @param chunkSize           the number of reviews deleted per chunk
+     * @param backgroundThreshold the number of reviews above which the deletion
+     *                            runs in the background
+     */
+    @Autowired
+    public CascadeDeleteService(ReviewRepository reviewRepository, MovieRepository movieRepository,
+            UserRepository userRepository, PlatformTransactionManager transactionManager,
+            @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+            CatalogSnapshotService catalogSnapshotService, JsonResponseCache jsonResponseCache,
+            RatingStoreService ratingStoreService, RatingAggregateService ratingAggregateService,
+            @Value("${movie-ratings.bulk-delete.chunk-size:1000}") int chunkSize,
+            @Value("${movie-ratings.bulk-delete.background-threshold:10000}") long backgroundThreshold) {
+        this.reviewRepository = reviewRepository;
+        this.movieRepository = movieRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.ratingStoreService = ratingStoreService;
+        this.ratingAggregateService = ratingAggregateService;
+        this.chunkSize = chunkSize;
+        this.backgroundThreshold = backgroundThreshold;
+    }
+
+    /**
+     * Deletes the movie and all of its reviews.
+     *
+     * @param movieId the ID of the movie to delete
+     * @return {@code true} if the movie was deleted, {@code false} if the
+     *         deletion was handed to a background job
+     */
+    public boolean deleteMovie(Long movieId) {
+        long reviews = reviewRepository.countByMovieId(movieId);
+        if (reviews <= backgroundThreshold) {
+            transactionTemplate.executeWithoutResult(status -> {
+                reviewRepository.bulkDeleteByMovieId(movieId);
+                deleteMovieWithRatings(movieId);
+                catalogSnapshotService.markStale();
+                jsonResponseCache.invalidateAll();
+            });
+            return true;
+        }
+        submit("movie", movieId, reviews, reviewRepository::deleteChunkByMovieId,
+                reviewRepository::bulkDeleteByMovieId, this::deleteMovieWithRatings);
+        return false;
+    }
+
+    /**
+     * Deletes the user and all of their reviews.
+     *
+     * @param userId the ID of the user to delete
+     * @return {@code true} if the user was deleted, {@code false} if the
+     *         deletion was handed to a background job
+     */
+    public boolean deleteUser(Long userId) {
+        long reviews = reviewRepository.countByUserId(userId);
+        if (reviews <= backgroundThreshold) {
+            transactionTemplate.executeWithoutResult(status -> {
+                deleteReviewsOfUser(userId);
+                userRepository.bulkDeleteById(userId);
+                catalogSnapshotService.markStale();
+                jsonResponseCache.invalidateAll();
+            });
+            return true;
+        }
+        submit("user", userId, reviews, this::deleteChunkOfUser, this::deleteReviewsOfUser,
+                userRepository::bulkDeleteById);
+        return false;
+    }
+
+    private int deleteMovieWithRatings(Long movieId) {
+        int deleted = movieRepository.bulkDeleteById(movieId);
+        ratingStoreService.recordMovieDeleted(movieId);
+        ratingAggregateService.recordMovieDeleted(movieId);
+        return deleted;
+    }
+
+    private int deleteReviewsOfUser(Long userId) {
+        // Review writes lock their author too, so no review of the user changes between the read and the delete.
+        userRepository.lockByIdIn(List.of(userId));
+        List<ReviewRating> reviews = reviewRepository.findRatingsByUserId(userId, Limit.unlimited());
+        int deleted = reviewRepository.bulkDeleteByUserId(userId);
+        ratingsRemoved(reviews);
+        return deleted;
+    }
+
+    private int deleteChunkOfUser(Long userId, int limit) {
+        userRepository.lockByIdIn(List.of(userId));
+        List<ReviewRating> reviews = reviewRepository.findRatingsByUserId(userId, Limit.of(limit));
+        if (reviews.isEmpty()) {
+            return 0;
+        }
+        int deleted = reviewRepository.bulkDeleteByIdIn(reviews.stream().map(ReviewRating::getId).toList());
+        ratingsRemoved(reviews);
+        return deleted;
+    }
+
+    private void ratingsRemoved(List<ReviewRating> reviews) {
+        for (ReviewRating review : reviews) {
+            ratingStoreService.recordChange(review.getMovieId(), review.getRating(), 0);
+            ratingAggregateService.recordChange(review.getMovieId(), review.getRating(), 0);
+        }
+    }
+
+    private void submit(String owner, Long ownerId, long reviews, BiFunction<Long, Integer, Integer> deleteChunk,
+            Function<Long, Integer> deleteRest, Function<Long, Integer> deleteOwner) {
+        String job = owner + ":" + ownerId;
+        if (!runningJobs.add(job)) {
+            logger.info("Deletion of {} {} is already running", owner, ownerId);
+            return;
+        }
+        logger.info("Deleting {} {} with {} reviews in the background", owner, ownerId, reviews);
+        taskExecutor.execute(() -> {
+            try {
+                long deleted = 0;
+                int chunk;
+                do {
+                    chunk = transactionTemplate.execute(status -> deleteChunk.apply(ownerId, chunkSize));
+                    deleted += chunk;
+                    catalogSnapshotService.markStale();
+                    jsonResponseCache.invalidateAll();
+                } while (chunk == chunkSize);
+                // Reviews written while the chunks were deleted go with the owner.
+                deleted += transactionTemplate.execute(status -> {
+                    int rest = deleteRest.apply(ownerId);
+                    deleteOwner.apply(ownerId);
+                    catalogSnapshotService.markStale();
+                    jsonResponseCache.invalidateAll();
+                    return rest;
+                });
+                logger.info("Deleted {} {} and {} reviews", owner, ownerId, deleted);
+            } catch (RuntimeException e) {
+                logger.error("Deletion of {} {} failed", owner, ownerId, e);
+            } finally {
+                runningJobs.remove(job);
+            }
+        });
+    }
+}
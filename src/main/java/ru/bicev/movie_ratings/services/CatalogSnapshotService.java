@@ -0,0 +1,184 @@
+package ru.bicev.movie_ratings.services;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.utils.AfterCommit;
+import ru.bicev.movie_ratings.utils.MovieConverter;
+
+/**
+ * Service class keeping a precomputed snapshot of the movie catalog sorted by
+ * rating, as shown on the movie list page and returned by
+ * {@code GET /api/movies}.
+ * <p>
+ * Reads are served from the current snapshot without touching the database.
+ * Writes that change the catalog call {@link #markStale()}; the snapshot is
+ * then rebuilt in the background at most once every
+ * {@code movie-ratings.catalog-snapshot.refresh-millis}, however many writes
+ * happened in between. Readers see the old snapshot until the new one is
+ * swapped in. Snapshots are always read from the primary database, never
+ * from a read replica that may lag behind the write that made them stale.
+ * The ratings come from {@link RatingStoreService}, the same ratings the
+ * movie details show, so a rebuild reads only the movie table; the snapshot
+ * is also rebuilt when a reloaded rating store has been swapped in.
+ * </p>
+ */
+@Service
+public class CatalogSnapshotService {
+
+    /**
+     * Immutable snapshot of the catalog.
+     *
+     * @param version the version of the snapshot, incremented on every rebuild
+     * @param builtAt when the snapshot was built
+     * @param movies  the movies sorted by rating desc, as returned by
+     *                {@link MovieService#getAllMoviesWithRatingsSortedByRatingDesc()};
+     *                the entries must not be modified
+     * @param json    the movies serialized as a JSON array; the array must not
+     *                be modified
+     * @param eTag    the entity tag of the JSON, derived from its content so
+     *                that it stays the same across restarts and instances
+     * @param gzip    the JSON compressed once for clients accepting gzip, so
+     *                that it is not compressed again on every request, or
+     *                {@code null} if it is too small to be worth it; the
+     *                array must not be modified
+     */
+    public record Snapshot(long version, Instant builtAt, List<MovieDto> movies, byte[] json, String eTag,
+            byte[] gzip) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final MovieRepository movieRepository;
+    private final RatingStoreService ratingStoreService;
+    private final ObjectMapper objectMapper;
+    private final JsonResponseCache jsonResponseCache;
+    private final TransactionTemplate primaryTransaction;
+
+    private final AtomicBoolean stale = new AtomicBoolean(true);
+    private volatile Snapshot snapshot;
+    private volatile long ratingStoreVersion;
+
+    /**
+     * Constructor for CatalogSnapshotService, initializes required components.
+     *
+     * @param movieRepository    the repository for movie data management
+     * @param ratingStoreService the service keeping the ratings of the movies
+     * @param objectMapper       the mapper serializing the snapshot, the same
+     *                           one the REST controllers use
+     * @param jsonResponseCache  the cache holding the snapshot in the binary
+     *                           formats, also compressing its JSON
+     * @param transactionManager the transaction manager used for the rebuild,
+     *                           in a read-write transaction so that it runs on
+     *                           the primary
+     */
+    @Autowired
+    public CatalogSnapshotService(MovieRepository movieRepository, RatingStoreService ratingStoreService,
+            ObjectMapper objectMapper, JsonResponseCache jsonResponseCache,
+            PlatformTransactionManager transactionManager) {
+        this.movieRepository = movieRepository;
+        this.ratingStoreService = ratingStoreService;
+        this.objectMapper = objectMapper;
+        this.jsonResponseCache = jsonResponseCache;
+        // Not read-only: ReplicaRoutingDataSource sends read-only transactions to a replica, which may not have
+        // replicated the write that marked the snapshot stale, and nothing would rebuild the snapshot again.
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Returns the current snapshot. Only the very first call, made before the
+     * background job has built one, reads the database.
+     *
+     * @return the current snapshot
+     */
+    public Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : initialSnapshot();
+    }
+
+    /**
+     * Marks the snapshot as stale after a write that changes the catalog. Inside
+     * a transaction the mark is set once it commits, so the rebuild cannot read
+     * the data before the write is visible.
+     */
+    public void markStale() {
+        AfterCommit.run(() -> stale.set(true));
+    }
+
+    /**
+     * Rebuilds the snapshot if it was marked stale or the rating store was
+     * reloaded since the last rebuild. A failed rebuild keeps the previous
+     * snapshot and is retried on the next run.
+     *
+     * @return {@code true} if the snapshot was rebuilt
+     */
+    @Scheduled(fixedDelayString = "${movie-ratings.catalog-snapshot.refresh-millis:1000}")
+    public boolean refreshIfStale() {
+        if (!stale.getAndSet(false) && ratingStoreVersion == ratingStoreService.getVersion()) {
+            return false;
+        }
+        try {
+            rebuild();
+            return true;
+        } catch (RuntimeException e) {
+            stale.set(true);
+            logger.error("Rebuilding the catalog snapshot failed", e);
+            return false;
+        }
+    }
+
+    private synchronized Snapshot initialSnapshot() {
+        if (snapshot == null) {
+            stale.set(false);
+            rebuild();
+        }
+        return snapshot;
+    }
+
+    private synchronized void rebuild() {
+        // Read before the ratings, so that a store swapped in during the rebuild triggers another one.
+        ratingStoreVersion = ratingStoreService.getVersion();
+        List<MovieSummary> movies = primaryTransaction.execute(
+                status -> movieRepository.findAllSummariesWithoutRatings());
+        publish(movies.stream()
+                .map(movie -> {
+                    MovieDto movieDto = MovieConverter.toDto(movie);
+                    movieDto.setRating(ratingStoreService.getAverageRating(movie.getId()));
+                    return movieDto;
+                })
+                .sorted(Comparator.comparing(MovieDto::getRating).reversed().thenComparing(MovieDto::getId))
+                .toList());
+    }
+
+    private void publish(List<MovieDto> movies) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(movies);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Catalog snapshot cannot be serialized", e);
+        }
+        Snapshot previous = snapshot;
+        long version = previous == null ? 1 : previous.version() + 1;
+        String eTag = "\"" + DigestUtils.md5DigestAsHex(json) + "\"";
+        snapshot = new Snapshot(version, Instant.now(), movies, json, eTag, jsonResponseCache.compress(json));
+        jsonResponseCache.invalidate(JsonResponseCache.catalog());
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import ru.bicev.movie_ratings.entitites.User;
 import ru.bicev.movie_ratings.repositories.UserRepository;
@@ -14,6 +15,7 @@ import ru.bicev.movie_ratings.security.CustomUserDetails;
  * This service is used by Spring Security for authentification.
  */
 @Service
+@Transactional(readOnly = true)
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
@@ -1,61 +1,104 @@
 package ru.bicev.movie_ratings.services;
 
-import java.util.List;
 import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Collectors;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.transaction.Transactional;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.config.ReplicaRoutingDataSource;
 import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 import ru.bicev.movie_ratings.exceptions.DuplicateMovieException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
 import ru.bicev.movie_ratings.repositories.MovieRepository;
-import ru.bicev.movie_ratings.repositories.ReviewRepository;
 import ru.bicev.movie_ratings.utils.MovieConverter;
+import ru.bicev.movie_ratings.utils.SingleFlight;
 
 /**
  * Service class for managing movie-related operations.
  * Handles creation, deleting, updating and retrieving movies.
+ * <p>
+ * Methods run in read-only transactions unless they write: Hibernate then
+ * keeps no dirty-checking snapshots of the loaded entities, skips the flush
+ * and marks the JDBC connection read-only.
+ * </p>
+ * <p>
+ * Ratings are read from {@link RatingStoreService}, not computed from the
+ * reviews.
+ * </p>
  */
 @Service
+@Transactional(readOnly = true)
 public class MovieService {
 
     private final MovieRepository movieRepository;
 
-    private final ReviewRepository reviewRepository;
+    private final RatingStoreService ratingStoreService;
+
+    private final CascadeDeleteService cascadeDeleteService;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final JsonResponseCache jsonResponseCache;
+
+    /**
+     * Key of a movie load by ID. Callers share a load only if they saw the same
+     * version of the movie and read from the same database, so a load started
+     * before a write, or against a replica, never serves a caller filling a
+     * cache after the write.
+     */
+    private record MovieLoad(Long id, String version, boolean onPrimary) {
+    }
+
+    private final SingleFlight<MovieLoad, MovieDto> movieByIdLoads = new SingleFlight<>();
+
+    private final SingleFlight<String, MovieDto> movieByTitleLoads = new SingleFlight<>();
 
     /**
      * Constructor for MovieService, initializes required components.
      * 
      * @param movieRepository
-     * @param reviewRepository
+     * @param ratingStoreService the service keeping the ratings of the movies
+     * @param cascadeDeleteService the service deleting movies with their reviews
+     * @param catalogSnapshotService the service keeping the snapshot of the catalog
+     * @param jsonResponseCache the cache of serialized response bodies
      */
     @Autowired
-    public MovieService(MovieRepository movieRepository, ReviewRepository reviewRepository) {
+    public MovieService(MovieRepository movieRepository, RatingStoreService ratingStoreService,
+            CascadeDeleteService cascadeDeleteService, CatalogSnapshotService catalogSnapshotService,
+            JsonResponseCache jsonResponseCache) {
         this.movieRepository = movieRepository;
-        this.reviewRepository = reviewRepository;
+        this.ratingStoreService = ratingStoreService;
+        this.cascadeDeleteService = cascadeDeleteService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jsonResponseCache = jsonResponseCache;
     }
 
     /**
      * Retrieves a list of all movies int the system sorted by its rating desc.
+     * Only the columns shown in the list are read; the synopsis and the review
+     * ids of the returned movies are not filled. Movies with the same rating
+     * are ordered by id. The list endpoints serve the same list from
+     * {@link CatalogSnapshotService} instead.
      * 
      * @return a List of the movies sorted by its rating desc.
      */
     public List<MovieDto> getAllMoviesWithRatingsSortedByRatingDesc() {
-        List<Movie> movies = movieRepository.findAll();
-
-        for (Movie movie : movies) {
-            double averageRating = reviewRepository.findAverageRatingByMovieId(movie.getId());
-            movie.setRating(averageRating);
-        }
-
+        List<MovieSummary> movies = movieRepository.findAllSummariesWithoutRatings();
         return movies.stream()
-                .sorted(Comparator.comparing(Movie::getRating, Comparator.nullsLast(Comparator.reverseOrder())))
-                .map(MovieConverter::toDto)
+                .map(movie -> {
+                    MovieDto movieDto = MovieConverter.toDto(movie);
+                    movieDto.setRating(ratingStoreService.getAverageRating(movie.getId()));
+                    return movieDto;
+                })
+                .sorted(Comparator.comparing(MovieDto::getRating).reversed().thenComparing(MovieDto::getId))
                 .collect(Collectors.toList());
     }
 
@@ -76,48 +119,68 @@ public class MovieService {
         }
 
         Movie createdMovie = movieRepository.save(MovieConverter.toEntity(movieDto));
+        catalogSnapshotService.markStale();
         return MovieConverter.toDto(createdMovie);
     }
 
     /**
-     * Deletes movie by its ID
+     * Deletes movie by its ID together with its reviews.
+     * Movies with very many reviews are deleted by a background job, see
+     * {@link CascadeDeleteService}.
      * 
      * @param id the ID of movie to be deleted
      * @throws MovieNotFoundException if no movie with the given ID exists
      */
     @Transactional
     public void deleteMovie(Long id) {
-        if (movieRepository.findById(id).isEmpty()) {
+        if (!movieRepository.existsById(id)) {
             throw new MovieNotFoundException("Movie with id: " + id + " is not found");
         }
-        movieRepository.deleteById(id);
+        cascadeDeleteService.deleteMovie(id);
     }
 
     /**
-     * Retrieves a movie by title
+     * Retrieves a movie by title.
+     * Concurrent calls for the same title share a single load. No transaction
+     * is opened here, so callers waiting for a shared load hold no connection.
      * 
      * @param title the title of the movie to retrieve
      * @return {@link MovieDto} MovieDto corresponding to the movie found by title
      * @throws MovieNotFoundException if no movie with the given title exists
      */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public MovieDto findMovieByTitle(String title) {
+        return movieByTitleLoads.execute(title, () -> loadMovieByTitle(title));
+    }
+
+    private MovieDto loadMovieByTitle(String title) {
         Movie foundMovie = movieRepository.findByTitle(title)
                 .orElseThrow(() -> new MovieNotFoundException("Movie: " + title + " is not found"));
-        foundMovie.setRating(reviewRepository.findAverageRatingByMovieId(foundMovie.getId()));
+        foundMovie.setRating(ratingStoreService.getAverageRating(foundMovie.getId()));
         return MovieConverter.toDto(foundMovie);
     }
 
     /**
-     * Retrieves a movie by ID
+     * Retrieves a movie by ID.
+     * Concurrent calls for the same ID share a single load, unless the movie
+     * was invalidated in {@link JsonResponseCache} between them. No transaction
+     * is opened here, so callers waiting for a shared load hold no connection.
      * 
      * @param id the ID of the movie to retrieve
      * @return {@link MovieDto} MovieDto corresponding to the movie found by ID
      * @throws MovieNotFoundException if no movie with the given ID exists
      */
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public MovieDto findMovieById(Long id) {
+        MovieLoad load = new MovieLoad(id, jsonResponseCache.version(JsonResponseCache.movie(id)),
+                ReplicaRoutingDataSource.isPrimaryForced());
+        return movieByIdLoads.execute(load, () -> loadMovieById(id));
+    }
+
+    private MovieDto loadMovieById(Long id) {
         Movie foundMovie = movieRepository.findById(id)
                 .orElseThrow(() -> new MovieNotFoundException("Movie with id: " + id + " is not found"));
-        foundMovie.setRating(reviewRepository.findAverageRatingByMovieId(foundMovie.getId()));
+        foundMovie.setRating(ratingStoreService.getAverageRating(foundMovie.getId()));
         return MovieConverter.toDto(foundMovie);
     }
 
@@ -137,8 +200,30 @@ public class MovieService {
         foundMovie.setReleaseYear(movieDto.getReleaseYear());
         foundMovie.setSynopsis(movieDto.getSynopsis());
         movieRepository.save(foundMovie);
+        catalogSnapshotService.markStale();
+        jsonResponseCache.invalidate(JsonResponseCache.movie(foundMovie.getId()));
 
         return MovieConverter.toDto(foundMovie);
     }
 
+    /**
+     * Gets the number of movie loads that were executed against the database by
+     * {@link #findMovieById(Long)} and {@link #findMovieByTitle(String)}
+     * 
+     * @return the number of executed movie loads
+     */
+    public long getMovieLoadCount() {
+        return movieByIdLoads.getLoadCount() + movieByTitleLoads.getLoadCount();
+    }
+
+    /**
+     * Gets the number of movie lookups that joined a load already in flight
+     * instead of querying the database
+     * 
+     * @return the number of coalesced movie lookups
+     */
+    public long getCoalescedMovieLoadCount() {
+        return movieByIdLoads.getCoalescedCount() + movieByTitleLoads.getCoalescedCount();
+    }
+
 }
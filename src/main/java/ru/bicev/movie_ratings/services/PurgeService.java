@@ -0,0 +1,171 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+
+/**
+ * Service class physically removing soft-deleted movies, users and reviews.
+ * <p>
+ * The purge runs on the {@code movie-ratings.purge.cron} schedule, off-peak by
+ * default. Rows are removed in batches of {@code movie-ratings.purge.batch-size},
+ * each in its own transaction, with a pause of
+ * {@code movie-ratings.purge.pause-millis} between batches and at most
+ * {@code movie-ratings.purge.max-batches} batches per run. Reviews go first,
+ * including the ones left behind by deleted movies and users; movies and users
+ * are removed once none of their reviews is left.
+ * </p>
+ */
+@Service
+public class PurgeService {
+
+    /**
+     * The entities purged by this service, as used in the metric tags.
+     */
+    public static final List<String> ENTITIES = List.of("review", "movie", "user");
+
+    private static final Logger logger = LoggerFactory.getLogger(PurgeService.class);
+
+    private record PurgeStep(String entity, IntUnaryOperator purgeChunk) {
+    }
+
+    private final ReviewRepository reviewRepository;
+    private final MovieRepository movieRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int maxBatches;
+
+    private final List<PurgeStep> steps;
+    private final Map<String, LongAdder> purged = Map.of(
+            "review", new LongAdder(), "movie", new LongAdder(), "user", new LongAdder());
+    private final Map<String, AtomicLong> backlog = Map.of(
+            "review", new AtomicLong(), "movie", new AtomicLong(), "user", new AtomicLong());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Constructor for PurgeService, initializes required components.
+     *
+     * @param reviewRepository   the repository for review data management
+     * @param movieRepository    the repository for movie data management
+     * @param userRepository     the repository for user data management
+     * @param transactionManager the transaction manager used for the batch
+     *                           transactions
+     * @param batchSize          the number of rows removed per batch
+     * @param pauseMillis        the pause between two batches in milliseconds
+     * @param maxBatches         the maximum number of batches per run
+     */
+    @Autowired
+    public PurgeService(ReviewRepository reviewRepository, MovieRepository movieRepository,
+            UserRepository userRepository, PlatformTransactionManager transactionManager,
+            @Value("${movie-ratings.purge.batch-size:500}") int batchSize,
+            @Value("${movie-ratings.purge.pause-millis:200}") long pauseMillis,
+            @Value("${movie-ratings.purge.max-batches:2000}") int maxBatches) {
+        this.reviewRepository = reviewRepository;
+        this.movieRepository = movieRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.maxBatches = maxBatches;
+        this.steps = List.of(
+                new PurgeStep("review", reviewRepository::purgeDeletedChunk),
+                new PurgeStep("review", reviewRepository::purgeChunkOfDeletedMovies),
+                new PurgeStep("review", reviewRepository::purgeChunkOfDeletedUsers),
+                new PurgeStep("movie", movieRepository::purgeDeletedChunk),
+                new PurgeStep("user", userRepository::purgeDeletedChunk));
+    }
+
+    /**
+     * Removes soft-deleted rows in throttled batches until none is left or the
+     * batch budget of the run is used up. A run started while another one is
+     * in progress returns immediately.
+     *
+     * @return the number of batches executed
+     */
+    @Scheduled(cron = "${movie-ratings.purge.cron:0 */10 1-5 * * *}")
+    public int purge() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        int batches = 0;
+        try {
+            purging: for (PurgeStep step : steps) {
+                while (batches < maxBatches) {
+                    int removed = transactionTemplate.execute(status -> step.purgeChunk().applyAsInt(batchSize));
+                    batches++;
+                    purged.get(step.entity()).add(removed);
+                    if (removed < batchSize) {
+                        break;
+                    }
+                    if (!pause()) {
+                        break purging;
+                    }
+                }
+            }
+        } finally {
+            updateBacklog();
+            running.set(false);
+        }
+        logger.info("Purge finished after {} batches, backlog: {} reviews, {} movies, {} users", batches,
+                getBacklog("review"), getBacklog("movie"), getBacklog("user"));
+        return batches;
+    }
+
+    /**
+     * Returns the number of rows of the entity removed since startup.
+     *
+     * @param entity one of {@link #ENTITIES}
+     * @return the number of removed rows
+     */
+    public long getPurgedCount(String entity) {
+        return purged.get(entity).sum();
+    }
+
+    /**
+     * Returns the number of soft-deleted rows of the entity left after the last
+     * run.
+     *
+     * @param entity one of {@link #ENTITIES}
+     * @return the number of soft-deleted rows waiting to be purged
+     */
+    public long getBacklog(String entity) {
+        return backlog.get(entity).get();
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void updateBacklog() {
+        backlog.get("review").set(reviewRepository.countDeleted());
+        backlog.get("movie").set(movieRepository.countDeleted());
+        backlog.get("user").set(userRepository.countDeleted());
+    }
+}
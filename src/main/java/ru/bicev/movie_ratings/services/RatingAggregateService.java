@@ -0,0 +1,356 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.dto.RatingBucket;
+import ru.bicev.movie_ratings.entitites.MovieRatingAggregate;
+import ru.bicev.movie_ratings.entitites.MovieRatingDelta;
+
+/**
+ * Service class maintaining the persisted rating histogram of every movie, a
+ * {@link MovieRatingAggregate} per movie and rating, without updating its
+ * rows on every review write.
+ * <p>
+ * Review writes report their rating change through
+ * {@link #recordChange(long, int, int)}. The changes of a transaction are
+ * combined per movie and rating in memory and appended as
+ * {@link MovieRatingDelta} rows
+ * just before it commits, so writers rating the same movie insert rows instead
+ * of queueing for its aggregate row, and a delta is committed or rolled back
+ * together with its review. Every
+ * {@code movie-ratings.rating-aggregate.flush-millis} the deltas are deleted
+ * and added to the aggregates, with one batched upsert per movie, in a single
+ * transaction; a failed flush leaves them for the next one.
+ * </p>
+ * <p>
+ * Nothing is kept in memory between transactions, so no change is lost when
+ * the process dies and every application instance can record changes and
+ * flush them. The aggregates of a movie plus its deltas are always exactly the
+ * histogram of its committed reviews, which {@link #findRatingBuckets()}
+ * reads. The ratings served to clients all come from
+ * {@link RatingStoreService}, which is loaded from them; the aggregates are
+ * its persisted copy. Changes that are not made review by review, such as
+ * seeding, rebuild the aggregates from the reviews instead.
+ * </p>
+ */
+@Service
+public class RatingAggregateService {
+
+    /**
+     * A movie and rating, ordered so that the aggregates are always locked in
+     * the same order.
+     */
+    private record BucketKey(long movieId, int rating) implements Comparable<BucketKey> {
+
+        @Override
+        public int compareTo(BucketKey other) {
+            int byMovie = Long.compare(movieId, other.movieId);
+            return byMovie != 0 ? byMovie : Integer.compare(rating, other.rating);
+        }
+    }
+
+    /**
+     * A bucket of a rating histogram read from the aggregates and deltas.
+     */
+    private record Bucket(long movieId, int rating, long reviewCount) implements RatingBucket {
+
+        @Override
+        public Long getMovieId() {
+            return movieId;
+        }
+
+        @Override
+        public int getRating() {
+            return rating;
+        }
+
+        @Override
+        public long getReviewCount() {
+            return reviewCount;
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingAggregateService.class);
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private static final String INSERT_DELTA = """
+            INSERT INTO movie_rating_delta (movie_id, rating, review_count) VALUES (?, ?, ?)""";
+
+    private static final String POSTGRESQL_TAKE_DELTAS = """
+            DELETE FROM movie_rating_delta RETURNING movie_id, rating, review_count""";
+
+    private static final String H2_TAKE_DELTAS = """
+            SELECT movie_id, rating, review_count FROM OLD TABLE (DELETE FROM movie_rating_delta)""";
+
+    private static final String POSTGRESQL_ADD = """
+            INSERT INTO movie_rating_aggregate (movie_id, rating, review_count) VALUES (?, ?, ?)
+            ON CONFLICT (movie_id, rating) DO UPDATE
+            SET review_count = movie_rating_aggregate.review_count + EXCLUDED.review_count""";
+
+    private static final String MERGE_ADD = """
+            MERGE INTO movie_rating_aggregate a
+            USING (SELECT CAST(? AS BIGINT) AS movie_id, CAST(? AS INTEGER) AS rating,
+                          CAST(? AS BIGINT) AS review_count) d
+            ON a.movie_id = d.movie_id AND a.rating = d.rating
+            WHEN MATCHED THEN UPDATE SET review_count = a.review_count + d.review_count
+            WHEN NOT MATCHED THEN INSERT (movie_id, rating, review_count)
+                VALUES (d.movie_id, d.rating, d.review_count)""";
+
+    private static final String REBUILD = """
+            INSERT INTO movie_rating_aggregate (movie_id, rating, review_count)
+            SELECT movie_id, rating, COUNT(*) FROM review WHERE deleted = FALSE GROUP BY movie_id, rating""";
+
+    private static final String FIND_BUCKETS = """
+            SELECT movie_id, rating, SUM(review_count) FROM (
+                SELECT movie_id, rating, review_count FROM movie_rating_aggregate
+                UNION ALL
+                SELECT movie_id, rating, review_count FROM movie_rating_delta) b
+            GROUP BY movie_id, rating HAVING SUM(review_count) <> 0""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate rebuildTransaction;
+    private final int batchSize;
+
+    private final Object flushMonitor = new Object();
+    private final LongAdder flushedMovies = new LongAdder();
+    private final LongAdder flushedDeltas = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private volatile boolean postgreSql;
+    private volatile boolean dialectKnown;
+
+    /**
+     * Constructor for RatingAggregateService, initializes required components.
+     *
+     * @param jdbcTemplate       the template running the batched statements
+     * @param transactionManager the transaction manager used for the flushes
+     *                           and the rebuilds
+     * @param batchSize          the number of movies per JDBC batch
+     */
+    @Autowired
+    public RatingAggregateService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Value("${movie-ratings.rating-aggregate.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // The deltas deleted and the reviews aggregated by a rebuild must be those of the same snapshot.
+        this.rebuildTransaction = new TransactionTemplate(transactionManager);
+        this.rebuildTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records that a review of the movie was added, removed or re-rated. Inside
+     * a transaction the change is combined with the other changes of the
+     * transaction and written just before it commits; otherwise it is written
+     * at once.
+     *
+     * @param movieId       the movie id
+     * @param removedRating the rating the movie lost, {@code 0} for none
+     * @param addedRating   the rating the movie gained, {@code 0} for none
+     */
+    public void recordChange(long movieId, int removedRating, int addedRating) {
+        if (removedRating == addedRating) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<BucketKey, Long> deltas = new TreeMap<>();
+            addChange(deltas, movieId, removedRating, addedRating);
+            insertDeltas(deltas);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<BucketKey, Long> pending = (Map<BucketKey, Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Map<BucketKey, Long> combined = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(this, combined);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insertDeltas(combined);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RatingAggregateService.this);
+                }
+            });
+            pending = combined;
+        }
+        addChange(pending, movieId, removedRating, addedRating);
+    }
+
+    /**
+     * Records that the movie was deleted with its reviews. Its aggregate and
+     * deltas are removed in the current transaction, if any.
+     *
+     * @param movieId the movie id
+     */
+    public void recordMovieDeleted(long movieId) {
+        jdbcTemplate.update("DELETE FROM movie_rating_delta WHERE movie_id = ?", movieId);
+        jdbcTemplate.update("DELETE FROM movie_rating_aggregate WHERE movie_id = ?", movieId);
+    }
+
+    /**
+     * Finds the number of reviews per movie and rating, the aggregates plus the
+     * deltas not yet flushed, so that the result is the rating histogram of the
+     * reviews committed before the snapshot of the current transaction.
+     *
+     * @return the list of the buckets, one per movie and rating with reviews
+     */
+    public List<RatingBucket> findRatingBuckets() {
+        return jdbcTemplate.query(FIND_BUCKETS,
+                (row, rowNumber) -> new Bucket(row.getLong(1), row.getInt(2), row.getLong(3)));
+    }
+
+    /**
+     * Adds the written deltas to the aggregates and deletes them, in one
+     * transaction. Flushes of several instances may run at once: each delta is
+     * taken by only one of them.
+     *
+     * @return the number of movies whose aggregates were updated
+     */
+    @Scheduled(fixedDelayString = "${movie-ratings.rating-aggregate.flush-millis:1000}")
+    public int flush() {
+        synchronized (flushMonitor) {
+            int movies;
+            try {
+                movies = transactionTemplate.execute(status -> {
+                    // Ordered by movie and rating, so that concurrent flushes lock the aggregates in the same order.
+                    Map<BucketKey, Long> combined = new TreeMap<>();
+                    int[] taken = new int[1];
+                    jdbcTemplate.query(postgreSql() ? POSTGRESQL_TAKE_DELTAS : H2_TAKE_DELTAS, row -> {
+                        combined.merge(new BucketKey(row.getLong(1), row.getInt(2)), row.getLong(3), Long::sum);
+                        taken[0]++;
+                    });
+                    List<Map.Entry<BucketKey, Long>> changed = combined.entrySet().stream()
+                            .filter(total -> total.getValue() != 0)
+                            .toList();
+                    jdbcTemplate.batchUpdate(postgreSql() ? POSTGRESQL_ADD : MERGE_ADD, changed, batchSize,
+                            (statement, total) -> {
+                                statement.setLong(1, total.getKey().movieId());
+                                statement.setInt(2, total.getKey().rating());
+                                statement.setLong(3, total.getValue());
+                            });
+                    flushedDeltas.add(taken[0]);
+                    return (int) changed.stream().mapToLong(total -> total.getKey().movieId()).distinct().count();
+                });
+            } catch (RuntimeException e) {
+                failedFlushes.increment();
+                logger.warn("Flushing the rating deltas failed, retrying with the next flush", e);
+                return 0;
+            }
+            flushedMovies.add(movies);
+            return movies;
+        }
+    }
+
+    /**
+     * Rebuilds the aggregates from the reviews, dropping the deltas they
+     * already include. A rebuild conflicting with a concurrent flush is
+     * retried.
+     */
+    public void rebuild() {
+        synchronized (flushMonitor) {
+            long started = System.nanoTime();
+            int buckets = 0;
+            for (int attempt = 1;; attempt++) {
+                try {
+                    buckets = rebuildTransaction.execute(status -> {
+                        jdbcTemplate.update("DELETE FROM movie_rating_delta");
+                        jdbcTemplate.update("DELETE FROM movie_rating_aggregate");
+                        return jdbcTemplate.update(REBUILD);
+                    });
+                    break;
+                } catch (ConcurrencyFailureException e) {
+                    if (attempt == REBUILD_ATTEMPTS) {
+                        throw e;
+                    }
+                    logger.info("Rating aggregate rebuild conflicted with a flush, retrying");
+                }
+            }
+            logger.info("Rating aggregates rebuilt with {} buckets in {} ms", buckets,
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Gets the number of movies whose aggregate was updated by the flushes
+     *
+     * @return the number of flushed movie aggregates
+     */
+    public long getFlushedMovieCount() {
+        return flushedMovies.sum();
+    }
+
+    /**
+     * Gets the number of delta rows folded into the aggregates by the flushes
+     *
+     * @return the number of flushed deltas
+     */
+    public long getFlushedDeltaCount() {
+        return flushedDeltas.sum();
+    }
+
+    /**
+     * Gets the number of flushes that failed and were retried
+     *
+     * @return the number of failed flushes
+     */
+    public long getFailedFlushCount() {
+        return failedFlushes.sum();
+    }
+
+    private static void addChange(Map<BucketKey, Long> deltas, long movieId, int removedRating, int addedRating) {
+        if (removedRating != 0) {
+            deltas.merge(new BucketKey(movieId, removedRating), -1L, Long::sum);
+        }
+        if (addedRating != 0) {
+            deltas.merge(new BucketKey(movieId, addedRating), 1L, Long::sum);
+        }
+    }
+
+    private void insertDeltas(Map<BucketKey, Long> deltas) {
+        List<Map.Entry<BucketKey, Long>> rows = deltas.entrySet().stream()
+                .filter(delta -> delta.getValue() != 0)
+                .toList();
+        if (rows.size() == 1) {
+            Map.Entry<BucketKey, Long> row = rows.get(0);
+            jdbcTemplate.update(INSERT_DELTA, row.getKey().movieId(), row.getKey().rating(), row.getValue());
+        } else if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA, rows, batchSize, (statement, row) -> {
+                statement.setLong(1, row.getKey().movieId());
+                statement.setInt(2, row.getKey().rating());
+                statement.setLong(3, row.getValue());
+            });
+        }
+    }
+
+    private boolean postgreSql() {
+        if (!dialectKnown) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            postgreSql = "PostgreSQL".equals(product);
+            dialectKnown = true;
+        }
+        return postgreSql;
+    }
+}
@@ -0,0 +1,320 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.dto.RatingBucket;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.utils.AfterCommit;
+import ru.bicev.movie_ratings.utils.RatingStore;
+
+/**
+ * Service class keeping the rating aggregates of all movies in a
+ * {@link RatingStore}, so that ratings are read without querying the reviews.
+ * <p>
+ * The store is loaded from the persisted rating histograms of
+ * {@link RatingAggregateService}, the aggregates plus the deltas not yet
+ * flushed, so the load reads one row per movie and rating rather than every
+ * review. It is loaded once the application has started, before the instance
+ * reports ready, or on the first read if that load failed. Review writes
+ * report the rating they removed and added through
+ * {@link #recordChange(long, int, int)}, which updates the store once the
+ * transaction has committed; the changes of a transaction are applied
+ * together, so deleting a user records each of their reviews. Changes that
+ * are not made review by review, such as seeding, call {@link #reload()}
+ * instead. The store is also rebuilt every
+ * {@code movie-ratings.rating-store.reconcile-millis}, which picks up the
+ * writes of the other instances; writes made outside the application are
+ * corrected by {@link RatingAggregateService#rebuild()} and a reload. Once a
+ * reloaded store is swapped in, the cached responses are invalidated and
+ * {@link #getVersion()} changes, so that the catalog snapshot is rebuilt with
+ * the new ratings.
+ * </p>
+ * <p>
+ * Changes committed while a reload reads the database are journaled and
+ * replayed onto the new store before it is swapped in. The load reads the
+ * primary database in a repeatable-read transaction, whose snapshot is taken
+ * at the same instant the journal is opened: writers hold a shared lock from
+ * just before their commit until their change is applied, so every change is
+ * either visible to the load or journaled, never both.
+ * </p>
+ */
+@Service
+public class RatingStoreService {
+
+    /**
+     * A change recorded by a transaction, and journaled while a reload runs; a
+     * removed rating of {@code -1} stands for the removal of the movie.
+     */
+    private record Change(long movieId, int removedRating, int addedRating) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(RatingStoreService.class);
+
+    private final ReviewRepository reviewRepository;
+    private final RatingAggregateService ratingAggregateService;
+    private final JsonResponseCache jsonResponseCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int segments;
+
+    private final Object reloadMonitor = new Object();
+    private final StampedLock swapLock = new StampedLock();
+    private final ReentrantReadWriteLock cutOverLock = new ReentrantReadWriteLock();
+    private volatile RatingStore store;
+    private volatile long version;
+    private Queue<Change> journal;
+
+    /**
+     * Constructor for RatingStoreService, initializes required components.
+     *
+     * @param reviewRepository       the repository for review data management
+     * @param ratingAggregateService the service persisting the rating
+     *                               histograms the store is loaded from
+     * @param jsonResponseCache      the cache whose bodies are invalidated
+     *                               when a reloaded store is swapped in
+     * @param transactionManager     the transaction manager used for the load
+     * @param segments               the number of independently locked
+     *                               segments of the store
+     */
+    @Autowired
+    public RatingStoreService(ReviewRepository reviewRepository, RatingAggregateService ratingAggregateService,
+            JsonResponseCache jsonResponseCache, PlatformTransactionManager transactionManager,
+            @Value("${movie-ratings.rating-store.segments:64}") int segments) {
+        this.reviewRepository = reviewRepository;
+        this.ratingAggregateService = ratingAggregateService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.segments = segments;
+    }
+
+    /**
+     * Gets the average rating of the movie
+     *
+     * @param movieId the movie id
+     * @return the average rating, {@code 0.0} if the movie has no reviews
+     */
+    public double getAverageRating(long movieId) {
+        return store().getAverageRating(movieId);
+    }
+
+    /**
+     * Gets the number of reviews of the movie
+     *
+     * @param movieId the movie id
+     * @return the number of reviews
+     */
+    public int getReviewCount(long movieId) {
+        return store().getReviewCount(movieId);
+    }
+
+    /**
+     * Gets the number of reviews of the movie with the given rating
+     *
+     * @param movieId the movie id
+     * @param rating  the rating
+     * @return the number of reviews with the rating
+     */
+    public int getRatingCount(long movieId, int rating) {
+        return store().getRatingCount(movieId, rating);
+    }
+
+    /**
+     * Gets the version of the store, which changes whenever a reloaded store
+     * is swapped in. The changes recorded by review writes do not change it.
+     *
+     * @return the version of the store, {@code 0} before it is first loaded
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Records that a review of the movie was added, removed or re-rated. The
+     * store is updated after the current transaction commits.
+     *
+     * @param movieId       the movie id
+     * @param removedRating the rating the movie lost, {@code 0} for none
+     * @param addedRating   the rating the movie gained, {@code 0} for none
+     */
+    public void recordChange(long movieId, int removedRating, int addedRating) {
+        if (removedRating != addedRating) {
+            record(new Change(movieId, removedRating, addedRating));
+        }
+    }
+
+    /**
+     * Records that the movie was deleted with its reviews. The store is
+     * updated after the current transaction commits.
+     *
+     * @param movieId the movie id
+     */
+    public void recordMovieDeleted(long movieId) {
+        record(new Change(movieId, -1, 0));
+    }
+
+    /**
+     * Loads the store once the application has started, unless a read already
+     * loaded it. Spring Boot reports the instance ready only afterwards, so no
+     * request waits for the load. If it fails, the first read loads the store
+     * instead.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void loadOnStartup() {
+        try {
+            store();
+        } catch (RuntimeException e) {
+            logger.error("Loading the rating store on startup failed, loading it on the first read", e);
+        }
+    }
+
+    /**
+     * Rebuilds the store once it has been loaded, so that it does not drift
+     * from the database.
+     */
+    @Scheduled(fixedDelayString = "${movie-ratings.rating-store.reconcile-millis:3600000}", initialDelayString = "${movie-ratings.rating-store.reconcile-millis:3600000}")
+    public void reconcile() {
+        if (store != null) {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                logger.error("Rating store reconciliation failed", e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the store from the database. Readers keep using the current
+     * store until the new one is swapped in; the cached responses are then
+     * invalidated, as their ratings may have changed.
+     */
+    public void reload() {
+        synchronized (reloadMonitor) {
+            long started = System.nanoTime();
+            RatingStore loaded;
+            try {
+                loaded = load();
+            } catch (RuntimeException e) {
+                long stamp = swapLock.writeLock();
+                journal = null;
+                swapLock.unlockWrite(stamp);
+                throw e;
+            }
+
+            long stamp = swapLock.writeLock();
+            try {
+                for (Change change : journal) {
+                    applyTo(loaded, change.movieId(), change.removedRating(), change.addedRating());
+                }
+                store = loaded;
+                journal = null;
+            } finally {
+                swapLock.unlockWrite(stamp);
+            }
+            version++;
+            jsonResponseCache.invalidateAll();
+            logger.info("Rating store loaded with {} movies in {} ms", loaded.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private RatingStore store() {
+        RatingStore current = store;
+        if (current != null) {
+            return current;
+        }
+        synchronized (reloadMonitor) {
+            if (store == null) {
+                reload();
+            }
+            return store;
+        }
+    }
+
+    private RatingStore load() {
+        return transactionTemplate.execute(status -> {
+            cutOverLock.writeLock().lock();
+            try {
+                // The first statement fixes the snapshot of the transaction, with no commit pending its change.
+                reviewRepository.findMaxId();
+                long stamp = swapLock.writeLock();
+                journal = new ConcurrentLinkedQueue<>();
+                swapLock.unlockWrite(stamp);
+            } finally {
+                cutOverLock.writeLock().unlock();
+            }
+            List<RatingBucket> buckets = ratingAggregateService.findRatingBuckets();
+            RatingStore loaded = new RatingStore(segments, buckets.size() / 3);
+            for (RatingBucket bucket : buckets) {
+                loaded.add(bucket.getMovieId(), bucket.getRating(), Math.toIntExact(bucket.getReviewCount()));
+            }
+            return loaded;
+        });
+    }
+
+    private void record(Change change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            AfterCommit.runHolding(cutOverLock.readLock(), () -> apply(List.of(change)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<Change> pending = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Change> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            AfterCommit.runHolding(cutOverLock.readLock(), () -> apply(changes));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(RatingStoreService.this);
+                }
+            });
+            pending = changes;
+        }
+        pending.add(change);
+    }
+
+    private void apply(List<Change> changes) {
+        long stamp = swapLock.readLock();
+        try {
+            RatingStore current = store;
+            for (Change change : changes) {
+                if (current != null) {
+                    applyTo(current, change.movieId(), change.removedRating(), change.addedRating());
+                }
+                if (journal != null) {
+                    journal.add(change);
+                }
+            }
+        } finally {
+            swapLock.unlockRead(stamp);
+        }
+    }
+
+    private static void applyTo(RatingStore target, long movieId, int removedRating, int addedRating) {
+        if (removedRating < 0) {
+            target.removeMovie(movieId);
+        } else {
+            target.change(movieId, removedRating, addedRating);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.entitites.Review;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.utils.ReviewConverter;
+
+/**
+ * Reactive facade over the blocking read paths of movies and reviews.
+ * <p>
+ * Blocking repository calls are run on the bounded elastic scheduler, so the
+ * subscribing thread is never blocked. Review lists are read in keyset chunks
+ * of {@link #STREAM_CHUNK_SIZE} reviews driven by the subscriber's demand, so
+ * at most one chunk is read ahead of what the subscriber has consumed.
+ * </p>
+ * <p>
+ * The security context of the calling thread is captured when a stream is
+ * created and set around every blocking call on the scheduler threads, so
+ * reads of a user who has just written still see their
+ * {@link ru.bicev.movie_ratings.config.ReadYourWritesWindow} and go to the
+ * primary.
+ * </p>
+ */
+@Service
+public class ReactiveReadService {
+
+    /**
+     * Number of reviews fetched from the database per query while streaming.
+     */
+    public static final int STREAM_CHUNK_SIZE = 200;
+
+    private static final long NO_MORE_CHUNKS = -1L;
+
+    private final MovieService movieService;
+    private final ReviewRepository reviewRepository;
+
+    /**
+     * Constructor for ReactiveReadService, initializes required components.
+     *
+     * @param movieService     the service for movie retrieval
+     * @param reviewRepository the repository for review data management
+     */
+    @Autowired
+    public ReactiveReadService(MovieService movieService, ReviewRepository reviewRepository) {
+        this.movieService = movieService;
+        this.reviewRepository = reviewRepository;
+    }
+
+    /**
+     * Retrieves all movies sorted by rating desc as a stream.
+     *
+     * @return a {@link Flux} of {@link MovieDto} sorted by rating desc
+     */
+    public Flux<MovieDto> getAllMoviesSortedByRating() {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return Mono.fromCallable(() -> callAs(securityContext, movieService::getAllMoviesWithRatingsSortedByRatingDesc))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(movies -> movies);
+    }
+
+    /**
+     * Retrieves a movie by ID.
+     *
+     * @param id the ID of the movie to retrieve
+     * @return a {@link Mono} emitting the found {@link MovieDto}, or signalling
+     *         {@link MovieNotFoundException} if no movie with the given ID exists
+     */
+    public Mono<MovieDto> findMovieById(Long id) {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return Mono.fromCallable(() -> callAs(securityContext, () -> movieService.findMovieById(id)))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Streams the reviews of the movie in ascending id order.
+     *
+     * @param movieId the ID of the movie
+     * @return a {@link Flux} of {@link ReviewDto} associated with the movie
+     */
+    public Flux<ReviewDto> streamReviewsByMovie(Long movieId) {
+        return streamInChunks((lastId, limit) -> reviewRepository
+                .findByMovieIdAndIdGreaterThanOrderByIdAsc(movieId, lastId, limit));
+    }
+
+    /**
+     * Streams the reviews of the user in ascending id order.
+     *
+     * @param userId the ID of the user
+     * @return a {@link Flux} of {@link ReviewDto} associated with the user
+     */
+    public Flux<ReviewDto> streamReviewsByUser(Long userId) {
+        return streamInChunks((lastId, limit) -> reviewRepository
+                .findByUserIdAndIdGreaterThanOrderByIdAsc(userId, lastId, limit));
+    }
+
+    private Flux<ReviewDto> streamInChunks(BiFunction<Long, Limit, List<Review>> chunkLoader) {
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return Flux.<List<Review>, Long>generate(() -> 0L, (lastId, sink) -> {
+            if (lastId == NO_MORE_CHUNKS) {
+                sink.complete();
+                return lastId;
+            }
+            List<Review> chunk = callAs(securityContext,
+                    () -> chunkLoader.apply(lastId, Limit.of(STREAM_CHUNK_SIZE)));
+            if (chunk.isEmpty()) {
+                sink.complete();
+                return lastId;
+            }
+            sink.next(chunk);
+            return chunk.size() < STREAM_CHUNK_SIZE ? NO_MORE_CHUNKS : chunk.get(chunk.size() - 1).getId();
+        })
+                .concatMapIterable(chunk -> chunk.stream().map(ReviewConverter::toDto).toList(), 1)
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static <T> T callAs(SecurityContext securityContext, Supplier<T> call) {
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContextHolder.setContext(securityContext);
+        try {
+            return call.get();
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+}
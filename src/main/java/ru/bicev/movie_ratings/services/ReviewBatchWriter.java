@@ -0,0 +1,148 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+
+/**
+ * Writes batches of reviews collected from concurrent requests with
+ * {@link ReviewService#createReviews(List)} and completes the result of each
+ * review. If a batch fails as a whole, its reviews are retried one by one, so
+ * that a single bad review does not fail the others. Once a review is
+ * committed, the read-your-writes window of its author is opened before its
+ * result is completed.
+ */
+final class ReviewBatchWriter {
+
+    /**
+     * A review waiting to be written, with the result its request waits for.
+     *
+     * @param review   the review to write
+     * @param username the name of the user who sent the review, {@code null}
+     *                 for anonymous requests
+     * @param result   completed with the written review or the reason it
+     *                 failed
+     */
+    record PendingReview(ReviewDto review, String username, CompletableFuture<ReviewDto> result) {
+
+        PendingReview(ReviewDto review, String username) {
+            this(review, username, new CompletableFuture<>());
+        }
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewBatchWriter.class);
+
+    private final ReviewService reviewService;
+    private final ReadYourWritesWindow readYourWritesWindow;
+    private final LongAdder writtenReviews = new LongAdder();
+    private final LongAdder failedReviews = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    ReviewBatchWriter(ReviewService reviewService, ReadYourWritesWindow readYourWritesWindow) {
+        this.reviewService = reviewService;
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    /**
+     * Writes the reviews and completes their results.
+     *
+     * @param batch the reviews to write
+     */
+    void write(List<PendingReview> batch) {
+        List<ReviewService.WriteResult> results;
+        try {
+            results = reviewService.createReviews(batch.stream().map(PendingReview::review).toList());
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failedReviews.increment();
+                batch.get(0).result().completeExceptionally(e);
+                logger.warn("Writing a review failed", e);
+                return;
+            }
+            logger.warn("Writing a batch of {} reviews failed, retrying them one by one", batch.size(), e);
+            for (PendingReview pending : batch) {
+                write(List.of(pending));
+            }
+            return;
+        }
+        batches.increment();
+        for (int i = 0; i < batch.size(); i++) {
+            ReviewService.WriteResult result = results.get(i);
+            PendingReview pending = batch.get(i);
+            if (result.failure() != null) {
+                failedReviews.increment();
+                pending.result().completeExceptionally(result.failure());
+            } else {
+                writtenReviews.increment();
+                readYourWritesWindow.recordWrite(pending.username());
+                pending.result().complete(result.review());
+            }
+        }
+    }
+
+    /**
+     * Waits at most the given time for the review to be written.
+     *
+     * @param pending           the review
+     * @param timeoutMillis     how long to wait, in milliseconds
+     * @param retryAfterSeconds the delay suggested to the client if the review
+     *                          is not written in time
+     * @return the written review
+     * @throws ServiceOverloadedException if the review is not written in time
+     * @throws RuntimeException           the reason the review was not written
+     */
+    static ReviewDto await(PendingReview pending, long timeoutMillis, long retryAfterSeconds) {
+        try {
+            return pending.result().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceOverloadedException("The review was not written within " + timeoutMillis + " ms",
+                    retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrupted while waiting for the review to be written",
+                    retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Writing the review failed", e.getCause());
+        }
+    }
+
+    /**
+     * Gets the result of a review whose write has already ended.
+     *
+     * @param pending the review
+     * @return the written review
+     * @throws IllegalStateException if the review has not been written yet
+     * @throws RuntimeException      the reason the review was not written
+     */
+    static ReviewDto resultOf(PendingReview pending) {
+        if (!pending.result().isDone()) {
+            throw new IllegalStateException("The review has not been written yet");
+        }
+        return await(pending, 0, 0);
+    }
+
+    long getWrittenReviewCount() {
+        return writtenReviews.sum();
+    }
+
+    long getFailedReviewCount() {
+        return failedReviews.sum();
+    }
+
+    long getBatchCount() {
+        return batches.sum();
+    }
+}
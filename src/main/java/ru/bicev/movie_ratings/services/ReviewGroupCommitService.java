@@ -0,0 +1,210 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+import ru.bicev.movie_ratings.exceptions.UserNotFoundException;
+import ru.bicev.movie_ratings.services.ReviewBatchWriter.PendingReview;
+
+/**
+ * Service class creating reviews with group commit: reviews created
+ * concurrently share one transaction, and every request still returns only
+ * once its own review is committed.
+ * <p>
+ * Enabled with {@code movie-ratings.review-group-commit.enabled}. There is no
+ * writer thread. The first request to arrive becomes the leader: it writes
+ * every review pending at that moment, up to
+ * {@code movie-ratings.review-group-commit.max-batch-size} including its own,
+ * with {@link ReviewService#createReviews(List)}. Requests arriving meanwhile
+ * park until the leader has committed; then one of them leads the next group
+ * with the reviews that piled up. A lone request therefore commits right away,
+ * and the more requests wait on a commit, the more reviews the next commit
+ * carries. Each request gets the result of its own review, and the rating
+ * changes of the group are recorded after the same commit. The
+ * read-your-writes window of every author is opened after that commit too,
+ * whichever request led the group.
+ * </p>
+ * <p>
+ * A parked request waits at most
+ * {@code movie-ratings.review-group-commit.await-timeout-millis} for its
+ * review to be committed. If it is not, or the request is interrupted, the
+ * review is withdrawn unless a leader has already taken it, and the request
+ * fails with {@link ServiceOverloadedException}, answered with 503 and a
+ * {@code Retry-After} of
+ * {@code movie-ratings.review-group-commit.retry-after-seconds}.
+ * </p>
+ */
+@Service
+public class ReviewGroupCommitService {
+
+    private final ReviewBatchWriter batchWriter;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long awaitTimeoutMillis;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition committed = lock.newCondition();
+    private List<PendingReview> pending = new ArrayList<>();
+    private boolean leading;
+
+    /**
+     * Constructor for ReviewGroupCommitService, initializes required
+     * components.
+     *
+     * @param reviewService        the service writing the groups of reviews
+     * @param readYourWritesWindow the window keeping the reads of users who
+     *                             have just written a review on the primary
+     *                             database
+     * @param enabled              whether reviews are created with group
+     *                             commit
+     * @param maxBatchSize         the largest number of reviews written in one
+     *                             transaction
+     * @param awaitTimeoutMillis   how long a request waits for the group
+     *                             carrying its review to commit, in
+     *                             milliseconds
+     * @param retryAfterSeconds    the delay suggested to clients whose review
+     *                             was not committed in time
+     */
+    @Autowired
+    public ReviewGroupCommitService(ReviewService reviewService, ReadYourWritesWindow readYourWritesWindow,
+            @Value("${movie-ratings.review-group-commit.enabled:false}") boolean enabled,
+            @Value("${movie-ratings.review-group-commit.max-batch-size:500}") int maxBatchSize,
+            @Value("${movie-ratings.review-group-commit.await-timeout-millis:10000}") long awaitTimeoutMillis,
+            @Value("${movie-ratings.review-group-commit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.batchWriter = new ReviewBatchWriter(reviewService, readYourWritesWindow);
+        this.enabled = enabled;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Checks whether reviews are created with group commit
+     *
+     * @return {@code true} if {@link #createReview(ReviewDto)} should be used
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Creates a new review, or updates the review the user has already written
+     * for the movie, in the transaction of the current group
+     *
+     * @param reviewDto the review to write, with its user and movie IDs set
+     * @return the committed review with its ID
+     * @throws UserNotFoundException  if no user with given in the reviewDto ID
+     *                                exists
+     * @throws MovieNotFoundException     if no movie with given in the reviewDto
+     *                                    ID exists
+     * @throws ServiceOverloadedException if the review is not committed in
+     *                                    time
+     */
+    public ReviewDto createReview(ReviewDto reviewDto) {
+        PendingReview own = new PendingReview(reviewDto, ReadYourWritesWindow.currentUser());
+        List<PendingReview> group;
+        lock.lock();
+        try {
+            pending.add(own);
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(awaitTimeoutMillis);
+            while (leading && !own.result().isDone()) {
+                if (remainingNanos <= 0) {
+                    pending.removeIf(review -> review == own);
+                    throw new ServiceOverloadedException(
+                            "The review was not committed within " + awaitTimeoutMillis + " ms", retryAfterSeconds);
+                }
+                try {
+                    remainingNanos = committed.awaitNanos(remainingNanos);
+                } catch (InterruptedException e) {
+                    pending.removeIf(review -> review == own);
+                    Thread.currentThread().interrupt();
+                    throw new ServiceOverloadedException("Interrupted while waiting for the review to be committed",
+                            retryAfterSeconds);
+                }
+            }
+            if (own.result().isDone()) {
+                return ReviewBatchWriter.resultOf(own);
+            }
+            leading = true;
+            group = takeGroup(own);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            batchWriter.write(group);
+        } finally {
+            lock.lock();
+            try {
+                leading = false;
+                committed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return ReviewBatchWriter.resultOf(own);
+    }
+
+    /**
+     * Gets the number of reviews written by the groups
+     *
+     * @return the number of written reviews
+     */
+    public long getWrittenReviewCount() {
+        return batchWriter.getWrittenReviewCount();
+    }
+
+    /**
+     * Gets the number of reviews the groups failed to write
+     *
+     * @return the number of failed reviews
+     */
+    public long getFailedReviewCount() {
+        return batchWriter.getFailedReviewCount();
+    }
+
+    /**
+     * Gets the number of group commits
+     *
+     * @return the number of transactions written by the leaders
+     */
+    public long getGroupCount() {
+        return batchWriter.getBatchCount();
+    }
+
+    /**
+     * Gets the number of reviews waiting for the next group
+     *
+     * @return the number of pending reviews
+     */
+    public int getPendingReviewCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<PendingReview> takeGroup(PendingReview own) {
+        pending.removeIf(review -> review == own);
+        List<PendingReview> others = pending.subList(0, Math.min(pending.size(), maxBatchSize - 1));
+        List<PendingReview> group = new ArrayList<>(others.size() + 1);
+        group.add(own);
+        group.addAll(others);
+        others.clear();
+        return group;
+    }
+}
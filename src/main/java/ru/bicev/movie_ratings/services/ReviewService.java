@@ -1,16 +1,24 @@
 package ru.bicev.movie_ratings.services;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.transaction.Transactional;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
 import ru.bicev.movie_ratings.dto.ReviewDto;
-import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
 import ru.bicev.movie_ratings.entitites.Review;
-import ru.bicev.movie_ratings.entitites.User;
 import ru.bicev.movie_ratings.exceptions.IllegalAccessException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
 import ru.bicev.movie_ratings.exceptions.ReviewNotFoundException;
@@ -23,27 +31,76 @@ import ru.bicev.movie_ratings.utils.ReviewConverter;
 /**
  * Service class for managing review-related operations.
  * Handles creation, updating, retrieving and deleting reviews.
+ * Review lists and pages are read in read-only transactions.
  */
 @Service
+@Transactional(readOnly = true)
 public class ReviewService {
 
+    /**
+     * The outcome of one review of a batch written by
+     * {@link ReviewService#createReviews(List)}.
+     *
+     * @param review  the written review with its ID, or {@code null} if it
+     *                failed
+     * @param failure the reason the review was not written, or {@code null}
+     */
+    public record WriteResult(ReviewDto review, RuntimeException failure) {
+    }
+
+    private record ReviewKey(Long userId, Long movieId) {
+    }
+
+    /**
+     * Page size used when the caller does not request one.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Largest page size a caller may request.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final ReviewRepository reviewRepository;
     private final MovieRepository movieRepository;
     private final UserRepository userRepository;
+    private final ReadYourWritesWindow readYourWritesWindow;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final JsonResponseCache jsonResponseCache;
+    private final RatingStoreService ratingStoreService;
+    private final RatingAggregateService ratingAggregateService;
 
     /**
      * Constructor for ReviewService, initializes required components.
      * 
      * @param reviewRepository the repository for review data management
      * @param movieRepository  the repository for movie data management
-     * @param userRepository   the repository for user data management
+     * @param userRepository       the repository for user data management
+     * @param readYourWritesWindow the window keeping the reads of users who
+     *                             have just written a review on the primary
+     *                             database
+     * @param catalogSnapshotService the service keeping the snapshot of the
+     *                               catalog, whose ratings change with the
+     *                               reviews
+     * @param jsonResponseCache      the cache of serialized response bodies
+     * @param ratingStoreService     the service keeping the ratings of the
+     *                               movies
+     * @param ratingAggregateService the service maintaining the persisted
+     *                               rating aggregates of the movies
      */
     @Autowired
     public ReviewService(ReviewRepository reviewRepository, MovieRepository movieRepository,
-            UserRepository userRepository) {
+            UserRepository userRepository, ReadYourWritesWindow readYourWritesWindow,
+            CatalogSnapshotService catalogSnapshotService, JsonResponseCache jsonResponseCache,
+            RatingStoreService ratingStoreService, RatingAggregateService ratingAggregateService) {
         this.reviewRepository = reviewRepository;
         this.movieRepository = movieRepository;
         this.userRepository = userRepository;
+        this.readYourWritesWindow = readYourWritesWindow;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jsonResponseCache = jsonResponseCache;
+        this.ratingStoreService = ratingStoreService;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     /**
@@ -60,10 +117,20 @@ public class ReviewService {
     }
 
     /**
-     * Creates a new review
+     * Creates a new review, or updates the rating and comment of the review the
+     * user has already written for the movie
+     * <p>
+     * Three statements run in the transaction. The row of the user is locked
+     * first, so that concurrent writes of the same user are serialized. Then
+     * the rating the review had before is read, so that the rating of the
+     * movie can be updated by the difference without a concurrent write
+     * counting the same previous rating twice. Finally the review is written
+     * with an upsert, which inserts or updates it without a separate lookup;
+     * the user and the movie are only looked up when nothing was written.
+     * </p>
      * 
      * @param reviewDto the data transfer object {@link ReviewDto} representing review to create
-     * @return {@link ReviewDto} created ReviewDto
+     * @return {@link ReviewDto} created or updated ReviewDto
      * @throws UserNotFoundException  if no user with given in the reviewDto ID
      *                                exists
      * @throws MovieNotFoundException if no movie with given in the reviewDto ID
@@ -71,14 +138,77 @@ public class ReviewService {
      */
     @Transactional
     public ReviewDto createReview(ReviewDto reviewDto) {
-        User user = userRepository.findById(reviewDto.getUserId()).orElseThrow(
-                () -> new UserNotFoundException("User with id: " + reviewDto.getUserId() + " is not found"));
-        Movie movie = movieRepository.findById(reviewDto.getMovieId())
-                .orElseThrow(
-                        () -> new MovieNotFoundException("Movie with id: " + reviewDto.getMovieId() + " is not found"));
-        Review review = ReviewConverter.toEntity(reviewDto, user, movie);
-        reviewRepository.save(review);
-        return ReviewConverter.toDto(review);
+        userRepository.lockByIdIn(List.of(reviewDto.getUserId()));
+        int previousRating = reviewRepository.findRatingByUserIdAndMovieId(reviewDto.getUserId(),
+                reviewDto.getMovieId()).orElse(0);
+        Long reviewId = reviewRepository.upsertReview(reviewDto.getUserId(), reviewDto.getMovieId(),
+                reviewDto.getRating(), reviewDto.getComment())
+                .orElseThrow(() -> missingOwner(reviewDto));
+        readYourWritesWindow.recordWrite();
+        ratingChanged(reviewDto.getMovieId(), previousRating, reviewDto.getRating());
+        reviewsChanged(reviewDto.getMovieId(), reviewDto.getUserId());
+        ReviewDto savedReview = new ReviewDto(reviewDto.getComment(), reviewDto.getUserId(), reviewDto.getMovieId(),
+                reviewDto.getRating());
+        savedReview.setId(reviewId);
+        return savedReview;
+    }
+
+    /**
+     * Creates or updates a batch of reviews in one transaction, like
+     * {@link #createReview(ReviewDto)} does for a single review
+     * <p>
+     * The rows of the users are locked, then the previous ratings and the IDs
+     * of the written reviews are each read with one query, and the reviews are
+     * written with one JDBC batch. A
+     * review whose user or movie does not exist fails on its own, without
+     * failing the rest of the batch. Reviews of the same user for the same
+     * movie are applied in order.
+     * </p>
+     *
+     * @param reviewDtos the reviews to write, with their user and movie IDs set
+     * @return the {@link WriteResult} of each review, in order
+     */
+    @Transactional
+    public List<WriteResult> createReviews(List<ReviewDto> reviewDtos) {
+        if (reviewDtos.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> movieIds = new HashSet<>();
+        for (ReviewDto reviewDto : reviewDtos) {
+            userIds.add(reviewDto.getUserId());
+            movieIds.add(reviewDto.getMovieId());
+        }
+        userRepository.lockByIdIn(userIds);
+        Map<ReviewKey, Integer> ratings = new HashMap<>();
+        for (ReviewSummary review : reviewRepository.findSummariesByUserIdInAndMovieIdIn(userIds, movieIds)) {
+            ratings.put(new ReviewKey(review.getUserId(), review.getMovieId()), review.getRating());
+        }
+        int[] written = reviewRepository.upsertReviews(reviewDtos);
+        Map<ReviewKey, Long> reviewIds = new HashMap<>();
+        for (ReviewSummary review : reviewRepository.findSummariesByUserIdInAndMovieIdIn(userIds, movieIds)) {
+            reviewIds.put(new ReviewKey(review.getUserId(), review.getMovieId()), review.getId());
+        }
+
+        List<WriteResult> results = new ArrayList<>(reviewDtos.size());
+        for (int i = 0; i < reviewDtos.size(); i++) {
+            ReviewDto reviewDto = reviewDtos.get(i);
+            ReviewKey key = new ReviewKey(reviewDto.getUserId(), reviewDto.getMovieId());
+            Long reviewId = reviewIds.get(key);
+            if (written[i] == 0 || reviewId == null) {
+                results.add(new WriteResult(null, missingOwner(reviewDto)));
+                continue;
+            }
+            Integer previousRating = ratings.put(key, reviewDto.getRating());
+            ratingChanged(reviewDto.getMovieId(), previousRating == null ? 0 : previousRating,
+                    reviewDto.getRating());
+            reviewsChanged(reviewDto.getMovieId(), reviewDto.getUserId());
+            ReviewDto savedReview = new ReviewDto(reviewDto.getComment(), reviewDto.getUserId(),
+                    reviewDto.getMovieId(), reviewDto.getRating());
+            savedReview.setId(reviewId);
+            results.add(new WriteResult(savedReview, null));
+        }
+        return results;
     }
 
     /**
@@ -92,12 +222,16 @@ public class ReviewService {
      */
     @Transactional
     public void deleteReview(Long reviewId, Long currentUserId) {
+        userRepository.lockByIdIn(List.of(currentUserId));
         Review foundReview = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ReviewNotFoundException("Review with id: " + reviewId + " is not found"));
         if (!foundReview.getUser().getId().equals(currentUserId)) {
             throw new IllegalAccessException("You are not allowed to edit this review.");
         }
         reviewRepository.deleteById(reviewId);
+        readYourWritesWindow.recordWrite();
+        ratingChanged(foundReview.getMovie().getId(), foundReview.getRating(), 0);
+        reviewsChanged(foundReview.getMovie().getId(), foundReview.getUser().getId());
     }
 
     /**
@@ -108,7 +242,7 @@ public class ReviewService {
      *         ID
      */
     public List<ReviewDto> getReviewsByMovie(Long movieId) {
-        List<Review> reviews = reviewRepository.findByMovieId(movieId);
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByMovieId(movieId);
         return reviews.stream()
                 .map(ReviewConverter::toDto)
                 .collect(Collectors.toList());
@@ -122,12 +256,46 @@ public class ReviewService {
      * @return a List of {@link ReviewDto} reviews associated with the given use ID
      */
     public List<ReviewDto> getReviewsByUser(Long userId) {
-        List<Review> reviews = reviewRepository.findByUserId(userId);
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByUserId(userId);
         return reviews.stream()
                 .map(ReviewConverter::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves a page of the reviews by movie ID, newest first
+     * 
+     * @param movieId the ID of the movie
+     * @param before  the keyset cursor returned with the previous page, or
+     *                {@code null} for the first page
+     * @param size    the requested page size, clamped to 1..{@value #MAX_PAGE_SIZE}
+     * @return {@link ReviewPageDto} containing the reviews associated with the
+     *         given movie ID
+     */
+    public ReviewPageDto getReviewsByMovie(Long movieId, Long before, int size) {
+        int pageSize = clampPageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByMovieIdBefore(movieId, cursor(before), limit);
+        return toPage(reviews, pageSize);
+    }
+
+    /**
+     * Retrieves a page of the reviews by user ID, newest first
+     * 
+     * @param userId the ID of the user
+     * @param before the keyset cursor returned with the previous page, or
+     *               {@code null} for the first page
+     * @param size   the requested page size, clamped to 1..{@value #MAX_PAGE_SIZE}
+     * @return {@link ReviewPageDto} containing the reviews associated with the
+     *         given user ID
+     */
+    public ReviewPageDto getReviewsByUser(Long userId, Long before, int size) {
+        int pageSize = clampPageSize(size);
+        Limit limit = Limit.of(pageSize + 1);
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByUserIdBefore(userId, cursor(before), limit);
+        return toPage(reviews, pageSize);
+    }
+
     /**
      * Updates the review details
      * 
@@ -142,6 +310,7 @@ public class ReviewService {
      */
     @Transactional
     public ReviewDto updateReview(Long reviewId, ReviewDto reviewDto, Long currentUserId) {
+        userRepository.lockByIdIn(List.of(currentUserId));
         Review foundReview = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ReviewNotFoundException("Review not found"));
 
@@ -149,11 +318,52 @@ public class ReviewService {
             throw new IllegalAccessException("You are not allowed to edit this review.");
         }
 
+        int previousRating = foundReview.getRating();
         foundReview.setComment(reviewDto.getComment());
         foundReview.setRating(reviewDto.getRating());
 
         reviewRepository.save(foundReview);
+        readYourWritesWindow.recordWrite();
+        ratingChanged(foundReview.getMovie().getId(), previousRating, reviewDto.getRating());
+        reviewsChanged(foundReview.getMovie().getId(), foundReview.getUser().getId());
         return ReviewConverter.toDto(foundReview);
     }
 
+    private void ratingChanged(long movieId, int removedRating, int addedRating) {
+        ratingStoreService.recordChange(movieId, removedRating, addedRating);
+        ratingAggregateService.recordChange(movieId, removedRating, addedRating);
+    }
+
+    private void reviewsChanged(Long movieId, Long userId) {
+        catalogSnapshotService.markStale();
+        jsonResponseCache.invalidate(JsonResponseCache.movie(movieId));
+        jsonResponseCache.invalidate(JsonResponseCache.movieReviews(movieId));
+        jsonResponseCache.invalidate(JsonResponseCache.userReviews(userId));
+    }
+
+    private RuntimeException missingOwner(ReviewDto reviewDto) {
+        if (!userRepository.existsById(reviewDto.getUserId())) {
+            return new UserNotFoundException("User with id: " + reviewDto.getUserId() + " is not found");
+        }
+        return new MovieNotFoundException("Movie with id: " + reviewDto.getMovieId() + " is not found");
+    }
+
+    private static int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private static long cursor(Long before) {
+        return before == null ? Long.MAX_VALUE : before;
+    }
+
+    private static ReviewPageDto toPage(List<ReviewSummary> reviews, int pageSize) {
+        boolean hasNext = reviews.size() > pageSize;
+        List<ReviewDto> page = reviews.stream()
+                .limit(pageSize)
+                .map(ReviewConverter::toDto)
+                .collect(Collectors.toList());
+        Long nextCursor = hasNext ? page.get(page.size() - 1).getId() : null;
+        return new ReviewPageDto(page, nextCursor);
+    }
+
 }
@@ -0,0 +1,303 @@
+package ru.bicev.movie_ratings.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+import ru.bicev.movie_ratings.exceptions.UserNotFoundException;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.services.ReviewBatchWriter.PendingReview;
+
+/**
+ * Service class writing reviews behind the request that created them, so
+ * that many reviews share one transaction instead of committing one by one.
+ * <p>
+ * Enabled with {@code movie-ratings.review-write-behind.enabled}. A review is
+ * validated on the request thread and put into a bounded queue of
+ * {@code movie-ratings.review-write-behind.capacity} reviews. A single writer
+ * thread takes up to {@code movie-ratings.review-write-behind.batch-size}
+ * queued reviews at a time and writes them with
+ * {@link ReviewService#createReviews(List)}; a batch failing as a whole is
+ * retried review by review.
+ * </p>
+ * <p>
+ * The caller chooses the acknowledgement: {@link Acknowledgement#ACCEPTED}
+ * returns once the review is queued, {@link Acknowledgement#DURABLE} once it
+ * has been committed. Accepted reviews still in the queue are lost if the
+ * process dies. When the queue stays full for
+ * {@code movie-ratings.review-write-behind.offer-timeout-millis}, or a durable
+ * review is not committed within
+ * {@code movie-ratings.review-write-behind.await-timeout-millis}, the review
+ * is rejected with a {@link ServiceOverloadedException}. The read-your-writes
+ * window of the author is opened once the review is committed.
+ * </p>
+ * <p>
+ * On shutdown the queued reviews are still written. If the writer does not
+ * finish within 30 seconds, the reviews it has not taken yet fail instead.
+ * </p>
+ */
+@Service
+public class ReviewWriteBehindService {
+
+    /**
+     * When a queued review is acknowledged to the caller.
+     */
+    public enum Acknowledgement {
+        /**
+         * Once the review is queued.
+         */
+        ACCEPTED,
+        /**
+         * Once the review is committed.
+         */
+        DURABLE
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewWriteBehindService.class);
+
+    private static final long POLL_MILLIS = 100;
+
+    private final ReviewBatchWriter batchWriter;
+    private final MovieRepository movieRepository;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final long awaitTimeoutMillis;
+    private final long retryAfterSeconds;
+    private final BlockingQueue<PendingReview> queue;
+
+    private final LongAdder rejectedReviews = new LongAdder();
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Constructor for ReviewWriteBehindService, initializes required
+     * components.
+     *
+     * @param reviewService        the service writing the batches of reviews
+     * @param movieRepository      the repository used to validate the reviewed
+     *                             movie
+     * @param readYourWritesWindow the window keeping the reads of users who
+     *                             have just written a review on the primary
+     *                             database
+     * @param enabled              whether reviews may be written behind
+     * @param capacity             the number of reviews the queue holds
+     * @param batchSize            the largest number of reviews written in one
+     *                             transaction
+     * @param offerTimeoutMillis   how long a review waits for room in a full
+     *                             queue before it is rejected
+     * @param awaitTimeoutMillis   how long a durable review waits to be
+     *                             committed before it is rejected
+     * @param retryAfterSeconds    the delay suggested to rejected clients
+     */
+    @Autowired
+    public ReviewWriteBehindService(ReviewService reviewService, MovieRepository movieRepository,
+            ReadYourWritesWindow readYourWritesWindow,
+            @Value("${movie-ratings.review-write-behind.enabled:false}") boolean enabled,
+            @Value("${movie-ratings.review-write-behind.capacity:10000}") int capacity,
+            @Value("${movie-ratings.review-write-behind.batch-size:500}") int batchSize,
+            @Value("${movie-ratings.review-write-behind.offer-timeout-millis:100}") long offerTimeoutMillis,
+            @Value("${movie-ratings.review-write-behind.await-timeout-millis:10000}") long awaitTimeoutMillis,
+            @Value("${movie-ratings.review-write-behind.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.batchWriter = new ReviewBatchWriter(reviewService, readYourWritesWindow);
+        this.movieRepository = movieRepository;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.awaitTimeoutMillis = awaitTimeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    /**
+     * Starts the writer thread if writing behind is enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            writer = new Thread(this::run, "review-write-behind");
+            writer.setDaemon(true);
+            writer.start();
+        }
+    }
+
+    /**
+     * Stops accepting reviews and waits for the writer to write the queued
+     * ones. Reviews left in the queue by a writer that has died are written on
+     * the calling thread; those a writer still busy after 30 seconds has not
+     * taken fail with a {@link ServiceOverloadedException}.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writer.isAlive()) {
+            PendingReview first;
+            while ((first = queue.poll()) != null) {
+                writeBatch(first);
+            }
+            return;
+        }
+        List<PendingReview> unwritten = new ArrayList<>();
+        queue.drainTo(unwritten);
+        for (PendingReview pending : unwritten) {
+            pending.result().completeExceptionally(
+                    new ServiceOverloadedException("The service is shutting down", retryAfterSeconds));
+        }
+        if (!unwritten.isEmpty()) {
+            logger.warn("{} queued reviews were not written before shutdown", unwritten.size());
+        }
+    }
+
+    /**
+     * Checks whether reviews are written behind
+     *
+     * @return {@code true} if {@link #createReview(ReviewDto, Acknowledgement)}
+     *         may be used
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validates the review and queues it for the writer
+     *
+     * @param reviewDto       the review to write, with its user and movie IDs
+     *                        set
+     * @param acknowledgement when to return
+     * @return the written review with its ID for
+     *         {@link Acknowledgement#DURABLE}, the queued review without an
+     *         ID for {@link Acknowledgement#ACCEPTED}
+     * @throws MovieNotFoundException     if no movie with given in the
+     *                                    reviewDto ID exists
+     * @throws UserNotFoundException      if the user does not exist when the
+     *                                    review is written, for
+     *                                    {@link Acknowledgement#DURABLE}
+     * @throws ServiceOverloadedException if the queue is full, or if the
+     *                                    review is not committed in time for
+     *                                    {@link Acknowledgement#DURABLE}
+     */
+    public ReviewDto createReview(ReviewDto reviewDto, Acknowledgement acknowledgement) {
+        if (!movieRepository.existsById(reviewDto.getMovieId())) {
+            throw new MovieNotFoundException("Movie with id: " + reviewDto.getMovieId() + " is not found");
+        }
+        PendingReview pending = new PendingReview(reviewDto, ReadYourWritesWindow.currentUser());
+        // Takes the review back if stop() began while it was being queued, as the writer may be gone already.
+        if (!running || !offer(pending) || (!running && queue.remove(pending))) {
+            rejectedReviews.increment();
+            throw new ServiceOverloadedException("Too many reviews are waiting to be written", retryAfterSeconds);
+        }
+        if (acknowledgement == Acknowledgement.ACCEPTED) {
+            return reviewDto;
+        }
+        return ReviewBatchWriter.await(pending, awaitTimeoutMillis, retryAfterSeconds);
+    }
+
+    /**
+     * Gets the number of reviews waiting in the queue
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of reviews the queue has room for
+     *
+     * @return the remaining capacity of the queue
+     */
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Gets the number of reviews the writer has written
+     *
+     * @return the number of written reviews
+     */
+    public long getWrittenReviewCount() {
+        return batchWriter.getWrittenReviewCount();
+    }
+
+    /**
+     * Gets the number of queued reviews the writer failed to write
+     *
+     * @return the number of failed reviews
+     */
+    public long getFailedReviewCount() {
+        return batchWriter.getFailedReviewCount();
+    }
+
+    /**
+     * Gets the number of reviews rejected because the queue was full
+     *
+     * @return the number of rejected reviews
+     */
+    public long getRejectedReviewCount() {
+        return rejectedReviews.sum();
+    }
+
+    /**
+     * Gets the number of batches the writer has written
+     *
+     * @return the number of batches
+     */
+    public long getBatchCount() {
+        return batchWriter.getBatchCount();
+    }
+
+    private boolean offer(PendingReview pending) {
+        try {
+            return queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            PendingReview first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first != null) {
+                writeBatch(first);
+            }
+        }
+    }
+
+    private void writeBatch(PendingReview first) {
+        List<PendingReview> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        queue.drainTo(batch, batchSize - 1);
+        batchWriter.write(batch);
+    }
+}
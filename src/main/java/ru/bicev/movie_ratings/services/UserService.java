@@ -1,10 +1,11 @@
 package ru.bicev.movie_ratings.services;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.transaction.Transactional;
 import ru.bicev.movie_ratings.dto.UserDto;
 import ru.bicev.movie_ratings.entitites.User;
 import ru.bicev.movie_ratings.exceptions.DuplicateUserException;
@@ -17,23 +18,29 @@ import ru.bicev.movie_ratings.utils.UserConverter;
 /**
  * Service class for managing user-related operations.
  * Handles user registration, password management, and user detais retrieval.
+ * Lookups run in read-only transactions.
  */
 @Service
+@Transactional(readOnly = true)
 public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CascadeDeleteService cascadeDeleteService;
 
     /**
      * Constructor for UserService, initializes required components.
      * 
      * @param userRepository  the repository for user data management
      * @param passwordEncoder the password encoder for secure password handling
+     * @param cascadeDeleteService the service deleting users with their reviews
      */
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+            CascadeDeleteService cascadeDeleteService) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
+        this.cascadeDeleteService = cascadeDeleteService;
     }
 
     /**
@@ -55,7 +62,13 @@ public class UserService {
         }
         userDto.setRole("USER");
         userDto.setPassword(passwordEncoder.encode(userDto.getPassword()));
-        User savedUser = userRepository.save(UserConverter.toEntity(userDto));
+        User savedUser;
+        try {
+            savedUser = userRepository.save(UserConverter.toEntity(userDto));
+        } catch (DataIntegrityViolationException e) {
+            // A deleted user keeps its email and username until it is purged.
+            throw new DuplicateUserException("User with this email or username already exists.");
+        }
 
         return UserConverter.toDto(savedUser);
     }
@@ -130,17 +143,19 @@ public class UserService {
     }
 
     /**
-     * Deletes a user by their id
+     * Deletes a user by their id together with their reviews.
+     * Users with very many reviews are deleted by a background job, see
+     * {@link CascadeDeleteService}.
      * 
      * @param id the ID of the user to delete
      * @throws UserNotFoundException if no user with the given ID exists
      */
     @Transactional
     public void deleteUserById(Long id) {
-        if (userRepository.findById(id).isEmpty()) {
+        if (!userRepository.existsById(id)) {
             throw new UserNotFoundException("User with id: " + id + " is not found.");
         }
-        userRepository.deleteById(id);
+        cascadeDeleteService.deleteUser(id);
     }
 
 }
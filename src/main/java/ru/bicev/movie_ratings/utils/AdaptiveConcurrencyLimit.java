@@ -0,0 +1,139 @@
+package ru.bicev.movie_ratings.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Utility class limiting how many calls run at once, with a limit that adapts
+ * to the latency of the calls (additive increase, multiplicative decrease).
+ * <p>
+ * A call is admitted with {@link #tryAcquire()} only while fewer calls than
+ * the current limit are in flight; otherwise it is rejected right away instead
+ * of queueing. Every admitted call reports back with
+ * {@link #release(long, boolean)}. A call slower than the latency threshold,
+ * or one that failed, multiplies the limit by the backoff ratio; a fast call
+ * made while the limit was at least half used raises it by {@code 1/limit},
+ * so the limit grows by about one per limit's worth of fast calls. The limit
+ * always stays between the configured minimum and maximum.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private double limit;
+
+    private volatile int currentLimit;
+
+    /**
+     * Constructor for AdaptiveConcurrencyLimit.
+     *
+     * @param initialLimit          the limit to start with
+     * @param minLimit              the lowest the limit can be cut to, at least 1
+     * @param maxLimit              the highest the limit can grow to
+     * @param latencyThresholdNanos the latency above which a call counts as a
+     *                              sign of overload
+     * @param backoffRatio          the factor, between 0 and 1, the limit is
+     *                              multiplied with on overload
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+            double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max, got " + minLimit + " and "
+                    + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1, got " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.currentLimit = (int) limit;
+    }
+
+    /**
+     * Admits a call if fewer calls than the current limit are in flight
+     *
+     * @return {@code true} if the call may run and must be released afterwards,
+     *         {@code false} if it was rejected
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= currentLimit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted call and adapts the limit to how it went
+     *
+     * @param latencyNanos how long the call took
+     * @param failed       whether the call failed in a way that points at
+     *                     overload, such as a server error or a timeout
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (inFlightBefore * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            currentLimit = (int) limit;
+        }
+    }
+
+    /**
+     * Ends an admitted call without taking it into account for the limit, for
+     * calls whose latency says nothing about the load, such as streams handed
+     * over to another thread
+     */
+    public void releaseWithoutSample() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Gets the current limit
+     *
+     * @return the number of calls admitted at once
+     */
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    /**
+     * Gets the number of calls in flight
+     *
+     * @return the number of admitted calls not yet released
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Gets the number of rejected calls
+     *
+     * @return the number of calls {@link #tryAcquire()} turned away
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
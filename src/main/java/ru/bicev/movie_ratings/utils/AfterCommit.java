@@ -0,0 +1,82 @@
+package ru.bicev.movie_ratings.utils;
+
+import java.util.concurrent.locks.Lock;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utility class for deferring an action until the current transaction has
+ * committed.
+ * <p>
+ * Used to invalidate in-memory copies of data once a write is visible to
+ * other transactions, so that a reload cannot pick up the data as it was
+ * before the write.
+ * </p>
+ */
+public class AfterCommit {
+
+    /**
+     * Runs the action after the current transaction commits, or at once if no
+     * transaction is active. The action does not run if the transaction rolls
+     * back.
+     *
+     * @param action the action to run
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Runs the action after the current transaction commits, like
+     * {@link #run(Runnable)}, holding the lock from just before the commit
+     * until the action has run. Whoever holds the matching exclusive lock thus
+     * never sees a committed write whose action has not run yet.
+     *
+     * @param lock   the lock to hold, usually the read lock of a
+     *               {@link java.util.concurrent.locks.ReadWriteLock}
+     * @param action the action to run
+     */
+    public static void runHolding(Lock lock, Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private boolean locked;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    lock.lock();
+                    locked = true;
+                }
+
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (locked) {
+                        locked = false;
+                        lock.unlock();
+                    }
+                }
+            });
+        } else {
+            lock.lock();
+            try {
+                action.run();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 import ru.bicev.movie_ratings.entitites.Review;
 
@@ -45,6 +46,31 @@ public class MovieConverter {
         return movieDto;
     }
 
+    /**
+     * Converts a MovieSummary projection to a MovieDto. The synopsis is not
+     * part of the summary and the review ids are left empty.
+     * 
+     * @param summary the MovieSummary to be converted
+     * @return a MovieDto representing the summary or {@code null} if the input
+     *         is null
+     */
+    public static MovieDto toDto(MovieSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+
+        MovieDto movieDto = new MovieDto();
+
+        movieDto.setId(summary.getId());
+        movieDto.setTitle(summary.getTitle());
+        movieDto.setReleaseYear(summary.getReleaseYear());
+        movieDto.setGenre(summary.getGenre());
+        movieDto.setRating(summary.getRating());
+        movieDto.setReviewIds(List.of());
+
+        return movieDto;
+    }
+
     /**
      * Converts a MovieDto to a Movie entity
      * 
@@ -0,0 +1,401 @@
+package ru.bicev.movie_ratings.utils;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory store of the rating aggregates of the movies, keyed by movie id:
+ * the number of reviews, the sum of their ratings and the histogram of the
+ * ratings {@value #MIN_RATING} to {@value #MAX_RATING}.
+ * <p>
+ * Movies are spread over a fixed number of segments by the hash of their id.
+ * Each segment is an open-addressing hash table with linear probing over
+ * parallel primitive arrays: {@code long} keys, {@code int} counts,
+ * {@code long} sums and an {@code int} histogram with one slot per rating, so
+ * a movie takes 40 bytes at full load instead of a boxed map entry. Removed
+ * movies are deleted by shifting the following entries back, without
+ * tombstones.
+ * </p>
+ * <p>
+ * Writers lock their segment with a {@link StampedLock}. Readers take an
+ * optimistic stamp and fall back to the read lock only if a writer changed the
+ * segment meanwhile. Neither reads nor updates of movies already in the store
+ * allocate; only inserting a movie into a full segment does, to grow it.
+ * </p>
+ * <p>
+ * Movie ids must be positive: {@code 0} marks a free slot.
+ * </p>
+ */
+public final class RatingStore {
+
+    /**
+     * Lowest rating of a review.
+     */
+    public static final int MIN_RATING = 1;
+
+    /**
+     * Highest rating of a review.
+     */
+    public static final int MAX_RATING = 5;
+
+    private static final int RATINGS = MAX_RATING - MIN_RATING + 1;
+    private static final int MIN_SEGMENT_CAPACITY = 16;
+    private static final long EMPTY = 0L;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    /**
+     * Creates an empty store.
+     *
+     * @param segments       the number of independently locked segments,
+     *                       rounded up to a power of two
+     * @param expectedMovies the number of movies the store is sized for; it
+     *                       grows beyond that as needed
+     */
+    public RatingStore(int segments, int expectedMovies) {
+        int segmentCount = segments <= 1 ? 1 : Integer.highestOneBit(segments - 1) << 1;
+        int perSegment = Math.max(1, expectedMovies / segmentCount);
+        int capacity = Math.max(MIN_SEGMENT_CAPACITY, Integer.highestOneBit(perSegment * 4 / 3 + 1) << 1);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(capacity);
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Replaces a rating of the movie by another one: removes a review with the
+     * first rating and adds one with the second. Either may be {@code 0} for
+     * none, so {@code change(id, 0, 4)} adds a review rated 4 and
+     * {@code change(id, 4, 0)} removes it.
+     *
+     * @param movieId       the movie id
+     * @param removedRating the rating of the removed review, {@code 0} for none
+     * @param addedRating   the rating of the added review, {@code 0} for none
+     */
+    public void change(long movieId, int removedRating, int addedRating) {
+        checkMovieId(movieId);
+        checkRatingOrNone(removedRating);
+        checkRatingOrNone(addedRating);
+        if (removedRating == addedRating) {
+            return;
+        }
+        Segment segment = segmentFor(movieId);
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = segment.slotForUpdate(movieId);
+            Table table = segment.table;
+            if (removedRating != 0) {
+                table.counts[slot]--;
+                table.sums[slot] -= removedRating;
+                table.histogram[slot * RATINGS + removedRating - MIN_RATING]--;
+            }
+            if (addedRating != 0) {
+                table.counts[slot]++;
+                table.sums[slot] += addedRating;
+                table.histogram[slot * RATINGS + addedRating - MIN_RATING]++;
+            }
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds reviews of the movie with the same rating, as read when the store
+     * is loaded.
+     *
+     * @param movieId the movie id
+     * @param rating  the rating of the reviews
+     * @param reviews the number of reviews
+     */
+    public void add(long movieId, int rating, int reviews) {
+        checkMovieId(movieId);
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating " + rating + " is out of range");
+        }
+        Segment segment = segmentFor(movieId);
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = segment.slotForUpdate(movieId);
+            Table table = segment.table;
+            table.counts[slot] += reviews;
+            table.sums[slot] += (long) rating * reviews;
+            table.histogram[slot * RATINGS + rating - MIN_RATING] += reviews;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the movie and all of its ratings.
+     *
+     * @param movieId the movie id
+     * @return {@code true} if the movie was in the store
+     */
+    public boolean removeMovie(long movieId) {
+        checkMovieId(movieId);
+        Segment segment = segmentFor(movieId);
+        long stamp = segment.lock.writeLock();
+        try {
+            int slot = segment.table.find(movieId);
+            if (slot < 0) {
+                return false;
+            }
+            segment.table.delete(slot);
+            segment.size--;
+            return true;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of reviews of the movie
+     *
+     * @param movieId the movie id
+     * @return the number of reviews, {@code 0} if the movie is not in the store
+     */
+    public int getReviewCount(long movieId) {
+        Segment segment = segmentFor(movieId);
+        long stamp = segment.lock.tryOptimisticRead();
+        int count = segment.table.count(movieId);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                count = segment.table.count(movieId);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of reviews of the movie with the given rating
+     *
+     * @param movieId the movie id
+     * @param rating  the rating
+     * @return the number of reviews with the rating, {@code 0} if the movie is
+     *         not in the store
+     */
+    public int getRatingCount(long movieId, int rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            return 0;
+        }
+        Segment segment = segmentFor(movieId);
+        long stamp = segment.lock.tryOptimisticRead();
+        int count = segment.table.ratingCount(movieId, rating);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                count = segment.table.ratingCount(movieId, rating);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the average rating of the movie
+     *
+     * @param movieId the movie id
+     * @return the average rating, {@code 0.0} if the movie has no reviews or is
+     *         not in the store
+     */
+    public double getAverageRating(long movieId) {
+        Segment segment = segmentFor(movieId);
+        long stamp = segment.lock.tryOptimisticRead();
+        double average = segment.table.average(movieId);
+        if (!segment.lock.validate(stamp)) {
+            stamp = segment.lock.readLock();
+            try {
+                average = segment.table.average(movieId);
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return average;
+    }
+
+    /**
+     * Gets the number of movies in the store
+     *
+     * @return the number of movies
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(long movieId) {
+        return segments[(int) (mix(movieId) >>> 40) & segmentMask];
+    }
+
+    private static long mix(long movieId) {
+        long h = movieId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void checkMovieId(long movieId) {
+        if (movieId <= 0) {
+            throw new IllegalArgumentException("Movie id must be positive: " + movieId);
+        }
+    }
+
+    private static void checkRatingOrNone(int rating) {
+        if (rating != 0 && (rating < MIN_RATING || rating > MAX_RATING)) {
+            throw new IllegalArgumentException("Rating " + rating + " is out of range");
+        }
+    }
+
+    /**
+     * One independently locked hash table. The table is replaced when it
+     * grows; both fields are only written under the write lock.
+     */
+    private static final class Segment {
+
+        final StampedLock lock = new StampedLock();
+        Table table;
+        int size;
+
+        Segment(int capacity) {
+            this.table = new Table(capacity);
+        }
+
+        /**
+         * Finds the slot of the movie, inserting it if absent. Called under the
+         * write lock.
+         */
+        int slotForUpdate(long movieId) {
+            int slot = table.find(movieId);
+            if (slot >= 0) {
+                return slot;
+            }
+            if ((size + 1) * 4 > table.keys.length * 3) {
+                table = table.resized(table.keys.length * 2);
+            }
+            size++;
+            return table.insert(movieId);
+        }
+    }
+
+    /**
+     * The parallel arrays of a segment. The arrays of one table all have the
+     * same capacity, so a reader holding a table never indexes out of bounds,
+     * even when it reads while the table is being replaced.
+     */
+    private static final class Table {
+
+        final long[] keys;
+        final int[] counts;
+        final long[] sums;
+        final int[] histogram;
+        final int mask;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.counts = new int[capacity];
+            this.sums = new long[capacity];
+            this.histogram = new int[capacity * RATINGS];
+            this.mask = capacity - 1;
+        }
+
+        int find(long movieId) {
+            int slot = (int) mix(movieId) & mask;
+            // Bounded, so an optimistic reader racing a writer cannot spin.
+            for (int probes = 0; probes <= mask; probes++) {
+                long key = keys[slot];
+                if (key == movieId) {
+                    return slot;
+                }
+                if (key == EMPTY) {
+                    return -1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        int count(long movieId) {
+            int slot = find(movieId);
+            return slot < 0 ? 0 : counts[slot];
+        }
+
+        int ratingCount(long movieId, int rating) {
+            int slot = find(movieId);
+            return slot < 0 ? 0 : histogram[slot * RATINGS + rating - MIN_RATING];
+        }
+
+        double average(long movieId) {
+            int slot = find(movieId);
+            if (slot < 0) {
+                return 0.0;
+            }
+            int count = counts[slot];
+            return count <= 0 ? 0.0 : (double) sums[slot] / count;
+        }
+
+        int insert(long movieId) {
+            int slot = (int) mix(movieId) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = movieId;
+            return slot;
+        }
+
+        Table resized(int capacity) {
+            Table resized = new Table(capacity);
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    resized.copyFrom(this, slot, resized.insert(keys[slot]));
+                }
+            }
+            return resized;
+        }
+
+        /**
+         * Removes the entry in the slot, moving back the entries of the same
+         * probe run that would otherwise no longer be found.
+         */
+        void delete(int slot) {
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != EMPTY) {
+                int home = (int) mix(keys[next]) & mask;
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    copyFrom(this, next, gap);
+                    keys[gap] = keys[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = EMPTY;
+            counts[gap] = 0;
+            sums[gap] = 0;
+            for (int i = 0; i < RATINGS; i++) {
+                histogram[gap * RATINGS + i] = 0;
+            }
+        }
+
+        private void copyFrom(Table source, int sourceSlot, int targetSlot) {
+            counts[targetSlot] = source.counts[sourceSlot];
+            sums[targetSlot] = source.sums[sourceSlot];
+            System.arraycopy(source.histogram, sourceSlot * RATINGS, histogram, targetSlot * RATINGS, RATINGS);
+        }
+    }
+}
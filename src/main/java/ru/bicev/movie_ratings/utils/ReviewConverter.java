@@ -1,6 +1,7 @@
 package ru.bicev.movie_ratings.utils;
 
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 import ru.bicev.movie_ratings.entitites.Review;
 import ru.bicev.movie_ratings.entitites.User;
@@ -37,6 +38,28 @@ public class ReviewConverter {
         return reviewDto;
     }
 
+    /**
+     * Converts a ReviewSummary projection to a ReviewDto
+     * 
+     * @param summary the ReviewSummary to be converted
+     * @return a ReviewDto representing the summary or {@code null} if the input
+     *         is null
+     */
+    public static ReviewDto toDto(ReviewSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+        ReviewDto reviewDto = new ReviewDto();
+
+        reviewDto.setId(summary.getId());
+        reviewDto.setComment(summary.getComment());
+        reviewDto.setRating(summary.getRating());
+        reviewDto.setMovieId(summary.getMovieId());
+        reviewDto.setUserId(summary.getUserId());
+
+        return reviewDto;
+    }
+
     /**
      * Converts a ReviewDto to a Review entity
      * 
@@ -0,0 +1,92 @@
+package ru.bicev.movie_ratings.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Utility class for coalescing concurrent identical loads.
+ * <p>
+ * While a load for a key is in flight, every other caller asking for the same
+ * key waits for that load and receives its result (or its exception) instead
+ * of starting a load of its own. Nothing is cached: once the load completes
+ * the next caller starts a fresh one.
+ * </p>
+ *
+ * @param <K> the type of the load key
+ * @param <V> the type of the loaded value
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Runs the loader for the given key, or joins the load already in flight for
+     * it.
+     *
+     * @param key    the key identifying the load
+     * @param loader the loader to run if no load for the key is in flight
+     * @return the value produced by the loader
+     * @throws RuntimeException the exception thrown by the loader, rethrown to
+     *                          every caller that shared the load
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> ownFuture = new CompletableFuture<>();
+        CompletableFuture<V> sharedFuture = inFlight.putIfAbsent(key, ownFuture);
+
+        if (sharedFuture != null) {
+            coalesced.increment();
+            return join(sharedFuture);
+        }
+
+        loads.increment();
+        try {
+            ownFuture.complete(loader.get());
+        } catch (Throwable ex) {
+            ownFuture.completeExceptionally(ex);
+        } finally {
+            inFlight.remove(key, ownFuture);
+        }
+        return join(ownFuture);
+    }
+
+    /**
+     * Gets the number of loads actually executed
+     *
+     * @return the number of executed loads
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * Gets the number of calls that joined a load already in flight
+     *
+     * @return the number of coalesced calls
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
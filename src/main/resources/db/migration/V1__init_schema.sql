@@ -0,0 +1,26 @@
+-- Initial schema, equal to what Hibernate generated with ddl-auto=update.
+-- IF NOT EXISTS lets the script run against databases created before migrations were introduced.
+
+CREATE TABLE IF NOT EXISTS users (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email     VARCHAR(255) NOT NULL UNIQUE,
+    user_name VARCHAR(255) NOT NULL UNIQUE,
+    password  VARCHAR(255) NOT NULL,
+    role      VARCHAR(255) NOT NULL CHECK (role IN ('ADMIN', 'USER'))
+);
+
+CREATE TABLE IF NOT EXISTS movie (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title        VARCHAR(255) NOT NULL,
+    synopsis     VARCHAR(255),
+    genre        VARCHAR(255) NOT NULL,
+    release_year INTEGER      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS review (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    comment  VARCHAR(255),
+    user_id  BIGINT  NOT NULL REFERENCES users (id),
+    movie_id BIGINT  NOT NULL REFERENCES movie (id),
+    rating   INTEGER NOT NULL
+);
@@ -0,0 +1,15 @@
+-- Indexes backing the repository finder methods.
+-- users.email and users.user_name are already indexed by their unique constraints.
+
+-- MovieRepository.findByTitle
+CREATE INDEX IF NOT EXISTS idx_movie_title ON movie (title);
+
+-- ReviewRepository.findByMovieId, the paged and streamed per-movie listings
+-- and the per-movie average rating
+CREATE INDEX IF NOT EXISTS idx_review_movie_id_id ON review (movie_id, id);
+
+-- ReviewRepository.findByUserId and the paged and streamed per-user listings
+CREATE INDEX IF NOT EXISTS idx_review_user_id_id ON review (user_id, id);
+
+-- ReviewRepository.findByUserIdAndMovieId
+CREATE INDEX IF NOT EXISTS idx_review_user_id_movie_id ON review (user_id, movie_id);
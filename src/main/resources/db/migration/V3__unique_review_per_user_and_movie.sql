@@ -0,0 +1,12 @@
+-- A user has at most one review per movie. Existing duplicates are collapsed to the latest review.
+DELETE FROM review r
+USING review newer
+WHERE newer.user_id = r.user_id
+  AND newer.movie_id = r.movie_id
+  AND newer.id > r.id;
+
+-- The unique constraint's index replaces the plain (user_id, movie_id) index.
+DROP INDEX IF EXISTS idx_review_user_id_movie_id;
+
+ALTER TABLE review
+    ADD CONSTRAINT uk_review_user_id_movie_id UNIQUE (user_id, movie_id);
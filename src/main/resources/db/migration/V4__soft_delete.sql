@@ -0,0 +1,9 @@
+-- Movies, users and reviews are soft-deleted: a delete sets the flag and the purge job removes the rows later.
+ALTER TABLE movie ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE users ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE review ADD COLUMN deleted BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Partial indexes for the purge job, which only reads the soft-deleted rows.
+CREATE INDEX idx_movie_deleted ON movie (id) WHERE deleted;
+CREATE INDEX idx_users_deleted ON users (id) WHERE deleted;
+CREATE INDEX idx_review_deleted ON review (id) WHERE deleted;
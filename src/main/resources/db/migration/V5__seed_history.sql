@@ -0,0 +1,7 @@
+-- Seed data sets applied by the seeding pipeline, with the checksum of their input.
+-- The admin user created before the pipeline existed is kept: the fixtures only insert missing rows.
+CREATE TABLE seed_history (
+    name       VARCHAR(255)             PRIMARY KEY,
+    checksum   VARCHAR(255)             NOT NULL,
+    applied_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
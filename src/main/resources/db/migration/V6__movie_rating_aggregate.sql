@@ -0,0 +1,23 @@
+-- Review count per movie and rating, the rating histograms of the movies, maintained by flushing the rating deltas of
+-- the review writes.
+CREATE TABLE movie_rating_aggregate (
+    movie_id     BIGINT  NOT NULL,
+    rating       INTEGER NOT NULL,
+    review_count BIGINT  NOT NULL,
+    PRIMARY KEY (movie_id, rating)
+);
+
+-- Rating deltas appended in the transaction of each review write, one row per movie and rating, and folded into
+-- movie_rating_aggregate by the flushes. Being committed with the reviews, they survive crashes and can be written by
+-- any number of instances.
+CREATE TABLE movie_rating_delta (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    movie_id     BIGINT  NOT NULL,
+    rating       INTEGER NOT NULL,
+    review_count BIGINT  NOT NULL
+);
+
+CREATE INDEX idx_movie_rating_delta_movie_id ON movie_rating_delta (movie_id);
+
+INSERT INTO movie_rating_aggregate (movie_id, rating, review_count)
+SELECT movie_id, rating, COUNT(*) FROM review WHERE deleted = FALSE GROUP BY movie_id, rating;
@@ -0,0 +1,57 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+/**
+ * Measures the heap allocation and CPU time of a call on the current thread,
+ * as used by the benchmarks comparing two code paths in the same JVM.
+ */
+public final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory
+            .getThreadMXBean();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * Result of one measurement.
+     */
+    public record Result(String label, double bytesPerCall, double cpuMicrosPerCall, double allocationMbPerSecond) {
+
+        @Override
+        public String toString() {
+            return String.format("%-44s %,12.0f B/call %,10.1f us CPU/call %,8.0f MB/s allocated", label,
+                    bytesPerCall, cpuMicrosPerCall, allocationMbPerSecond);
+        }
+    }
+
+    /**
+     * Runs the call {@code warmUp} times, then measures {@code iterations}
+     * further calls.
+     *
+     * @param label      the label of the result
+     * @param warmUp     the number of calls before the measurement
+     * @param iterations the number of measured calls
+     * @param call       the call to measure
+     * @return the allocation and CPU time per call and the allocation rate
+     */
+    public static Result measure(String label, int warmUp, int iterations, Supplier<?> call) {
+        for (int i = 0; i < warmUp; i++) {
+            call.get();
+        }
+        long threadId = Thread.currentThread().threadId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long cpuBefore = THREADS.getCurrentThreadCpuTime();
+        long wallBefore = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            call.get();
+        }
+        long wallNanos = System.nanoTime() - wallBefore;
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+        long cpuNanos = THREADS.getCurrentThreadCpuTime() - cpuBefore;
+        return new Result(label, (double) bytes / iterations, cpuNanos / 1_000.0 / iterations,
+                bytes / 1_048_576.0 / (wallNanos / 1_000_000_000.0));
+    }
+}
@@ -0,0 +1,145 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal closed-loop HTTP load generator used by the benchmarks.
+ * Every simulated client sends its next request as soon as the previous one
+ * completes, so the measured throughput is what the server sustains at the
+ * given concurrency.
+ */
+public final class HttpLoadGenerator {
+
+    private static final Pattern CSRF_INPUT = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private HttpLoadGenerator() {
+    }
+
+    /**
+     * Result of one load run.
+     */
+    public record Result(String label, int concurrency, long requests, long errors, double throughputPerSecond,
+            double p50Millis, double p99Millis, double maxMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%-28s concurrency=%5d requests=%8d errors=%6d throughput=%9.1f req/s "
+                    + "p50=%7.2f ms p99=%8.2f ms max=%8.2f ms",
+                    label, concurrency, requests, errors, throughputPerSecond, p50Millis, p99Millis, maxMillis);
+        }
+    }
+
+    /**
+     * Creates a client that keeps cookies and is logged in through the form login
+     * of the application.
+     */
+    public static HttpClient loggedInClient(int port, String email, String password)
+            throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        URI loginUri = URI.create("http://localhost:" + port + "/login");
+        String loginPage = client.send(HttpRequest.newBuilder(loginUri).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body();
+        Matcher csrf = CSRF_INPUT.matcher(loginPage);
+        if (!csrf.find()) {
+            throw new IllegalStateException("CSRF token not found on the login page");
+        }
+
+        String form = "email=" + encode(email) + "&password=" + encode(password) + "&_csrf=" + encode(csrf.group(1));
+        HttpResponse<Void> loginResponse = client.send(HttpRequest.newBuilder(loginUri)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        String location = loginResponse.headers().firstValue("Location").orElse("");
+        if (loginResponse.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Login failed: " + loginResponse.statusCode() + " " + location);
+        }
+        return client;
+    }
+
+    /**
+     * Sends GET requests to the given URI from {@code concurrency} simulated
+     * clients for the given duration.
+     */
+    public static Result run(String label, HttpClient client, URI uri, int concurrency, Duration duration)
+            throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().timeout(Duration.ofSeconds(30)).build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        long started = System.nanoTime();
+
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        long[] errors = new long[concurrency];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int worker = i;
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors[worker]++;
+                                continue;
+                            }
+                        } catch (IOException ex) {
+                            errors[worker]++;
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+
+        return new Result(label, concurrency, all.length, Arrays.stream(errors).sum(), all.length / elapsedSeconds,
+                percentileMillis(all, 0.50), percentileMillis(all, 0.99), percentileMillis(all, 1.0));
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.MovieRatingsApplication;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.entitites.Review;
+import ru.bicev.movie_ratings.entitites.User;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.MovieService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.utils.MovieConverter;
+import ru.bicev.movie_ratings.utils.ReviewConverter;
+import ru.bicev.movie_ratings.utils.Role;
+
+/**
+ * Compares the allocation rate of the list endpoints' service calls reading
+ * {@code MovieSummary} and {@code ReviewSummary} projections against loading
+ * the full entities and converting them, as the list endpoints did before.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class ProjectionBenchmarkTest {
+
+    private static final int MOVIES = 200;
+    private static final int REVIEWS = 2000;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+    private static final String SYNOPSIS = "A synopsis of about the length the movie form allows. ".repeat(4);
+
+    @Test
+    public void compareProjectionsAndEntities() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MovieRatingsApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-projections",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework=WARN")) {
+            Long movieId = seed(context);
+            MovieService movieService = context.getBean(MovieService.class);
+            ReviewService reviewService = context.getBean(ReviewService.class);
+            MovieRepository movieRepository = context.getBean(MovieRepository.class);
+            ReviewRepository reviewRepository = context.getBean(ReviewRepository.class);
+            TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            readOnly.setReadOnly(true);
+
+            List<AllocationMeter.Result> results = new ArrayList<>();
+            results.add(measure("GET /api/movies, projections",
+                    movieService::getAllMoviesWithRatingsSortedByRatingDesc));
+            results.add(measure("GET /api/movies, entities",
+                    () -> readOnly.execute(status -> moviesFromEntities(movieRepository, reviewRepository))));
+            results.add(measure("GET /api/movies/{id}/reviews, projections",
+                    () -> reviewService.getReviewsByMovie(movieId)));
+            results.add(measure("GET /api/movies/{id}/reviews, entities",
+                    () -> readOnly.execute(status -> reviewsFromEntities(reviewRepository, movieId))));
+
+            System.out.println("Service calls behind the list endpoints, projections vs entities");
+            results.forEach(System.out::println);
+            assertTrue(results.stream().allMatch(result -> result.bytesPerCall() > 0));
+        }
+    }
+
+    private static List<MovieDto> moviesFromEntities(MovieRepository movieRepository,
+            ReviewRepository reviewRepository) {
+        List<Movie> movies = movieRepository.findAll();
+        for (Movie movie : movies) {
+            movie.setRating(reviewRepository.findByMovieId(movie.getId()).stream()
+                    .mapToInt(Review::getRating)
+                    .average()
+                    .orElse(0.0));
+        }
+        return movies.stream()
+                .sorted(Comparator.comparing(Movie::getRating, Comparator.nullsLast(Comparator.reverseOrder())))
+                .map(MovieConverter::toDto)
+                .toList();
+    }
+
+    private static List<ReviewDto> reviewsFromEntities(ReviewRepository reviewRepository, Long movieId) {
+        return reviewRepository.findByMovieId(movieId).stream()
+                .map(ReviewConverter::toDto)
+                .toList();
+    }
+
+    private static AllocationMeter.Result measure(String label, Supplier<?> call) {
+        return AllocationMeter.measure(label, WARM_UP_ITERATIONS, MEASURED_ITERATIONS, call);
+    }
+
+    private static Long seed(ConfigurableApplicationContext context) {
+        MovieRepository movieRepository = context.getBean(MovieRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ReviewRepository reviewRepository = context.getBean(ReviewRepository.class);
+
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            movies.add(new Movie("Movie " + i, SYNOPSIS, "Drama", 1950 + i % 70));
+        }
+        movies = movieRepository.saveAll(movies);
+
+        List<User> users = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            users.add(new User("reader" + i + "@example.com", "reader" + i, "password", Role.USER));
+        }
+        users = userRepository.saveAll(users);
+
+        List<Review> reviews = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            reviews.add(new Review("Review " + i, users.get(i), movies.get(i % 20), 1 + i % 5));
+        }
+        reviewRepository.saveAll(reviews);
+        context.getBean(RatingAggregateService.class).rebuild();
+        context.getBean(RatingStoreService.class).reload();
+        return movies.get(0).getId();
+    }
+}
@@ -0,0 +1,111 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import ru.bicev.movie_ratings.utils.RatingStore;
+
+/**
+ * Compares the allocation of the {@link RatingStore} against a boxed
+ * {@code Map<Long, Double>} of averages kept next to a map of counts, for
+ * building the ratings of a large catalog and for the rating reads and
+ * updates of the hot paths. Each measured call performs {@value #OPERATIONS}
+ * reads or updates of random movies.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class RatingStoreBenchmarkTest {
+
+    private static final int MOVIES = 200_000;
+    private static final int OPERATIONS = 1_000;
+    private static final int WARM_UP_ITERATIONS = 2_000;
+    private static final int MEASURED_ITERATIONS = 2_000;
+
+    private static volatile double sink;
+
+    @Test
+    public void compareRatingStoreAndBoxedMap() {
+        long[] movieIds = new long[OPERATIONS];
+        int[] ratings = new int[OPERATIONS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < OPERATIONS; i++) {
+            // Ids above the Long cache, as in a real catalog.
+            movieIds[i] = 1_000 + random.nextInt(MOVIES);
+            ratings[i] = 1 + random.nextInt(5);
+        }
+
+        RatingStore store = new RatingStore(64, MOVIES);
+        Map<Long, Double> averages = new ConcurrentHashMap<>();
+        Map<Long, Integer> counts = new ConcurrentHashMap<>();
+
+        List<AllocationMeter.Result> results = new ArrayList<>();
+        results.add(AllocationMeter.measure("build, RatingStore", 0, 1, () -> {
+            for (long id = 1_000; id < 1_000 + MOVIES; id++) {
+                store.add(id, 4, 3);
+            }
+            return store;
+        }));
+        results.add(AllocationMeter.measure("build, Map<Long, Double>", 0, 1, () -> {
+            for (long id = 1_000; id < 1_000 + MOVIES; id++) {
+                averages.put(id, 4.0);
+                counts.put(id, 3);
+            }
+            return averages;
+        }));
+        AllocationMeter.Result storeReads = measure("reads, RatingStore", () -> {
+            double total = 0;
+            for (long id : movieIds) {
+                total += store.getAverageRating(id);
+            }
+            sink = total;
+            return null;
+        });
+        results.add(storeReads);
+        results.add(measure("reads, Map<Long, Double>", () -> {
+            double total = 0;
+            for (long id : movieIds) {
+                total += averages.getOrDefault(id, 0.0);
+            }
+            sink = total;
+            return null;
+        }));
+        AllocationMeter.Result storeUpdates = measure("updates, RatingStore", () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                store.change(movieIds[i], ratings[i], ratings[(i + 1) % OPERATIONS]);
+            }
+            return null;
+        });
+        results.add(storeUpdates);
+        results.add(measure("updates, Map<Long, Double>", () -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                long id = movieIds[i];
+                int rating = ratings[i];
+                int count = counts.get(id) + 1;
+                averages.compute(id, (key, average) -> average + (rating - average) / count);
+                counts.put(id, count);
+            }
+            return null;
+        }));
+
+        System.out.println("Rating store vs boxed map, " + OPERATIONS + " operations per call");
+        results.forEach(System.out::println);
+        // Well under one byte per operation: the hot paths do not allocate.
+        assertTrue(storeReads.bytesPerCall() < OPERATIONS / 10.0, storeReads.toString());
+        assertTrue(storeUpdates.bytesPerCall() < OPERATIONS / 10.0, storeUpdates.toString());
+    }
+
+    private static AllocationMeter.Result measure(String label, Supplier<?> call) {
+        return AllocationMeter.measure(label, WARM_UP_ITERATIONS, MEASURED_ITERATIONS, call);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.MovieRatingsApplication;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.entitites.Review;
+import ru.bicev.movie_ratings.entitites.User;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.MovieService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.utils.Role;
+
+/**
+ * Compares the heap allocation and CPU time of the list endpoints' service
+ * calls in read-only transactions against the same calls joining a read-write
+ * transaction, where Hibernate takes dirty-checking snapshots of every loaded
+ * entity and flushes before commit.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class ReadOnlyTransactionBenchmarkTest {
+
+    private static final int MOVIES = 200;
+    private static final int REVIEWS = 2000;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+
+    @Test
+    public void compareReadOnlyAndReadWriteTransactions() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MovieRatingsApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-read-only",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework=WARN")) {
+            Long movieId = seed(context);
+            MovieService movieService = context.getBean(MovieService.class);
+            ReviewService reviewService = context.getBean(ReviewService.class);
+            TransactionTemplate readWrite = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            List<AllocationMeter.Result> results = new ArrayList<>();
+            results.add(measure("GET /api/movies, read-only",
+                    movieService::getAllMoviesWithRatingsSortedByRatingDesc));
+            results.add(measure("GET /api/movies, read-write",
+                    () -> readWrite.execute(status -> movieService.getAllMoviesWithRatingsSortedByRatingDesc())));
+            results.add(measure("GET /api/movies/{id}/reviews, read-only",
+                    () -> reviewService.getReviewsByMovie(movieId)));
+            results.add(measure("GET /api/movies/{id}/reviews, read-write",
+                    () -> readWrite.execute(status -> reviewService.getReviewsByMovie(movieId))));
+
+            System.out.println("Service calls behind the list endpoints, read-only vs read-write transactions");
+            results.forEach(System.out::println);
+            assertTrue(results.stream().allMatch(result -> result.bytesPerCall() > 0));
+        }
+    }
+
+    private static AllocationMeter.Result measure(String label, Supplier<?> call) {
+        return AllocationMeter.measure(label, WARM_UP_ITERATIONS, MEASURED_ITERATIONS, call);
+    }
+
+    private static Long seed(ConfigurableApplicationContext context) {
+        MovieRepository movieRepository = context.getBean(MovieRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        ReviewRepository reviewRepository = context.getBean(ReviewRepository.class);
+
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            movies.add(new Movie("Movie " + i, "Synopsis " + i, "Drama", 1950 + i % 70));
+        }
+        movies = movieRepository.saveAll(movies);
+
+        List<User> users = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            users.add(new User("reader" + i + "@example.com", "reader" + i, "password", Role.USER));
+        }
+        users = userRepository.saveAll(users);
+
+        Movie reviewedMovie = movies.get(0);
+        List<Review> reviews = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            reviews.add(new Review("Review " + i, users.get(i), reviewedMovie, 1 + i % 5));
+        }
+        reviewRepository.saveAll(reviews);
+        context.getBean(RatingAggregateService.class).rebuild();
+        context.getBean(RatingStoreService.class).reload();
+        return reviewedMovie.getId();
+    }
+}
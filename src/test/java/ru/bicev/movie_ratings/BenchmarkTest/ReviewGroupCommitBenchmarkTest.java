@@ -0,0 +1,151 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import ru.bicev.movie_ratings.MovieRatingsApplication;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.entitites.User;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.ReviewGroupCommitService;
+import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.utils.Role;
+
+/**
+ * Load test of review creation, committing every review on its own and with
+ * {@link ReviewGroupCommitService}, at increasing numbers of concurrent
+ * writers. Every writer creates or re-rates reviews of its own users as fast
+ * as it can; with group commit the reviews per commit, and with them the
+ * throughput, should grow with the concurrency.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}. The commits of the in-memory H2
+ * database are cheap, so the gain is far larger against a PostgreSQL server
+ * that flushes its log on every commit.
+ * </p>
+ */
+@Tag("benchmark")
+public class ReviewGroupCommitBenchmarkTest {
+
+    private static final int[] CONCURRENCY_LEVELS = { 1, 4, 16, 64 };
+    private static final Duration WARM_UP = Duration.ofSeconds(3);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+    private static final int MOVIES = 100;
+    private static final int USERS_PER_WRITER = 20;
+
+    private record Result(String label, int concurrency, long reviews, double throughputPerSecond,
+            double reviewsPerCommit) {
+
+        @Override
+        public String toString() {
+            return String.format("%-14s %4d writers: %8d reviews, %10.1f reviews/s, %6.1f reviews/commit", label,
+                    concurrency, reviews, throughputPerSecond, reviewsPerCommit);
+        }
+    }
+
+    @Test
+    public void compareSingleAndGroupCommit() throws Exception {
+        List<Result> results = new ArrayList<>();
+        results.addAll(runAgainst(false));
+        results.addAll(runAgainst(true));
+
+        System.out.println("Review creation, one commit per review vs group commit");
+        results.forEach(System.out::println);
+        assertTrue(results.stream().allMatch(result -> result.reviews() > 0));
+    }
+
+    private List<Result> runAgainst(boolean groupCommit) throws Exception {
+        String mode = groupCommit ? "group" : "single";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MovieRatingsApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--movie-ratings.review-group-commit.enabled=" + groupCommit,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-commit-" + mode,
+                        "--spring.jpa.show-sql=false",
+                        "--movie-ratings.seed.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework=WARN")) {
+            int maxConcurrency = CONCURRENCY_LEVELS[CONCURRENCY_LEVELS.length - 1];
+            List<Long> movieIds = seedMovies(context);
+            List<Long> userIds = seedUsers(context, maxConcurrency * USERS_PER_WRITER);
+            ReviewService reviewService = context.getBean(ReviewService.class);
+            ReviewGroupCommitService groupCommitService = context.getBean(ReviewGroupCommitService.class);
+            Function<ReviewDto, ReviewDto> createReview = groupCommit ? groupCommitService::createReview
+                    : reviewService::createReview;
+
+            run(createReview, movieIds, userIds, maxConcurrency, WARM_UP);
+            List<Result> results = new ArrayList<>();
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                long groupsBefore = groupCommitService.getGroupCount();
+                long reviews = run(createReview, movieIds, userIds, concurrency, MEASUREMENT);
+                long commits = groupCommit ? groupCommitService.getGroupCount() - groupsBefore : reviews;
+                results.add(new Result(mode + " commit", concurrency, reviews,
+                        reviews * 1000.0 / MEASUREMENT.toMillis(), commits == 0 ? 0 : (double) reviews / commits));
+            }
+            return results;
+        }
+    }
+
+    private static long run(Function<ReviewDto, ReviewDto> createReview, List<Long> movieIds, List<Long> userIds,
+            int concurrency, Duration duration) throws InterruptedException {
+        LongAdder reviews = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            List<Long> ownUsers = userIds.subList(w * USERS_PER_WRITER, (w + 1) * USERS_PER_WRITER);
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; running.get(); i++) {
+                    long userId = ownUsers.get(i % USERS_PER_WRITER);
+                    long movieId = movieIds.get(i / USERS_PER_WRITER % MOVIES);
+                    createReview.apply(new ReviewDto("Review " + i, userId, movieId, 1 + i % 5));
+                    reviews.increment();
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        return reviews.sum();
+    }
+
+    private static List<Long> seedMovies(ConfigurableApplicationContext context) {
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            movies.add(new Movie("Movie " + i, "Synopsis " + i, "Drama", 1950 + i % 70));
+        }
+        return context.getBean(MovieRepository.class).saveAll(movies).stream().map(Movie::getId).toList();
+    }
+
+    private static List<Long> seedUsers(ConfigurableApplicationContext context, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User("writer" + i + "@example.com", "writer" + i, "password", Role.USER));
+        }
+        return context.getBean(UserRepository.class).saveAll(users).stream().map(User::getId).toList();
+    }
+}
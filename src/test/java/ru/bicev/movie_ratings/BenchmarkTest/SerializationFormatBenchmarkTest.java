@@ -0,0 +1,118 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+
+/**
+ * Compares the encode cost and the payload size of the list endpoints' bodies
+ * in JSON, CBOR and Smile, each uncompressed and deflated at levels 1, 6 and
+ * 9, as the response cache and the server compression produce them.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class SerializationFormatBenchmarkTest {
+
+    private static final int MOVIES = 200;
+    private static final int REVIEWS = 2000;
+    private static final int WARM_UP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+    private static final int[] LEVELS = { 1, 6, 9 };
+
+    @Test
+    public void compareFormats() {
+        ObjectMapper json = new ObjectMapper();
+        List<ObjectMapper> mappers = List.of(json, json.copyWith(new CBORFactory()), json.copyWith(new SmileFactory()));
+        List<String> names = List.of("JSON", "CBOR", "Smile");
+
+        List<AllocationMeter.Result> results = new ArrayList<>();
+        List<String> sizes = new ArrayList<>();
+        for (String endpoint : List.of("GET /api/movies", "GET /api/movies/{id}/reviews")) {
+            Object body = endpoint.endsWith("reviews") ? reviews() : movies();
+            for (int i = 0; i < mappers.size(); i++) {
+                ObjectMapper mapper = mappers.get(i);
+                String label = endpoint + ", " + names.get(i);
+                byte[] encoded = encode(mapper, body);
+                sizes.add(String.format("%-52s %8d bytes", label, encoded.length));
+                results.add(measure(label, () -> encode(mapper, body)));
+                for (int level : LEVELS) {
+                    sizes.add(String.format("%-52s %8d bytes", label + ", deflate " + level,
+                            deflate(encoded, level).length));
+                    results.add(measure(label + ", deflate " + level, () -> deflate(encode(mapper, body), level)));
+                }
+            }
+        }
+
+        System.out.println("Payload size of the list endpoints per format");
+        sizes.forEach(System.out::println);
+        System.out.println("Encode cost of the list endpoints per format");
+        results.forEach(System.out::println);
+        assertTrue(results.stream().allMatch(result -> result.bytesPerCall() > 0));
+    }
+
+    private static List<MovieDto> movies() {
+        List<MovieDto> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            MovieDto movie = new MovieDto("Movie " + i, null, "Drama", 1950 + i % 70);
+            movie.setId((long) i + 1);
+            movie.setRating(1 + (i % 40) / 10.0);
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    private static List<ReviewDto> reviews() {
+        List<ReviewDto> reviews = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            ReviewDto review = new ReviewDto("Review " + i, (long) i + 1, 1L, 1 + i % 5);
+            review.setId((long) i + 1);
+            reviews.add(review);
+        }
+        return reviews;
+    }
+
+    private static byte[] encode(ObjectMapper mapper, Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] deflate(byte[] body, int level) {
+        Deflater deflater = new Deflater(level);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return compressed.toByteArray();
+    }
+
+    private static AllocationMeter.Result measure(String label, Supplier<?> call) {
+        return AllocationMeter.measure(label, WARM_UP_ITERATIONS, MEASURED_ITERATIONS, call);
+    }
+}
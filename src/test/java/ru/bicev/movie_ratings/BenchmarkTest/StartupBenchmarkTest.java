@@ -0,0 +1,113 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import ru.bicev.movie_ratings.MovieRatingsApplication;
+
+/**
+ * Measures the time from launching the application in a new JVM to the first
+ * successful {@code GET /api/movies}, with the default settings and in the
+ * fast-startup mode (lazy initialization, no devtools restart, no DEBUG
+ * logging). Both run on the H2 database of the test profile; the AOT and
+ * AppCDS parts of the fast-startup mode need the jar built with
+ * {@code ./mvnw -Pfast-startup package}.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ * </p>
+ */
+@Tag("benchmark")
+public class StartupBenchmarkTest {
+
+    private static final int RUNS = 3;
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    @Test
+    public void compareStartupModes() throws Exception {
+        List<String> results = new ArrayList<>();
+        results.add(measure("default", List.of(), "test"));
+        results.add(measure("fast-startup", List.of("-Dspring.devtools.restart.enabled=false"),
+                "test,fast-startup"));
+
+        System.out.println("Time to first successful GET /api/movies");
+        results.forEach(System.out::println);
+    }
+
+    private static String measure(String label, List<String> jvmOptions, String profiles) throws Exception {
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int run = 0; run < RUNS; run++) {
+            long millis = timeToFirstResponse(jvmOptions, profiles);
+            best = Math.min(best, millis);
+            total += millis;
+        }
+        return String.format("%-16s best=%6d ms mean=%6d ms", label, best, total / RUNS);
+    }
+
+    private static long timeToFirstResponse(List<String> jvmOptions, String profiles) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(MovieRatingsApplication.class.getName());
+        command.add("--server.port=" + port);
+        command.add("--spring.profiles.active=" + profiles);
+        command.add("--spring.datasource.url=jdbc:h2:mem:benchmark-startup");
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.to(new File(System.getProperty("java.io.tmpdir"),
+                        "startup-benchmark.log")))
+                .start();
+        try {
+            URI movies = URI.create("http://localhost:" + port + "/api/movies");
+            long deadline = started + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                assertTrue(process.isAlive(), "The application exited during startup");
+                if (getMovies(port, movies)) {
+                    return (System.nanoTime() - started) / 1_000_000;
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful GET /api/movies within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static boolean getMovies(int port, URI movies) throws InterruptedException {
+        try {
+            HttpClient client = HttpLoadGenerator.loggedInClient(port, "admin@example.com", "admin_password");
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(movies).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200;
+        } catch (IOException | IllegalStateException e) {
+            // Not listening yet, or the admin user is not created yet.
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.bicev.movie_ratings.BenchmarkTest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import ru.bicev.movie_ratings.MovieRatingsApplication;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.seed.SeedRunner;
+
+/**
+ * Compares throughput and latency of {@code GET /api/movies} served on the
+ * platform-thread Tomcat pool and on virtual threads.
+ * <p>
+ * Run with {@code ./mvnw test -Pbenchmark}. The benchmark profile also sets
+ * {@code -Djdk.tracePinnedThreads=short}, so any carrier thread pinned while
+ * serving the virtual-thread run is reported in the test output.
+ * </p>
+ * <p>
+ * The virtual-thread run also records the {@code jdk.VirtualThreadPinned} JFR
+ * events, prints where the pinned threads parked and fails if any of them
+ * parked in the application, Hibernate or HikariCP. The benchmark runs on the
+ * in-memory H2 database, so pinning inside the database driver is reported
+ * without failing the test; the PostgreSQL driver is not exercised.
+ * </p>
+ */
+@Tag("benchmark")
+public class VirtualThreadsBenchmarkTest {
+
+    private static final int[] CONCURRENCY_LEVELS = { 50, 400, 2000 };
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+    private static final int MOVIES = 50;
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final List<String> MUST_NOT_PIN = List.of("ru.bicev.", "org.hibernate.", "com.zaxxer.hikari.");
+
+    @Test
+    public void compareThreadModes() throws Exception {
+        List<HttpLoadGenerator.Result> results = new ArrayList<>();
+        results.addAll(runAgainst(false));
+        Map<String, Integer> pinnedAt = new TreeMap<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable(PINNED_EVENT).withStackTrace().withThreshold(Duration.ofMillis(1));
+            recording.onEvent(PINNED_EVENT, event -> {
+                synchronized (pinnedAt) {
+                    pinnedAt.merge(parkedIn(event.getStackTrace()), 1, Integer::sum);
+                }
+            });
+            recording.startAsync();
+            results.addAll(runAgainst(true));
+            recording.stop();
+        }
+
+        System.out.println("GET /api/movies, platform threads vs virtual threads");
+        results.forEach(System.out::println);
+        System.out.println("Virtual threads pinned while parking: " + pinnedAt);
+        assertTrue(results.stream().allMatch(result -> result.requests() > 0));
+        assertTrue(pinnedAt.keySet().stream().noneMatch(frame -> MUST_NOT_PIN.stream().anyMatch(frame::startsWith)),
+                "Pinned carrier threads: " + pinnedAt);
+    }
+
+    /**
+     * Gets the first frame outside the JDK, where the pinned virtual thread
+     * blocked, from the stack trace of a pinned event.
+     */
+    private static String parkedIn(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        return "JDK";
+    }
+
+    private List<HttpLoadGenerator.Result> runAgainst(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MovieRatingsApplication.class)
+                .profiles("test")
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark-" + mode,
+                        "--spring.jpa.show-sql=false",
+                        "--movie-ratings.seed.enabled=false",
+                        // Measure the thread model, not admission control shedding the load.
+                        "--movie-ratings.concurrency-limit.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework=WARN")) {
+            // The admin user must exist before logging in, so seed in the foreground.
+            context.getBean(SeedRunner.class).seed();
+            seedMovies(context.getBean(MovieRepository.class));
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpLoadGenerator.loggedInClient(port, "admin@example.com", "admin_password");
+            URI uri = URI.create("http://localhost:" + port + "/api/movies");
+
+            HttpLoadGenerator.run("warm-up", client, uri, CONCURRENCY_LEVELS[0], WARM_UP);
+            List<HttpLoadGenerator.Result> results = new ArrayList<>();
+            for (int concurrency : CONCURRENCY_LEVELS) {
+                results.add(HttpLoadGenerator.run(mode + " threads", client, uri, concurrency, MEASUREMENT));
+            }
+            return results;
+        }
+    }
+
+    private static void seedMovies(MovieRepository movieRepository) {
+        List<Movie> movies = new ArrayList<>(MOVIES);
+        for (int i = 0; i < MOVIES; i++) {
+            movies.add(new Movie("Movie " + i, "Synopsis " + i, "Drama", 1950 + i % 70));
+        }
+        movieRepository.saveAll(movies);
+    }
+}
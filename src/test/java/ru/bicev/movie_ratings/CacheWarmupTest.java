@@ -0,0 +1,90 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.ui.Model;
+
+import ru.bicev.movie_ratings.api.MovieRestController;
+import ru.bicev.movie_ratings.config.CacheWarmup;
+import ru.bicev.movie_ratings.controllers.MovieController;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+
+public class CacheWarmupTest {
+
+    private ReviewRepository reviewRepository;
+    private CatalogSnapshotService catalogSnapshotService;
+    private MovieRestController movieRestController;
+    private MovieController movieController;
+
+    @BeforeEach
+    public void setUp() {
+        reviewRepository = mock(ReviewRepository.class);
+        catalogSnapshotService = mock(CatalogSnapshotService.class);
+        movieRestController = mock(MovieRestController.class);
+        movieController = mock(MovieController.class);
+        when(reviewRepository.findMovieIdsOrderByReviewCountDesc(Limit.of(2))).thenReturn(List.of(7L, 3L));
+    }
+
+    @Test
+    public void run_LoadsTopMoviesOnceAndRepeatsCachedPaths() throws Exception {
+        when(movieController.findMovieById(eq(3L), any(Model.class)))
+                .thenThrow(new MovieNotFoundException("Movie with id: 3 is not found"));
+        CacheWarmup warmup = warmup(true, 5000);
+
+        warmup.run(null);
+
+        assertTrue(warmup.isCompleted());
+        verify(catalogSnapshotService).getSnapshot();
+        verify(movieController, times(3)).showMovieList(any(Model.class));
+        verify(movieController, times(1)).findMovieById(eq(7L), any(Model.class));
+        verify(movieRestController, times(16)).getMovieById(eq(7L), any(HttpHeaders.class));
+        verify(movieRestController, times(4)).getMovieById(eq(3L), any(HttpHeaders.class));
+    }
+
+    @Test
+    public void run_ReturnsWhenBudgetRunsOut() throws Exception {
+        when(movieController.showMovieList(any(Model.class))).thenAnswer(invocation -> {
+            Thread.sleep(60_000);
+            return "movie/list";
+        });
+        CacheWarmup warmup = warmup(true, 100);
+
+        long started = System.nanoTime();
+        warmup.run(null);
+
+        assertTrue(System.nanoTime() - started < 10_000_000_000L);
+        assertFalse(warmup.isCompleted());
+    }
+
+    @Test
+    public void run_Disabled_DoesNothing() throws Exception {
+        CacheWarmup warmup = warmup(false, 5000);
+
+        warmup.run(null);
+
+        assertFalse(warmup.isCompleted());
+        verify(catalogSnapshotService, never()).getSnapshot();
+    }
+
+    private CacheWarmup warmup(boolean enabled, long budgetMillis) {
+        return new CacheWarmup(reviewRepository, catalogSnapshotService, movieRestController, movieController,
+                mock(ApplicationContext.class), enabled, 2, 3, budgetMillis);
+    }
+}
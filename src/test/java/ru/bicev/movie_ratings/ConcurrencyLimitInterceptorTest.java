@@ -0,0 +1,115 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import jakarta.servlet.DispatcherType;
+import ru.bicev.movie_ratings.api.MovieRestController;
+import ru.bicev.movie_ratings.api.ReviewRestController;
+import ru.bicev.movie_ratings.api.UserRestController;
+import ru.bicev.movie_ratings.config.ConcurrencyLimitInterceptor;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+import ru.bicev.movie_ratings.utils.AdaptiveConcurrencyLimit;
+
+public class ConcurrencyLimitInterceptorTest {
+
+    private final ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(true, 1, 1, 10, 500, 0.5,
+            2);
+
+    @Test
+    public void getLimits_OneLimitPerEndpoint() {
+        assertTrue(interceptor.getLimits().containsKey("ReviewRestController.createReview"));
+        assertTrue(interceptor.getLimits().containsKey("MovieRestController.createMovie"));
+        assertTrue(interceptor.getLimits().keySet().stream()
+                .allMatch(endpoint -> endpoint.startsWith("MovieRestController.")
+                        || endpoint.startsWith("ReviewRestController.")));
+    }
+
+    @Test
+    public void preHandle_AboveLimit_ThrowsServiceOverloaded() throws Exception {
+        HandlerMethod createReview = handler(ReviewRestController.class, "createReview");
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/api/movies/1/reviews");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), createReview));
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(new MockHttpServletRequest("POST", "/api/movies/1/reviews"),
+                        new MockHttpServletResponse(), createReview));
+
+        assertEquals(2, exception.getRetryAfterSeconds());
+        AdaptiveConcurrencyLimit limit = interceptor.getLimits().get("ReviewRestController.createReview");
+        assertEquals(1, limit.getRejectedCount());
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), createReview, null);
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    public void preHandle_EndpointsHaveSeparateLimits() throws Exception {
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                handler(ReviewRestController.class, "createReview")));
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                handler(MovieRestController.class, "createMovie")));
+    }
+
+    @Test
+    public void preHandle_OtherControllersAndAsyncDispatches_AreNotLimited() throws Exception {
+        HandlerMethod getUser = handler(UserRestController.class, "getUserById");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), getUser));
+        }
+
+        HandlerMethod stream = handler(ReviewRestController.class, "streamReviewsByMovieId");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), stream));
+        interceptor.afterConcurrentHandlingStarted(request, new MockHttpServletResponse(), stream);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), stream));
+        interceptor.afterCompletion(request, new MockHttpServletResponse(), stream, null);
+
+        AdaptiveConcurrencyLimit limit = interceptor.getLimits().get("ReviewRestController.streamReviewsByMovieId");
+        assertEquals(0, limit.getInFlight());
+        assertEquals(1, limit.getLimit());
+    }
+
+    @Test
+    public void afterCompletion_ServerError_CutsLimit() throws Exception {
+        ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(true, 8, 1, 10, 500, 0.5, 1);
+        HandlerMethod editMovie = handler(MovieRestController.class, "editMovie");
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, editMovie);
+        response.setStatus(500);
+
+        interceptor.afterCompletion(request, response, editMovie, null);
+
+        assertEquals(4, interceptor.getLimits().get("MovieRestController.editMovie").getLimit());
+    }
+
+    @Test
+    public void preHandle_Disabled_AdmitsEverything() throws Exception {
+        ConcurrencyLimitInterceptor disabled = new ConcurrencyLimitInterceptor(false, 1, 1, 10, 500, 0.5, 1);
+        HandlerMethod createReview = handler(ReviewRestController.class, "createReview");
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(disabled.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), createReview));
+        }
+    }
+
+    private static HandlerMethod handler(Class<?> controller, String methodName) {
+        for (Method method : controller.getDeclaredMethods()) {
+            if (method.getName().equals(methodName)) {
+                return new HandlerMethod(mock(controller), method);
+            }
+        }
+        throw new IllegalArgumentException(methodName);
+    }
+}
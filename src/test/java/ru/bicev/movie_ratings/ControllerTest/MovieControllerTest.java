@@ -4,6 +4,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -26,8 +28,12 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import ru.bicev.movie_ratings.TestSecurityConfig;
+import ru.bicev.movie_ratings.config.HtmlFragmentCache;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.config.ReplicaRoutingDataSource;
 import ru.bicev.movie_ratings.controllers.MovieController;
 import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
 import ru.bicev.movie_ratings.services.MovieService;
 
 @WebMvcTest(MovieController.class)
@@ -40,6 +46,15 @@ public class MovieControllerTest {
     @MockBean
     private MovieService movieService;
 
+    @MockBean
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @MockBean
+    private JsonResponseCache jsonResponseCache;
+
+    @MockBean
+    private HtmlFragmentCache htmlFragmentCache;
+
     private String title = "Test title";
     private String synopsis = "Test synopsis";
     private String genre = "Test genre";
@@ -107,6 +122,21 @@ public class MovieControllerTest {
 
     }
 
+    @Test
+    public void getMovieById_DetailsCached_LoadsMovieWithoutForcingPrimary() throws Exception {
+        when(jsonResponseCache.version(anyString())).thenReturn("3");
+        when(htmlFragmentCache.cached("movie-details:1", "3")).thenReturn("<p>details</p>");
+        when(movieService.findMovieById(1L)).thenAnswer(
+                invocation -> ReplicaRoutingDataSource.isPrimaryForced() ? null : movieDto);
+
+        mockMvc.perform(get("/movies/1"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("movie", movieDto))
+                .andExpect(model().attribute("movieDetails", "<p>details</p>"));
+
+        verify(htmlFragmentCache, never()).render(anyString(), any(), anyString(), anyString(), anyString(), any());
+    }
+
     @Test
     public void editMovieGet() throws Exception {
         mockMvc.perform(get("/movies/edit"))
@@ -18,11 +18,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import ru.bicev.movie_ratings.TestSecurityConfig;
+import ru.bicev.movie_ratings.config.HtmlFragmentCache;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.controllers.GlobalExceptionHandler;
 import ru.bicev.movie_ratings.controllers.MovieController;
 import ru.bicev.movie_ratings.dto.MovieDto;
 import ru.bicev.movie_ratings.exceptions.DuplicateMovieException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
 import ru.bicev.movie_ratings.services.MovieService;
 
 @WebMvcTest(MovieController.class)
@@ -35,9 +38,19 @@ public class MovieErrorPageTest {
     @MockBean
     private MovieService movieService;
 
+    @MockBean
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @MockBean
+    private JsonResponseCache jsonResponseCache;
+
+    @MockBean
+    private HtmlFragmentCache htmlFragmentCache;
+
     @BeforeEach
     public void setUp() {
-        this.mockMvc = MockMvcBuilders.standaloneSetup(new MovieController(movieService))
+        this.mockMvc = MockMvcBuilders.standaloneSetup(new MovieController(movieService, catalogSnapshotService,
+                jsonResponseCache, htmlFragmentCache))
                 .setControllerAdvice(new GlobalExceptionHandler())
                 .build();
     }
@@ -1,10 +1,12 @@
 package ru.bicev.movie_ratings.ControllerTest;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -32,6 +34,7 @@ import ru.bicev.movie_ratings.TestSecurityConfig;
 import ru.bicev.movie_ratings.controllers.ReviewController;
 import ru.bicev.movie_ratings.controllers.UserReviewController;
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
 import ru.bicev.movie_ratings.dto.UserDto;
 import ru.bicev.movie_ratings.exceptions.IllegalAccessException;
 import ru.bicev.movie_ratings.exceptions.ReviewNotFoundException;
@@ -128,24 +131,30 @@ public class ReviewControllerTest {
 
     @Test
     public void getReviewsByMovie() throws Exception {
-        when(reviewService.getReviewsByMovie(anyLong())).thenReturn(List.of(reviewDto, reviewDto2));
+        when(reviewService.getReviewsByMovie(anyLong(), any(), anyInt()))
+                .thenReturn(new ReviewPageDto(List.of(reviewDto, reviewDto2), 1L));
 
         mockMvc.perform(get("/movies/1/reviews"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("review/list"))
-                .andExpect(model().attributeExists("reviews"));
+                .andExpect(model().attributeExists("reviews"))
+                .andExpect(model().attribute("nextCursor", 1L))
+                .andExpect(model().attribute("pageUrl", "/movies/1/reviews"));
 
     }
 
     @Test
     public void getReviewsByUser() throws Exception {
-        when(reviewService.getReviewsByUser(anyLong())).thenReturn(List.of(reviewDto, reviewDto2));
+        when(reviewService.getReviewsByUser(anyLong(), any(), anyInt()))
+                .thenReturn(new ReviewPageDto(List.of(reviewDto, reviewDto2), null));
 
-        mockMvc.perform(get("/users/1/reviews"))
+        mockMvc.perform(get("/users/1/reviews").param("before", "10"))
                 .andExpect(status().isOk())
                 .andExpect(view().name("review/list"))
                 .andExpect(model().attributeExists("reviews"));
 
+        verify(reviewService).getReviewsByUser(1L, 10L, ReviewService.DEFAULT_PAGE_SIZE);
+
     }
 
     @Test
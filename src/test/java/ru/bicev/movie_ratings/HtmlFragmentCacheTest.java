@@ -0,0 +1,105 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import ru.bicev.movie_ratings.config.HtmlFragmentCache;
+import ru.bicev.movie_ratings.dto.MovieDto;
+
+public class HtmlFragmentCacheTest {
+
+    private final HtmlFragmentCache cache = new HtmlFragmentCache(templateEngine(), 100);
+
+    @Test
+    public void renderEach_RendersRowsOncePerVersion() {
+        List<MovieDto> movies = List.of(movie(1L, "First <movie>"), movie(2L, "Second movie"));
+
+        List<String> first = cache.renderEach("movie-rows", "1", "movie/fragments", "row", "movie", movies);
+        List<String> second = cache.renderEach("movie-rows", "1", "movie/fragments", "row", "movie", List.of());
+
+        assertEquals(2, first.size());
+        assertTrue(first.get(0).contains("<td>First &lt;movie&gt;</td>"));
+        assertTrue(first.get(1).contains("<td>Second movie</td>"));
+        assertFalse(first.get(0).contains("th:"));
+        assertSame(first, second);
+        assertEquals(1, cache.getHitCount());
+
+        List<String> third = cache.renderEach("movie-rows", "2", "movie/fragments", "row", "movie",
+                List.of(movie(2L, "Second movie")));
+
+        assertEquals(1, third.size());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void render_RendersDetailsAgainOnlyWhenVersionChanges() {
+        String first = cache.render("movie-details:1", "0.0", "movie/fragments", "details", "movie",
+                movie(1L, "Old title"));
+        String second = cache.render("movie-details:1", "0.0", "movie/fragments", "details", "movie",
+                movie(1L, "New title"));
+        String third = cache.render("movie-details:1", "0.1", "movie/fragments", "details", "movie",
+                movie(1L, "New title"));
+
+        assertTrue(first.contains("Old title"));
+        assertEquals(first, second);
+        assertTrue(third.contains("New title"));
+    }
+
+    @Test
+    public void cached_ReturnsDetailsOnlyForTheirVersion() {
+        String html = cache.render("movie-details:1", "0.0", "movie/fragments", "details", "movie",
+                movie(1L, "Title"));
+
+        assertEquals(html, cache.cached("movie-details:1", "0.0"));
+        assertNull(cache.cached("movie-details:1", "0.1"));
+        assertNull(cache.cached("movie-details:2", "0.0"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void render_WithoutVersion_DoesNotCache() {
+        cache.render("movie-details:1", null, "movie/fragments", "details", "movie", movie(1L, "Title"));
+        String second = cache.render("movie-details:1", null, "movie/fragments", "details", "movie",
+                movie(1L, "Other title"));
+
+        assertTrue(second.contains("Other title"));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void renderAndRenderEach_SameKey_KeepSeparateEntries() {
+        String details = cache.render("movie:1", "1", "movie/fragments", "details", "movie", movie(1L, "Title"));
+        List<String> rows = cache.renderEach("movie:1", "1", "movie/fragments", "row", "movie",
+                List.of(movie(1L, "Title")));
+
+        assertEquals(details, cache.render("movie:1", "1", "movie/fragments", "details", "movie",
+                movie(1L, "Other title")));
+        assertSame(rows, cache.renderEach("movie:1", "1", "movie/fragments", "row", "movie", List.of()));
+        assertEquals(2, cache.getHitCount());
+    }
+
+    private static MovieDto movie(Long id, String title) {
+        MovieDto movie = new MovieDto(title, "Synopsis", "Drama", 2000);
+        movie.setId(id);
+        movie.setRating(4.5);
+        return movie;
+    }
+
+    private static SpringTemplateEngine templateEngine() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        return templateEngine;
+    }
+}
@@ -0,0 +1,242 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.config.ReplicaRoutingDataSource;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.services.CascadeDeleteService;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.MovieService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+
+public class JsonResponseCacheTest {
+
+    private static final HttpHeaders NO_HEADERS = new HttpHeaders();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JsonResponseCache cache = new JsonResponseCache(objectMapper, 100, 1024, 6);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void respond_ServesCachedBytesUntilInvalidated() throws Exception {
+        List<ReviewDto> reviews = List.of(new ReviewDto("Great", 1L, 1L, 5));
+
+        ResponseEntity<byte[]> first = cache.respond(JsonResponseCache.movieReviews(1L), "", NO_HEADERS,
+                () -> load(reviews));
+        ResponseEntity<byte[]> second = cache.respond(JsonResponseCache.movieReviews(1L), "", NO_HEADERS,
+                () -> load(reviews));
+
+        assertEquals(1, loads.get());
+        assertArrayEquals(objectMapper.writeValueAsBytes(reviews), first.getBody());
+        assertArrayEquals(first.getBody(), second.getBody());
+        assertEquals(1, cache.getHitCount());
+
+        cache.invalidate(JsonResponseCache.movieReviews(1L));
+        cache.respond(JsonResponseCache.movieReviews(1L), "", NO_HEADERS, () -> load(reviews));
+        cache.respond(JsonResponseCache.userReviews(1L), "", NO_HEADERS, () -> load(reviews));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void respond_DoesNotStoreBodyLoadedDuringWrite() {
+        String resource = JsonResponseCache.movie(1L);
+
+        cache.respond(resource, "", NO_HEADERS, () -> {
+            cache.invalidate(resource);
+            return load("old");
+        });
+        cache.respond(resource, "", NO_HEADERS, () -> load("new"));
+        cache.respond(resource, "", NO_HEADERS, () -> load("new"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void respond_WriteDuringCoalescedLoad_CachesBodyAfterWrite() throws Exception {
+        CountDownLatch oldLoadStarted = new CountDownLatch(1);
+        CountDownLatch oldLoadReleased = new CountDownLatch(1);
+        MovieRepository movieRepository = mock(MovieRepository.class);
+        when(movieRepository.findById(1L)).thenAnswer(invocation -> {
+            oldLoadStarted.countDown();
+            assertTrue(oldLoadReleased.await(10, TimeUnit.SECONDS));
+            return Optional.of(movie("Before edit"));
+        }).thenReturn(Optional.of(movie("After edit")));
+        MovieService movieService = new MovieService(movieRepository, mock(RatingStoreService.class),
+                mock(CascadeDeleteService.class), mock(CatalogSnapshotService.class), cache);
+        String resource = JsonResponseCache.movie(1L);
+
+        CompletableFuture<ResponseEntity<byte[]>> beforeWrite = CompletableFuture.supplyAsync(
+                () -> cache.respond(resource, "", NO_HEADERS, () -> movieService.findMovieById(1L)));
+        assertTrue(oldLoadStarted.await(10, TimeUnit.SECONDS));
+        // The edit commits while the load started before it is still in flight.
+        cache.invalidate(resource);
+        ResponseEntity<byte[]> afterWrite = cache.respond(resource, "", NO_HEADERS,
+                () -> movieService.findMovieById(1L));
+        oldLoadReleased.countDown();
+        beforeWrite.get(10, TimeUnit.SECONDS);
+        ResponseEntity<byte[]> later = cache.respond(resource, "", NO_HEADERS, () -> movieService.findMovieById(1L));
+
+        assertEquals("After edit", objectMapper.readTree(afterWrite.getBody()).get("title").asText());
+        assertEquals("After edit", objectMapper.readTree(later.getBody()).get("title").asText());
+        assertEquals(0, movieService.getCoalescedMovieLoadCount());
+    }
+
+    @Test
+    public void respond_LoadsOnPrimary() {
+        ResponseEntity<byte[]> response = cache.respond(JsonResponseCache.movie(1L), "", NO_HEADERS,
+                () -> load(ReplicaRoutingDataSource.isPrimaryForced()));
+
+        assertArrayEquals("true".getBytes(), response.getBody());
+        assertFalse(ReplicaRoutingDataSource.isPrimaryForced());
+    }
+
+    @Test
+    public void respond_KeepsVariantsApartAndInvalidatesThemTogether() {
+        String resource = JsonResponseCache.userReviews(1L);
+
+        cache.respond(resource, "before=null&size=20", NO_HEADERS, () -> load("first page"));
+        cache.respond(resource, "before=10&size=20", NO_HEADERS, () -> load("second page"));
+        cache.respond(resource, "before=null&size=20", NO_HEADERS, () -> load("first page"));
+        assertEquals(2, loads.get());
+
+        cache.invalidateAll();
+        cache.respond(resource, "before=10&size=20", NO_HEADERS, () -> load("second page"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void respond_SendsGzipVariantToClientsAcceptingIt() throws Exception {
+        String comment = "A long comment. ".repeat(200);
+
+        ResponseEntity<byte[]> plain = cache.respond(JsonResponseCache.movie(1L), "", NO_HEADERS,
+                () -> load(comment));
+        ResponseEntity<byte[]> gzipped = cache.respond(JsonResponseCache.movie(1L), "",
+                acceptEncoding("br, gzip;q=0.8"), () -> load(comment));
+        ResponseEntity<byte[]> refused = cache.respond(JsonResponseCache.movie(1L), "", acceptEncoding("gzip;q=0"),
+                () -> load(comment));
+
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING), plain.getHeaders().getVary());
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(plain.getBody(), gunzip(gzipped.getBody()));
+        assertArrayEquals(plain.getBody(), refused.getBody());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void respond_PassesLoaderExceptionsOn() {
+        String resource = JsonResponseCache.movie(1L);
+
+        assertThrows(MovieNotFoundException.class, () -> cache.respond(resource, "", NO_HEADERS, () -> {
+            loads.incrementAndGet();
+            throw new MovieNotFoundException("Movie with id: 1 is not found");
+        }));
+        cache.respond(resource, "", NO_HEADERS, () -> load("found"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void respond_WithoutEntries_AlwaysLoads() {
+        JsonResponseCache disabled = new JsonResponseCache(objectMapper, 0, 1024, 6);
+
+        disabled.respond(JsonResponseCache.movie(1L), "", NO_HEADERS, () -> load("movie"));
+        disabled.respond(JsonResponseCache.movie(1L), "", NO_HEADERS, () -> load("movie"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void respond_NegotiatesBinaryFormats() throws Exception {
+        List<ReviewDto> reviews = List.of(new ReviewDto("Great", 1L, 1L, 5));
+        HttpHeaders cbor = new HttpHeaders();
+        cbor.setAccept(MediaType.parseMediaTypes("application/json;q=0.5, application/cbor"));
+        HttpHeaders smile = new HttpHeaders();
+        smile.setAccept(List.of(JsonResponseCache.Format.SMILE.getMediaType()));
+        HttpHeaders any = new HttpHeaders();
+        any.setAccept(List.of(MediaType.ALL));
+
+        ResponseEntity<byte[]> cborResponse = cache.respond(JsonResponseCache.movieReviews(1L), "", cbor,
+                () -> load(reviews));
+        ResponseEntity<byte[]> smileResponse = cache.respond(JsonResponseCache.movieReviews(1L), "", smile,
+                () -> load(reviews));
+        ResponseEntity<byte[]> jsonResponse = cache.respond(JsonResponseCache.movieReviews(1L), "", any,
+                () -> load(reviews));
+
+        assertEquals(MediaType.APPLICATION_CBOR, cborResponse.getHeaders().getContentType());
+        assertEquals(reviews.get(0).getComment(), new CBORMapper()
+                .readValue(cborResponse.getBody(), ReviewDto[].class)[0].getComment());
+        assertEquals(JsonResponseCache.Format.SMILE.getMediaType(), smileResponse.getHeaders().getContentType());
+        assertEquals(reviews.get(0).getComment(), new SmileMapper()
+                .readValue(smileResponse.getBody(), ReviewDto[].class)[0].getComment());
+        assertEquals(MediaType.APPLICATION_JSON, jsonResponse.getHeaders().getContentType());
+        assertArrayEquals(objectMapper.writeValueAsBytes(reviews), jsonResponse.getBody());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void negotiate_FollowsQualityValues() {
+        assertEquals(JsonResponseCache.Format.JSON, JsonResponseCache.Format.negotiate(List.of()));
+        assertEquals(JsonResponseCache.Format.JSON,
+                JsonResponseCache.Format.negotiate(MediaType.parseMediaTypes("text/html, */*;q=0.8")));
+        assertEquals(JsonResponseCache.Format.SMILE, JsonResponseCache.Format
+                .negotiate(MediaType.parseMediaTypes("application/cbor;q=0.5, application/x-jackson-smile")));
+        assertEquals(JsonResponseCache.Format.JSON,
+                JsonResponseCache.Format.negotiate(MediaType.parseMediaTypes("application/cbor;q=0")));
+    }
+
+    private static HttpHeaders acceptEncoding(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, value);
+        return headers;
+    }
+
+    private static Movie movie(String title) {
+        Movie movie = new Movie(title, "Synopsis", "Drama", 2000);
+        movie.setId(1L);
+        return movie;
+    }
+
+    private Object load(Object body) {
+        loads.incrementAndGet();
+        return body;
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return gzip.readAllBytes();
+        }
+    }
+}
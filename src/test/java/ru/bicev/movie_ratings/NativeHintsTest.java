@@ -0,0 +1,41 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import ru.bicev.movie_ratings.config.NativeHints;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
+import ru.bicev.movie_ratings.entitites.Review;
+
+public class NativeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    public void registerHints_CoversDtosEntitiesProjectionsAndTemplates() throws Exception {
+        new NativeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(MovieDto.class.getMethod("getRating")).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(MovieDto.class.getMethod("setTitle", String.class))
+                .test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(ReviewPageDto.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Review.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(MovieSummary.class, TargetAware.class,
+                SpringProxy.class, Advised.class, DecoratingProxy.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ReviewSummary.class, TargetAware.class,
+                SpringProxy.class, Advised.class, DecoratingProxy.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("templates/movie/list.html").test(hints));
+    }
+}
@@ -0,0 +1,158 @@
+package ru.bicev.movie_ratings.NativeTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.bicev.movie_ratings.BenchmarkTest.HttpLoadGenerator;
+
+/**
+ * The application running in its own process on the H2 database of the test
+ * profile, either as the native executable or on the JVM. Starting it waits
+ * for the first successful {@code GET /api/movies} of the admin user.
+ */
+final class AppProcess implements AutoCloseable {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private final Process process;
+    private final int port;
+    private final long startupMillis;
+    private final HttpClient client;
+
+    private AppProcess(Process process, int port, long startupMillis, HttpClient client) {
+        this.process = process;
+        this.port = port;
+        this.startupMillis = startupMillis;
+        this.client = client;
+    }
+
+    /**
+     * Starts the native executable.
+     */
+    static AppProcess nativeExecutable(Path executable) throws Exception {
+        return start(List.of(executable.toString()), "native");
+    }
+
+    /**
+     * Starts the application on the JVM running the tests, from the test
+     * classpath.
+     */
+    static AppProcess jvm() throws Exception {
+        return start(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Dspring.devtools.restart.enabled=false",
+                "-cp", System.getProperty("java.class.path"),
+                "ru.bicev.movie_ratings.MovieRatingsApplication"), "jvm");
+    }
+
+    private static AppProcess start(List<String> launcher, String label) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>(launcher);
+        command.add("--server.port=" + port);
+        command.add("--spring.profiles.active=test");
+        command.add("--spring.datasource.url=jdbc:h2:mem:smoke");
+        // The native executable is built with the Flyway auto-configuration; the schema comes from Hibernate.
+        command.add("--movie-ratings.flyway.migrate-on-startup=false");
+        command.add("--logging.level.root=INFO");
+        command.add("--logging.level.org.springframework=INFO");
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(System.getProperty("java.io.tmpdir"), "smoke-" + label + ".log"))
+                .start();
+        URI movies = URI.create("http://localhost:" + port + "/api/movies");
+        long deadline = started + TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The " + label + " application exited during startup");
+            }
+            HttpClient client = loggedInClient(port, movies);
+            if (client != null) {
+                return new AppProcess(process, port, (System.nanoTime() - started) / 1_000_000, client);
+            }
+            Thread.sleep(10);
+        }
+        process.destroy();
+        throw new IllegalStateException("No successful GET /api/movies within " + TIMEOUT);
+    }
+
+    /**
+     * Returns the time from launching the process to the first successful
+     * {@code GET /api/movies}.
+     */
+    long startupMillis() {
+        return startupMillis;
+    }
+
+    /**
+     * Returns the resident set size of the process, read from
+     * {@code /proc}, or -1 where it is not available.
+     */
+    long residentKilobytes() throws IOException {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst()
+                .orElse(-1);
+    }
+
+    /**
+     * Returns the client logged in as the admin user.
+     */
+    HttpClient client() {
+        return client;
+    }
+
+    /**
+     * Returns the URI of the path on the application.
+     */
+    URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    /**
+     * Sends a GET request as the admin user.
+     */
+    HttpResponse<String> get(String path, String accept) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).header("Accept", accept).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        process.waitFor();
+    }
+
+    private static HttpClient loggedInClient(int port, URI movies) throws InterruptedException {
+        try {
+            HttpClient client = HttpLoadGenerator.loggedInClient(port, "admin@example.com", "admin_password");
+            HttpResponse<Void> response = client.send(HttpRequest.newBuilder(movies).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            return response.statusCode() == 200 ? client : null;
+        } catch (IOException | IllegalStateException e) {
+            // Not listening yet, or the admin user is not created yet.
+            return null;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
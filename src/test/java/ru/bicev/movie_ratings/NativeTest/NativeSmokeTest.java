@@ -0,0 +1,138 @@
+package ru.bicev.movie_ratings.NativeTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+/**
+ * Smoke tests of the native executable, run on the H2 database of the test
+ * profile. They go through the paths that depend on the native hints: the
+ * Thymeleaf pages, form binding, the entities, the projections and the JSON
+ * and CBOR bodies. Also compares the startup time and the memory footprint
+ * with the application running on the JVM.
+ * <p>
+ * Build the executable with {@code ./mvnw -Pnative -DskipTests native:compile},
+ * then run with {@code ./mvnw test -Pnative-smoke}. Another executable can be
+ * given with {@code -Dnative.executable=<path>}.
+ * </p>
+ */
+@Tag("native")
+public class NativeSmokeTest {
+
+    private static final Pattern CSRF_INPUT = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private static AppProcess app;
+
+    @BeforeAll
+    public static void startExecutable() throws Exception {
+        Path executable = Path.of(System.getProperty("native.executable", "target/movie-ratings"));
+        assertTrue(Files.isExecutable(executable),
+                executable + " not found, build it with ./mvnw -Pnative -DskipTests native:compile");
+        app = AppProcess.nativeExecutable(executable);
+    }
+
+    @AfterAll
+    public static void stopExecutable() throws Exception {
+        if (app != null) {
+            app.close();
+        }
+    }
+
+    @Test
+    public void movieList_RendersTemplate() throws Exception {
+        HttpResponse<String> response = app.get("/movies", "text/html");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("<h1>Movie List</h1>"));
+    }
+
+    @Test
+    public void createMovie_ThroughForm_IsListedAndViewable() throws Exception {
+        String title = "Native smoke " + System.nanoTime();
+        String form = "title=" + encode(title) + "&genre=Drama&releaseYear=2001"
+                + "&synopsis=" + encode("Built ahead of time")
+                + "&_csrf=" + encode(csrfToken("/movies/create"));
+
+        HttpResponse<Void> created = app.client().send(HttpRequest.newBuilder(app.uri("/movies/create"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        assertEquals(302, created.statusCode());
+
+        JsonNode movie = awaitListed(title);
+        HttpResponse<String> view = app.get("/movies/" + movie.get("id").asLong(), "text/html");
+
+        assertEquals(200, view.statusCode());
+        assertTrue(view.body().contains(title));
+        assertTrue(view.body().contains("Built ahead of time"));
+    }
+
+    @Test
+    public void getMovies_InCbor() throws Exception {
+        HttpResponse<byte[]> response = app.client().send(HttpRequest.newBuilder(app.uri("/api/movies"))
+                .header("Accept", "application/cbor")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("application/cbor", response.headers().firstValue("Content-Type").orElse(""));
+        assertTrue(new CBORMapper().readTree(response.body()).isArray());
+    }
+
+    @Test
+    public void compareWithJvm() throws Exception {
+        try (AppProcess jvm = AppProcess.jvm()) {
+            for (AppProcess process : new AppProcess[] { app, jvm }) {
+                for (int i = 0; i < 20; i++) {
+                    assertEquals(200, process.get("/api/movies", "application/json").statusCode());
+                    assertEquals(200, process.get("/movies", "text/html").statusCode());
+                }
+            }
+            System.out.println("Native executable vs JVM, time to first GET /api/movies and resident memory");
+            System.out.printf("%-8s startup=%6d ms rss=%8d kB%n", "native", app.startupMillis(),
+                    app.residentKilobytes());
+            System.out.printf("%-8s startup=%6d ms rss=%8d kB%n", "jvm", jvm.startupMillis(),
+                    jvm.residentKilobytes());
+        }
+    }
+
+    private static String csrfToken(String path) throws Exception {
+        Matcher csrf = CSRF_INPUT.matcher(app.get(path, "text/html").body());
+        assertTrue(csrf.find(), "CSRF token not found on " + path);
+        return csrf.group(1);
+    }
+
+    private static JsonNode awaitListed(String title) throws Exception {
+        // The catalog snapshot is rebuilt in the background after the write.
+        for (int attempt = 0; attempt < 50; attempt++) {
+            for (JsonNode movie : new ObjectMapper().readTree(app.get("/api/movies", "application/json").body())) {
+                if (title.equals(movie.get("title").asText())) {
+                    return movie;
+                }
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError(title + " is not listed by GET /api/movies");
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
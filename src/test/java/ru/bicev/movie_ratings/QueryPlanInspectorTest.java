@@ -0,0 +1,73 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import ru.bicev.movie_ratings.config.QueryPlanInspector;
+
+public class QueryPlanInspectorTest {
+
+    private static final String ROW_ESTIMATE_SQL = "SELECT COALESCE(MAX(reltuples), 0)::bigint FROM pg_class WHERE relname = ?";
+
+    private JdbcTemplate jdbcTemplate;
+    private QueryPlanInspector inspector;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        inspector = new QueryPlanInspector(jdbcTemplate, true, 10_000);
+        when(jdbcTemplate.queryForList(startsWith("EXPLAIN"), eq(String.class)))
+                .thenReturn(List.of("Index Scan using idx_x on x  (cost=0.29..8.31 rows=1 width=48)"));
+    }
+
+    @Test
+    public void inspect_ReportsSequentialScanOnLargeTable() {
+        when(jdbcTemplate.queryForObject(ROW_ESTIMATE_SQL, Long.class, "movie")).thenReturn(50_000L);
+        when(jdbcTemplate.queryForObject(ROW_ESTIMATE_SQL, Long.class, "users")).thenReturn(10L);
+        when(jdbcTemplate.queryForObject(ROW_ESTIMATE_SQL, Long.class, "review")).thenReturn(10L);
+        when(jdbcTemplate.queryForList("EXPLAIN SELECT * FROM movie WHERE title = '' AND deleted = FALSE", String.class))
+                .thenReturn(List.of("Seq Scan on movie  (cost=0.00..1043.00 rows=1 width=64)",
+                        "  Filter: ((title)::text = ''::text)"));
+
+        List<String> warnings = inspector.inspect();
+
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0).startsWith("MovieRepository.findByTitle does a sequential scan on movie"));
+    }
+
+    @Test
+    public void inspect_IgnoresSmallTablesAndIndexScans() {
+        when(jdbcTemplate.queryForObject(ROW_ESTIMATE_SQL, Long.class, "movie")).thenReturn(50_000L);
+        when(jdbcTemplate.queryForObject(ROW_ESTIMATE_SQL, Long.class, "users")).thenReturn(50_000L);
+        when(jdbcTemplate.queryForObject(ROW_ESTIMATE_SQL, Long.class, "review")).thenReturn(100L);
+
+        List<String> warnings = inspector.inspect();
+
+        assertTrue(warnings.isEmpty());
+        verify(jdbcTemplate, never()).queryForList(
+                eq("EXPLAIN SELECT id, comment, rating, movie_id, user_id FROM review WHERE movie_id = 0 AND deleted = FALSE ORDER BY id"),
+                eq(String.class));
+    }
+
+    @Test
+    public void inspect_DoesNotConfuseTablesWithSharedPrefix() {
+        when(jdbcTemplate.queryForObject(eq(ROW_ESTIMATE_SQL), eq(Long.class), anyString())).thenReturn(50_000L);
+        when(jdbcTemplate.queryForList("EXPLAIN SELECT * FROM users WHERE email = '' AND deleted = FALSE", String.class))
+                .thenReturn(List.of("Seq Scan on users_archive  (cost=0.00..1043.00 rows=1 width=64)"));
+
+        assertTrue(inspector.inspect().isEmpty());
+    }
+}
@@ -0,0 +1,227 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ru.bicev.movie_ratings.dto.RatingBucket;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.entitites.Review;
+import ru.bicev.movie_ratings.entitites.User;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.utils.Role;
+
+@DataJpaTest(excludeAutoConfiguration = SecurityAutoConfiguration.class)
+@ActiveProfiles("test")
+// Without a test transaction the recorded changes apply immediately.
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RatingAggregateServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    private RatingAggregateService ratingAggregateService;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate.update("DELETE FROM review");
+        jdbcTemplate.update("DELETE FROM movie");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM movie_rating_aggregate");
+        jdbcTemplate.update("DELETE FROM movie_rating_delta");
+
+        ratingAggregateService = service();
+    }
+
+    @Test
+    public void flush_CombinesDeltasPerMovieAndRating() {
+        ratingAggregateService.recordChange(1L, 0, 4);
+        ratingAggregateService.recordChange(1L, 0, 2);
+        ratingAggregateService.recordChange(1L, 4, 5);
+        ratingAggregateService.recordChange(2L, 0, 3);
+        ratingAggregateService.recordChange(3L, 0, 1);
+
+        assertEquals(6, deltaCount());
+        assertEquals(3, ratingAggregateService.flush());
+        assertEquals(0, deltaCount());
+        assertHistogram(1L, Map.of(2, 1L, 5, 1L));
+        assertHistogram(2L, Map.of(3, 1L));
+
+        ratingAggregateService.recordChange(1L, 2, 0);
+        ratingAggregateService.recordChange(2L, 3, 3);
+
+        assertEquals(1, ratingAggregateService.flush());
+        assertEquals(0, ratingAggregateService.flush());
+        assertHistogram(1L, Map.of(5, 1L));
+        assertHistogram(2L, Map.of(3, 1L));
+        assertEquals(4, ratingAggregateService.getFlushedMovieCount());
+        assertEquals(7, ratingAggregateService.getFlushedDeltaCount());
+    }
+
+    @Test
+    public void findRatingBuckets_IncludesDeltasNotYetFlushed() {
+        ratingAggregateService.recordChange(1L, 0, 4);
+        ratingAggregateService.recordChange(1L, 0, 2);
+        ratingAggregateService.flush();
+        ratingAggregateService.recordChange(1L, 4, 0);
+        ratingAggregateService.recordChange(2L, 0, 3);
+
+        assertHistogram(1L, Map.of(2, 1L));
+        assertHistogram(2L, Map.of(3, 1L));
+    }
+
+    @Test
+    public void recordMovieDeleted_RemovesAggregateOnFlush() {
+        ratingAggregateService.recordChange(1L, 0, 4);
+        ratingAggregateService.recordChange(2L, 0, 3);
+        ratingAggregateService.flush();
+
+        ratingAggregateService.recordChange(1L, 0, 5);
+        ratingAggregateService.recordMovieDeleted(1L);
+        ratingAggregateService.flush();
+
+        assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT movie_id FROM movie_rating_aggregate", Long.class));
+    }
+
+    @Test
+    public void concurrentChanges_AreNotLost() throws Exception {
+        int threads = 8;
+        int changesPerThread = 1_000;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (writing.get()) {
+                ratingAggregateService.flush();
+            }
+        });
+        flusher.start();
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < changesPerThread; i++) {
+                    ratingAggregateService.recordChange(1 + i % 10, 0, 3);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        writing.set(false);
+        flusher.join();
+        ratingAggregateService.flush();
+
+        long total = (long) threads * changesPerThread;
+        assertEquals(total, jdbcTemplate.queryForObject("SELECT SUM(review_count) FROM movie_rating_aggregate",
+                Long.class));
+        assertEquals(3 * total, jdbcTemplate.queryForObject(
+                "SELECT SUM(rating * review_count) FROM movie_rating_aggregate", Long.class));
+    }
+
+    @Test
+    public void recordChange_InTransaction_WritesCombinedDeltasOnCommitOnly() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            ratingAggregateService.recordChange(1L, 0, 4);
+            ratingAggregateService.recordChange(1L, 0, 2);
+            ratingAggregateService.recordChange(2L, 0, 3);
+            assertEquals(0, deltaCount());
+        });
+        transaction.executeWithoutResult(status -> {
+            ratingAggregateService.recordChange(1L, 0, 5);
+            status.setRollbackOnly();
+        });
+
+        assertEquals(3, deltaCount());
+        ratingAggregateService.flush();
+        assertHistogram(1L, Map.of(4, 1L, 2, 1L));
+        assertHistogram(2L, Map.of(3, 1L));
+    }
+
+    @Test
+    public void flush_DeltasOfAnotherProcessAreNotLost() {
+        // Written by a process that died before flushing them.
+        ratingAggregateService.recordChange(1L, 0, 4);
+
+        RatingAggregateService restarted = service();
+
+        assertEquals(1, restarted.flush());
+        assertHistogram(1L, Map.of(4, 1L));
+    }
+
+    @Test
+    public void rebuild_ReplacesAggregatesAndDeltasWithReviews() {
+        User user = userRepository.save(new User("john.doe@example.com", "John", "password", Role.USER));
+        User other = userRepository.save(new User("jane.doe@example.com", "Jane", "password", Role.USER));
+        Movie movie = movieRepository.save(new Movie("Brazil", "Antiutopia by Terry Gilliam", "Drama", 1985));
+        reviewRepository.save(new Review("Great", user, movie, 5));
+        reviewRepository.save(new Review("Good", other, movie, 4));
+        ratingAggregateService.recordChange(movie.getId(), 0, 5);
+        ratingAggregateService.flush();
+        ratingAggregateService.recordChange(movie.getId(), 0, 4);
+
+        ratingAggregateService.rebuild();
+
+        assertHistogram(movie.getId(), Map.of(5, 1L, 4, 1L));
+        assertEquals(0, deltaCount());
+    }
+
+    private RatingAggregateService service() {
+        return new RatingAggregateService(jdbcTemplate, transactionManager, 2);
+    }
+
+    private long deltaCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movie_rating_delta", Long.class);
+    }
+
+    private void assertHistogram(long movieId, Map<Integer, Long> histogram) {
+        Map<Integer, Long> found = new HashMap<>();
+        for (RatingBucket bucket : ratingAggregateService.findRatingBuckets()) {
+            if (bucket.getMovieId() == movieId) {
+                found.put(bucket.getRating(), bucket.getReviewCount());
+            }
+        }
+        assertEquals(histogram, found);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import ru.bicev.movie_ratings.utils.RatingStore;
+
+public class RatingStoreTest {
+
+    @Test
+    public void change_AddsRemovesAndReplacesRatings() {
+        RatingStore store = new RatingStore(4, 16);
+
+        store.change(7L, 0, 4);
+        store.change(7L, 0, 2);
+        store.change(7L, 2, 5);
+
+        assertEquals(2, store.getReviewCount(7L));
+        assertEquals(4.5, store.getAverageRating(7L));
+        assertEquals(1, store.getRatingCount(7L, 4));
+        assertEquals(0, store.getRatingCount(7L, 2));
+        assertEquals(1, store.getRatingCount(7L, 5));
+
+        store.change(7L, 4, 0);
+        store.change(7L, 5, 0);
+
+        assertEquals(0, store.getReviewCount(7L));
+        assertEquals(0.0, store.getAverageRating(7L));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void read_UnknownMovie_IsEmpty() {
+        RatingStore store = new RatingStore(4, 16);
+
+        assertEquals(0.0, store.getAverageRating(42L));
+        assertEquals(0, store.getReviewCount(42L));
+        assertEquals(0, store.getRatingCount(42L, 3));
+        assertEquals(0, store.getRatingCount(42L, 9));
+    }
+
+    @Test
+    public void change_RejectsInvalidInput() {
+        RatingStore store = new RatingStore(4, 16);
+
+        assertThrows(IllegalArgumentException.class, () -> store.change(0L, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> store.change(1L, 0, 6));
+        assertThrows(IllegalArgumentException.class, () -> store.add(1L, 0, 2));
+    }
+
+    @Test
+    public void growsAndRemovesMoviesAcrossProbeRuns() {
+        // One small segment, so that removals shift back long probe runs.
+        RatingStore store = new RatingStore(1, 1);
+        int movies = 5_000;
+        for (long id = 1; id <= movies; id++) {
+            store.add(id, (int) (id % 5) + 1, (int) id);
+        }
+        for (long id = 1; id <= movies; id += 2) {
+            assertTrue(store.removeMovie(id));
+        }
+
+        assertEquals(movies / 2, store.size());
+        assertFalse(store.removeMovie(1L));
+        for (long id = 1; id <= movies; id++) {
+            int expected = id % 2 == 0 ? (int) id : 0;
+            assertEquals(expected, store.getReviewCount(id), "movie " + id);
+            assertEquals(expected == 0 ? 0.0 : id % 5 + 1, store.getAverageRating(id), "movie " + id);
+        }
+    }
+
+    @Test
+    public void concurrentChanges_AreNotLost() throws Exception {
+        RatingStore store = new RatingStore(8, 16);
+        int threads = 8;
+        int changesPerThread = 20_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < changesPerThread; i++) {
+                    store.change(1 + i % 100, 0, 3);
+                }
+            });
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        long total = 0;
+        for (long id = 1; id <= 100; id++) {
+            total += store.getReviewCount(id);
+            assertEquals(3.0, store.getAverageRating(id));
+        }
+        assertEquals((long) threads * changesPerThread, total);
+    }
+}
@@ -0,0 +1,150 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.config.ReplicaRoutingDataSource;
+import ru.bicev.movie_ratings.config.ReplicaRoutingDataSource.Selection;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.services.ReviewGroupCommitService;
+import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.services.ReviewService.WriteResult;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final ReadYourWritesWindow readYourWritesWindow = new ReadYourWritesWindow(60_000);
+    private ReplicaRoutingDataSource routingDataSource;
+    private List<HikariDataSource> replicas;
+    private HikariDataSource primary;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    private void setUp(Selection selection) {
+        primary = database("primary");
+        replicas = List.of(database("replica-0"), database("replica-1"));
+        routingDataSource = new ReplicaRoutingDataSource(primary, replicas, selection, readYourWritesWindow);
+        routingDataSource.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        if (routingDataSource != null) {
+            routingDataSource.close();
+            primary.close();
+        }
+    }
+
+    @Test
+    public void readOnlyTransactions_GoToReplicasInTurn() {
+        setUp(Selection.ROUND_ROBIN);
+
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+        assertEquals("replica-1", readOnly.execute(status -> currentDatabase()));
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    public void writesAndStatementsOutsideTransactions_GoToPrimary() {
+        setUp(Selection.ROUND_ROBIN);
+
+        assertEquals("primary", readWrite.execute(status -> currentDatabase()));
+        assertEquals("primary", currentDatabase());
+    }
+
+    @Test
+    public void readsOfUserWhoJustWrote_GoToPrimary() {
+        setUp(Selection.ROUND_ROBIN);
+        readYourWritesWindow.recordWrite("john.doe@example.com");
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("john.doe@example.com", null, List.of()));
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("jane.doe@example.com", null, List.of()));
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    public void readsOfUserWhoJustWroteThroughGroupCommit_GoToPrimary() {
+        setUp(Selection.ROUND_ROBIN);
+        ReviewService reviewService = mock(ReviewService.class);
+        ReviewDto review = new ReviewDto("Comment", 1L, 1L, 4);
+        when(reviewService.createReviews(anyList())).thenReturn(List.of(new WriteResult(review, null)));
+        ReviewGroupCommitService groupCommit = new ReviewGroupCommitService(reviewService, readYourWritesWindow,
+                true, 10, 10000, 3);
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("john.doe@example.com", null, List.of()));
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+        groupCommit.createReview(review);
+        assertEquals("primary", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    public void readOnlyTransactionsOnPrimary_GoToPrimary() {
+        setUp(Selection.ROUND_ROBIN);
+
+        assertEquals("primary", ReplicaRoutingDataSource.onPrimary(
+                () -> readOnly.execute(status -> currentDatabase())));
+        assertEquals("replica-0", readOnly.execute(status -> currentDatabase()));
+    }
+
+    @Test
+    public void leastLoaded_AvoidsBusyReplica() throws Exception {
+        setUp(Selection.LEAST_LOADED);
+
+        try (Connection busy = replicas.get(0).getConnection()) {
+            assertEquals("replica-1", readOnly.execute(status -> currentDatabase()));
+            assertEquals("replica-1", readOnly.execute(status -> currentDatabase()));
+        }
+    }
+
+    @Test
+    public void selection_ParsesPropertyValues() {
+        assertEquals(Selection.ROUND_ROBIN, Selection.of("round-robin"));
+        assertEquals(Selection.LEAST_LOADED, Selection.of(" least-loaded"));
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static HikariDataSource database(String name) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPoolName(name);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE marker (name VARCHAR(20))");
+        jdbcTemplate.update("INSERT INTO marker VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -4,15 +4,21 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.test.context.ActiveProfiles;
 
 import jakarta.transaction.Transactional;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewRating;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 import ru.bicev.movie_ratings.entitites.Review;
 import ru.bicev.movie_ratings.entitites.User;
@@ -67,28 +73,6 @@ public class RepositoryTest {
         assertEquals(0.0, foundMovie.getRating());
     }
 
-    @Transactional
-    @Test
-    public void testAverageRatingCalculation() {
-        Movie savedMovie = movieRepository.save(MOVIE);
-        User savedUser = userRepository.save(USER);
-
-        Review review1 = new Review("Great movie!", savedUser, savedMovie, 5);
-        Review review2 = new Review("Not bad", savedUser, savedMovie, 3);
-        Review review3 = new Review("Could be better", savedUser, savedMovie, 2);
-
-        reviewRepository.save(review1);
-        reviewRepository.save(review2);
-        reviewRepository.save(review3);
-
-        Double averageRating = reviewRepository.findAverageRatingByMovieId(savedMovie.getId());
-        savedMovie.setRating(averageRating);
-        movieRepository.save(savedMovie);
-
-        Movie foundMovie = movieRepository.findById(savedMovie.getId()).get();
-        assertEquals(3.33, foundMovie.getRating(), 0.01);
-    }
-
     @Transactional
     @Test
     public void testDeleteMovie() {
@@ -180,4 +164,177 @@ public class RepositoryTest {
         assertEquals(Optional.empty(), reviewRepository.findById(savedReview.getId()));
     }
 
+    @Transactional
+    @Test
+    public void testUpsertReviewUpdatesExistingReview() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        User savedUser = userRepository.save(USER);
+
+        Long createdId = reviewRepository.upsertReview(savedUser.getId(), savedMovie.getId(), 2, "First take").get();
+        Long updatedId = reviewRepository.upsertReview(savedUser.getId(), savedMovie.getId(), 5, "Second take").get();
+
+        assertEquals(createdId, updatedId);
+        Review foundReview = reviewRepository.findByUserIdAndMovieId(savedUser.getId(), savedMovie.getId()).get();
+        assertEquals(5, foundReview.getRating());
+        assertEquals("Second take", foundReview.getComment());
+        assertEquals(1, reviewRepository.findByMovieId(savedMovie.getId()).size());
+    }
+
+    @Transactional
+    @Test
+    public void testLockByIdInLocksExistingUsers() {
+        User savedUser = userRepository.save(USER);
+        User otherUser = userRepository.save(new User("Jane.Doe@example.com", "User456", "password", Role.USER));
+
+        assertEquals(List.of(savedUser.getId(), otherUser.getId()),
+                userRepository.lockByIdIn(List.of(otherUser.getId(), Long.MAX_VALUE, savedUser.getId())));
+    }
+
+    @Transactional
+    @Test
+    public void testUpsertReviewsWritesBatch() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        Movie otherMovie = movieRepository.save(new Movie("Alien", "Synopsis", "Horror", 1979));
+        User savedUser = userRepository.save(USER);
+
+        int[] written = reviewRepository.upsertReviews(List.of(
+                new ReviewDto("First take", savedUser.getId(), savedMovie.getId(), 2),
+                new ReviewDto("Unknown movie", savedUser.getId(), Long.MAX_VALUE, 3),
+                new ReviewDto("Other movie", savedUser.getId(), otherMovie.getId(), 4),
+                new ReviewDto("Second take", savedUser.getId(), savedMovie.getId(), 5)));
+
+        assertEquals(0, written[1]);
+        assertTrue(written[0] != 0 && written[2] != 0 && written[3] != 0);
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByUserIdInAndMovieIdIn(
+                List.of(savedUser.getId()), List.of(savedMovie.getId(), otherMovie.getId()));
+        assertEquals(2, reviews.size());
+        Review foundReview = reviewRepository.findByUserIdAndMovieId(savedUser.getId(), savedMovie.getId()).get();
+        assertEquals(5, foundReview.getRating());
+        assertEquals("Second take", foundReview.getComment());
+    }
+
+    @Transactional
+    @Test
+    public void testUpsertReviewRejectsUnknownMovie() {
+        User savedUser = userRepository.save(USER);
+
+        assertTrue(reviewRepository.upsertReview(savedUser.getId(), Long.MAX_VALUE, 4, "Test comment").isEmpty());
+    }
+
+    @Transactional
+    @Test
+    public void testUpsertReviewRejectsDeletedMovieAndRestoresDeletedReview() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        Movie deletedMovie = movieRepository.save(new Movie("Deleted", "Synopsis", "Drama", 1990));
+        User savedUser = userRepository.save(USER);
+        Long reviewId = reviewRepository.upsertReview(savedUser.getId(), savedMovie.getId(), 2, "First take").get();
+        reviewRepository.bulkDeleteByMovieId(savedMovie.getId());
+        movieRepository.bulkDeleteById(deletedMovie.getId());
+
+        assertTrue(reviewRepository.findById(reviewId).isEmpty());
+        assertTrue(reviewRepository.upsertReview(savedUser.getId(), deletedMovie.getId(), 4, "Comment").isEmpty());
+        assertEquals(reviewId,
+                reviewRepository.upsertReview(savedUser.getId(), savedMovie.getId(), 5, "Second take").get());
+        assertEquals(5, reviewRepository.findById(reviewId).get().getRating());
+    }
+
+    @Transactional
+    @Test
+    public void testSoftDeletedRowsAreHiddenUntilPurged() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        User savedUser = userRepository.save(USER);
+        User otherUser = userRepository.save(new User("Jane.Doe@example.com", "User456", "password", Role.USER));
+        reviewRepository.save(new Review("Test comment", savedUser, savedMovie, 4));
+        reviewRepository.save(new Review("Other comment", otherUser, savedMovie, 2));
+
+        assertEquals(1, movieRepository.bulkDeleteById(savedMovie.getId()));
+        assertEquals(1, userRepository.bulkDeleteById(savedUser.getId()));
+
+        assertTrue(movieRepository.findByTitle(MOVIE.getTitle()).isEmpty());
+        assertTrue(userRepository.findByEmail(USER.getEmail()).isEmpty());
+        assertEquals(1, movieRepository.countDeleted());
+        assertEquals(1, userRepository.countDeleted());
+
+        assertEquals(0, movieRepository.purgeDeletedChunk(10));
+        assertEquals(0, reviewRepository.purgeDeletedChunk(10));
+        assertEquals(2, reviewRepository.purgeChunkOfDeletedMovies(10));
+        assertEquals(1, movieRepository.purgeDeletedChunk(10));
+        assertEquals(1, userRepository.purgeDeletedChunk(10));
+        assertEquals(0, movieRepository.countDeleted());
+        assertEquals(0, userRepository.countDeleted());
+    }
+
+    @Transactional
+    @Test
+    public void testDeleteChunkByMovieIdDeletesAtMostLimit() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        for (int i = 0; i < 5; i++) {
+            User reviewer = userRepository.save(new User("user" + i + "@example.com", "user" + i, "password", Role.USER));
+            reviewRepository.save(new Review("Comment " + i, reviewer, savedMovie, 3));
+        }
+
+        assertEquals(2, reviewRepository.deleteChunkByMovieId(savedMovie.getId(), 2));
+        assertEquals(3, reviewRepository.countByMovieId(savedMovie.getId()));
+        assertEquals(3, reviewRepository.bulkDeleteByMovieId(savedMovie.getId()));
+        assertEquals(1, movieRepository.bulkDeleteById(savedMovie.getId()));
+        assertEquals(0, reviewRepository.countByMovieId(savedMovie.getId()));
+    }
+
+    @Transactional
+    @Test
+    public void testBulkDeleteUserWithReviews() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        User savedUser = userRepository.save(USER);
+        reviewRepository.save(new Review("Test comment", savedUser, savedMovie, 4));
+
+        assertEquals(1, reviewRepository.bulkDeleteByUserId(savedUser.getId()));
+        assertEquals(1, userRepository.bulkDeleteById(savedUser.getId()));
+        assertTrue(userRepository.findByEmail(USER.getEmail()).isEmpty());
+    }
+
+    @Transactional
+    @Test
+    public void testDeleteUserReviewsInChunksWithTheirRatings() {
+        User savedUser = userRepository.save(USER);
+        List<Long> movieIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Movie movie = movieRepository.save(new Movie("Movie " + i, "Synopsis", "Drama", 2000 + i));
+            reviewRepository.save(new Review("Comment " + i, savedUser, movie, i + 1));
+            movieIds.add(movie.getId());
+        }
+
+        List<ReviewRating> chunk = reviewRepository.findRatingsByUserId(savedUser.getId(), Limit.of(2));
+
+        assertEquals(movieIds.subList(0, 2), chunk.stream().map(ReviewRating::getMovieId).toList());
+        assertEquals(List.of(1, 2), chunk.stream().map(ReviewRating::getRating).toList());
+        assertEquals(2, reviewRepository.bulkDeleteByIdIn(chunk.stream().map(ReviewRating::getId).toList()));
+        List<ReviewRating> rest = reviewRepository.findRatingsByUserId(savedUser.getId(), Limit.unlimited());
+        assertEquals(List.of(movieIds.get(2)), rest.stream().map(ReviewRating::getMovieId).toList());
+        assertEquals(1, reviewRepository.countByUserId(savedUser.getId()));
+    }
+
+    @Transactional
+    @Test
+    public void testReviewSummariesByMovieInKeysetPages() {
+        Movie savedMovie = movieRepository.save(MOVIE);
+        List<Long> reviewIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            User user = userRepository.save(new User("user" + i + "@example.com", "user" + i, "password", Role.USER));
+            reviewIds.add(reviewRepository.save(new Review("Comment " + i, user, savedMovie, i + 1)).getId());
+        }
+
+        List<ReviewSummary> firstPage = reviewRepository.findSummariesByMovieIdBefore(savedMovie.getId(),
+                Long.MAX_VALUE, Limit.of(2));
+        List<ReviewSummary> secondPage = reviewRepository.findSummariesByMovieIdBefore(savedMovie.getId(),
+                firstPage.get(1).getId(), Limit.of(2));
+
+        assertEquals(List.of(reviewIds.get(2), reviewIds.get(1)), firstPage.stream().map(ReviewSummary::getId).toList());
+        assertEquals(List.of(reviewIds.get(0)), secondPage.stream().map(ReviewSummary::getId).toList());
+        assertEquals("Comment 2", firstPage.get(0).getComment());
+        assertEquals(3, firstPage.get(0).getRating());
+        assertEquals(savedMovie.getId(), firstPage.get(0).getMovieId());
+        assertNotNull(firstPage.get(0).getUserId());
+        assertEquals(3, reviewRepository.findSummariesByMovieId(savedMovie.getId()).size());
+    }
+
 }
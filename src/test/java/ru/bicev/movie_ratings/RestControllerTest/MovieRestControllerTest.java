@@ -9,8 +9,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
@@ -18,6 +22,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -26,13 +31,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import ru.bicev.movie_ratings.TestSecurityConfig;
 import ru.bicev.movie_ratings.api.MovieRestController;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.dto.MovieDto;
 import ru.bicev.movie_ratings.exceptions.DuplicateMovieException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
 import ru.bicev.movie_ratings.services.MovieService;
 
 @WebMvcTest(MovieRestController.class)
-@Import(TestSecurityConfig.class)
+@Import({ TestSecurityConfig.class, JsonResponseCache.class })
 public class MovieRestControllerTest {
 
         @Autowired
@@ -41,9 +48,16 @@ public class MovieRestControllerTest {
         @MockBean
         private MovieService movieService;
 
+        @MockBean
+        private CatalogSnapshotService catalogSnapshotService;
+
+        @Autowired
+        private JsonResponseCache jsonResponseCache;
+
         @BeforeEach
         public void setUp() {
                 MockitoAnnotations.openMocks(this);
+                jsonResponseCache.invalidateAll();
                 movieDto.setId(1L);
         }
 
@@ -164,4 +178,67 @@ public class MovieRestControllerTest {
                                 .andExpect(content().string("404 Not found: Movie not found"));
         }
 
+        @Test
+        public void getAllMovies_ShouldReturnSnapshot() throws Exception {
+                List<MovieDto> movies = List.of(movieDto);
+                byte[] json = objectMapper.writeValueAsBytes(movies);
+                when(catalogSnapshotService.getSnapshot())
+                                .thenReturn(new CatalogSnapshotService.Snapshot(1, Instant.now(), movies, json, "\"v1\"", null));
+
+                mockMvc.perform(get("/api/movies"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
+                                .andExpect(content().json(objectMapper.writeValueAsString(movies)));
+        }
+
+        @Test
+        public void getAllMovies_ShouldReturnNotModified() throws Exception {
+                List<MovieDto> movies = List.of(movieDto);
+                byte[] json = objectMapper.writeValueAsBytes(movies);
+                when(catalogSnapshotService.getSnapshot())
+                                .thenReturn(new CatalogSnapshotService.Snapshot(1, Instant.now(), movies, json, "\"v1\"", null));
+
+                mockMvc.perform(get("/api/movies").header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                                .andExpect(status().isNotModified())
+                                .andExpect(content().string(""));
+        }
+
+        @Test
+        public void getAllMovies_AcceptingGzip_ShouldReturnPrecompressedSnapshot() throws Exception {
+                List<MovieDto> movies = List.of(movieDto);
+                byte[] json = objectMapper.writeValueAsBytes(movies);
+                byte[] gzip = { 31, -117, 8, 0 };
+                when(catalogSnapshotService.getSnapshot())
+                                .thenReturn(new CatalogSnapshotService.Snapshot(1, Instant.now(), movies, json, "\"v1\"", gzip));
+
+                mockMvc.perform(get("/api/movies").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                                .andExpect(header().string(HttpHeaders.ETAG, "W/\"v1\""))
+                                .andExpect(content().bytes(gzip));
+
+                mockMvc.perform(get("/api/movies"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
+                                .andExpect(content().bytes(json));
+        }
+
+        @Test
+        public void getAllMovies_AcceptingGzip_ShouldReturnNotModifiedForEitherTag() throws Exception {
+                List<MovieDto> movies = List.of(movieDto);
+                byte[] json = objectMapper.writeValueAsBytes(movies);
+                when(catalogSnapshotService.getSnapshot())
+                                .thenReturn(new CatalogSnapshotService.Snapshot(1, Instant.now(), movies, json, "\"v1\"",
+                                                new byte[] { 31, -117, 8, 0 }));
+
+                mockMvc.perform(get("/api/movies").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                                .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                                .andExpect(status().isNotModified());
+                mockMvc.perform(get("/api/movies").header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                                .header(HttpHeaders.IF_NONE_MATCH, "W/\"v1\""))
+                                .andExpect(status().isNotModified());
+        }
+
 }
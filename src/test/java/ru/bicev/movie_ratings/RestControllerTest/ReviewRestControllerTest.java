@@ -3,14 +3,20 @@ package ru.bicev.movie_ratings.RestControllerTest;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 
@@ -24,6 +30,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -31,16 +38,24 @@ import ru.bicev.movie_ratings.TestSecurityConfig;
 import ru.bicev.movie_ratings.api.ReviewRestController;
 import ru.bicev.movie_ratings.api.UserReviewRestController;
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
 import ru.bicev.movie_ratings.dto.UserDto;
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.exceptions.IllegalAccessException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
 import ru.bicev.movie_ratings.exceptions.ReviewNotFoundException;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
 import ru.bicev.movie_ratings.exceptions.UserNotFoundException;
+import reactor.core.publisher.Flux;
+import ru.bicev.movie_ratings.services.ReactiveReadService;
+import ru.bicev.movie_ratings.services.ReviewGroupCommitService;
 import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService.Acknowledgement;
 import ru.bicev.movie_ratings.services.UserService;
 
 @WebMvcTest({ ReviewRestController.class, UserReviewRestController.class })
-@Import(TestSecurityConfig.class)
+@Import({ TestSecurityConfig.class, JsonResponseCache.class })
 public class ReviewRestControllerTest {
 
     @Autowired
@@ -52,11 +67,24 @@ public class ReviewRestControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private ReactiveReadService reactiveReadService;
+
+    @MockBean
+    private ReviewWriteBehindService reviewWriteBehindService;
+
+    @MockBean
+    private ReviewGroupCommitService reviewGroupCommitService;
+
+    @Autowired
+    private JsonResponseCache jsonResponseCache;
+
     private ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        jsonResponseCache.invalidateAll();
         reviewDto.setId(1L);
         userDto.setId(1L);
     }
@@ -95,6 +123,72 @@ public class ReviewRestControllerTest {
                 .andExpect(content().string("404 Not found: User not found"));
     }
 
+    @Test
+    public void createReview_GroupCommit() throws Exception {
+        when(reviewGroupCommitService.isEnabled()).thenReturn(true);
+        when(reviewGroupCommitService.createReview(any(ReviewDto.class))).thenReturn(reviewDto);
+        when(userService.getUserByEmail(anyString())).thenReturn(userDto);
+
+        mockMvc.perform(post("/api/movies/1/reviews")
+                .with(user("test@email.com").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ReviewDto("Test comment", 1L, 1L, 4))))
+                .andExpect(status().isCreated())
+                .andExpect(content().json(objectMapper.writeValueAsString(reviewDto)));
+        verify(reviewService, times(0)).createReview(any(ReviewDto.class));
+    }
+
+    @Test
+    public void createReview_WriteBehind_WaitsForCommit() throws Exception {
+        when(reviewWriteBehindService.isEnabled()).thenReturn(true);
+        when(reviewWriteBehindService.createReview(any(ReviewDto.class), eq(Acknowledgement.DURABLE)))
+                .thenReturn(reviewDto);
+        when(userService.getUserByEmail(anyString())).thenReturn(userDto);
+        String reviewToCreate = objectMapper.writeValueAsString(new ReviewDto("Test comment", 1L, 1L, 4));
+
+        mockMvc.perform(post("/api/movies/1/reviews")
+                .with(user("test@email.com").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(reviewToCreate))
+                .andExpect(status().isCreated())
+                .andExpect(content().json(objectMapper.writeValueAsString(reviewDto)));
+        verify(reviewService, times(0)).createReview(any(ReviewDto.class));
+    }
+
+    @Test
+    public void createReview_WriteBehind_AcceptsAsyncPreference() throws Exception {
+        ReviewDto queuedReview = new ReviewDto("Test comment", 1L, 1L, 4);
+        when(reviewWriteBehindService.isEnabled()).thenReturn(true);
+        when(reviewWriteBehindService.createReview(any(ReviewDto.class), eq(Acknowledgement.ACCEPTED)))
+                .thenReturn(queuedReview);
+        when(userService.getUserByEmail(anyString())).thenReturn(userDto);
+
+        mockMvc.perform(post("/api/movies/1/reviews")
+                .with(user("test@email.com").roles("USER"))
+                .header("Prefer", "respond-async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(queuedReview)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"))
+                .andExpect(content().json(objectMapper.writeValueAsString(queuedReview)));
+    }
+
+    @Test
+    public void createReview_WriteBehind_QueueFull() throws Exception {
+        when(reviewWriteBehindService.isEnabled()).thenReturn(true);
+        when(reviewWriteBehindService.createReview(any(ReviewDto.class), any(Acknowledgement.class)))
+                .thenThrow(new ServiceOverloadedException("Too many reviews are waiting to be written", 2));
+        when(userService.getUserByEmail(anyString())).thenReturn(userDto);
+
+        mockMvc.perform(post("/api/movies/1/reviews")
+                .with(user("test@email.com").roles("USER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ReviewDto("Test comment", 1L, 1L, 4))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(content().string("503 Service unavailable: Too many reviews are waiting to be written"));
+    }
+
     @Test
     public void deleteReview_Success() throws Exception {
         when(userService.getUserByEmail(anyString())).thenReturn(userDto);
@@ -139,6 +233,66 @@ public class ReviewRestControllerTest {
                 .andExpect(content().json(expectedList));
     }
 
+    @Test
+    public void getReviewsByMovieId_ShouldServeCachedListUntilReviewsChange() throws Exception {
+        when(reviewService.getReviewsByMovie(1L)).thenReturn(reviews);
+        String expectedList = objectMapper.writeValueAsString(reviews);
+
+        mockMvc.perform(get("/api/movies/1/reviews"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/movies/1/reviews"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedList));
+        verify(reviewService, times(1)).getReviewsByMovie(1L);
+
+        jsonResponseCache.invalidate(JsonResponseCache.movieReviews(1L));
+        mockMvc.perform(get("/api/movies/1/reviews"))
+                .andExpect(status().isOk());
+        verify(reviewService, times(2)).getReviewsByMovie(1L);
+    }
+
+    @Test
+    public void getReviewPageByMovieId_ShouldReturnPage() throws Exception {
+        ReviewPageDto page = new ReviewPageDto(reviews, 7L);
+        when(reviewService.getReviewsByMovie(1L, null, ReviewService.DEFAULT_PAGE_SIZE)).thenReturn(page);
+        String expectedJson = objectMapper.writeValueAsString(page);
+
+        mockMvc.perform(get("/api/movies/1/reviews/page"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(expectedJson));
+    }
+
+    @Test
+    public void getReviewPageByUserId_ShouldPassCursor() throws Exception {
+        ReviewPageDto page = new ReviewPageDto(reviews, null);
+        when(reviewService.getReviewsByUser(1L, 7L, 5)).thenReturn(page);
+        String expectedJson = objectMapper.writeValueAsString(page);
+
+        mockMvc.perform(get("/api/users/1/reviews/page").param("before", "7").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(expectedJson));
+
+        verify(reviewService).getReviewsByUser(1L, 7L, 5);
+    }
+
+    @Test
+    public void streamReviewsByMovieId_ShouldReturnNdjson() throws Exception {
+        when(reactiveReadService.streamReviewsByMovie(1L)).thenReturn(Flux.fromIterable(reviews));
+        String expectedBody = objectMapper.writeValueAsString(reviews.get(0)) + "\n"
+                + objectMapper.writeValueAsString(reviews.get(1)) + "\n";
+
+        MvcResult result = mockMvc.perform(get("/api/movies/1/reviews")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(expectedBody));
+    }
+
     @Test
     public void getReviewsByMovieId_ShouldThrowException() throws Exception {
         when(reviewService.getReviewsByMovie(1L)).thenThrow(new MovieNotFoundException("Movie not found"));
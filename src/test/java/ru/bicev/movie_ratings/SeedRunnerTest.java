@@ -0,0 +1,103 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.entitites.SeedHistory;
+import ru.bicev.movie_ratings.repositories.SeedHistoryRepository;
+import ru.bicev.movie_ratings.seed.SeedRunner;
+import ru.bicev.movie_ratings.seed.Seeder;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+
+public class SeedRunnerTest {
+
+    private SeedHistoryRepository seedHistoryRepository;
+    private CatalogSnapshotService catalogSnapshotService;
+    private JsonResponseCache jsonResponseCache;
+    private RatingStoreService ratingStoreService;
+    private RatingAggregateService ratingAggregateService;
+    private Seeder fixtures;
+    private Seeder synthetic;
+
+    @BeforeEach
+    public void setUp() {
+        seedHistoryRepository = mock(SeedHistoryRepository.class);
+        catalogSnapshotService = mock(CatalogSnapshotService.class);
+        jsonResponseCache = mock(JsonResponseCache.class);
+        ratingStoreService = mock(RatingStoreService.class);
+        ratingAggregateService = mock(RatingAggregateService.class);
+        fixtures = seeder("fixtures", "abc");
+        synthetic = seeder("synthetic", "def");
+    }
+
+    @Test
+    public void seed_RunsOnlySeedersWithChangedChecksum() {
+        when(seedHistoryRepository.findById("fixtures"))
+                .thenReturn(Optional.of(new SeedHistory("fixtures", "abc", Instant.now())));
+        when(seedHistoryRepository.findById("synthetic"))
+                .thenReturn(Optional.of(new SeedHistory("synthetic", "old", Instant.now())));
+
+        int applied = runner(true).seed();
+
+        assertEquals(1, applied);
+        verify(fixtures, never()).seed();
+        verify(synthetic).seed();
+        verify(seedHistoryRepository).save(any(SeedHistory.class));
+        verify(catalogSnapshotService).markStale();
+        verify(jsonResponseCache).invalidateAll();
+        InOrder ratings = inOrder(ratingAggregateService, ratingStoreService);
+        ratings.verify(ratingAggregateService).rebuild();
+        ratings.verify(ratingStoreService).reload();
+    }
+
+    @Test
+    public void seed_FailedSeederIsNotRecordedAndOthersRun() {
+        when(seedHistoryRepository.findById(any())).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("broken fixture")).when(fixtures).seed();
+
+        int applied = runner(true).seed();
+
+        assertEquals(1, applied);
+        verify(synthetic).seed();
+        verify(seedHistoryRepository).save(any(SeedHistory.class));
+    }
+
+    @Test
+    public void seedInBackground_Disabled_DoesNothing() {
+        runner(false).seedInBackground();
+
+        verify(seedHistoryRepository, never()).findById(any());
+        verify(catalogSnapshotService, never()).markStale();
+    }
+
+    private SeedRunner runner(boolean enabled) {
+        return new SeedRunner(List.of(fixtures, synthetic), seedHistoryRepository, new SyncTaskExecutor(),
+                catalogSnapshotService, jsonResponseCache, ratingStoreService, ratingAggregateService, enabled);
+    }
+
+    private static Seeder seeder(String name, String checksum) {
+        Seeder seeder = mock(Seeder.class);
+        when(seeder.getName()).thenReturn(name);
+        when(seeder.getChecksum()).thenReturn(checksum);
+        when(seeder.isEnabled()).thenReturn(true);
+        return seeder;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.seed.FixtureSeeder;
+import ru.bicev.movie_ratings.seed.SeedWriter;
+import ru.bicev.movie_ratings.seed.SyntheticDataSeeder;
+import ru.bicev.movie_ratings.utils.Role;
+
+@DataJpaTest(excludeAutoConfiguration = SecurityAutoConfiguration.class)
+@ActiveProfiles("test")
+public class SeedWriterTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Test
+    public void insert_WritesOnlyMissingRows() {
+        SeedWriter writer = new SeedWriter(jdbcTemplate, transactionManager, 2);
+        List<SeedWriter.UserRow> users = List.of(
+                new SeedWriter.UserRow("a@example.com", "a", "hash", Role.USER),
+                new SeedWriter.UserRow("b@example.com", "b", "hash", Role.USER),
+                new SeedWriter.UserRow("c@example.com", "c", "hash", Role.ADMIN));
+        List<SeedWriter.MovieRow> movies = List.of(new SeedWriter.MovieRow("Brazil", null, "Drama", 1985));
+        List<SeedWriter.ReviewRow> reviews = List.of(
+                new SeedWriter.ReviewRow("a@example.com", "Brazil", 5, "Great"),
+                new SeedWriter.ReviewRow("missing@example.com", "Brazil", 1, "No such user"));
+
+        assertEquals(3, writer.insertUsers(users));
+        assertEquals(1, writer.insertMovies(movies));
+        assertEquals(1, writer.insertReviews(reviews));
+
+        assertEquals(0, writer.insertUsers(users));
+        assertEquals(0, writer.insertMovies(movies));
+        assertEquals(0, writer.insertReviews(reviews));
+        assertEquals(3, userRepository.count());
+        assertEquals(1, reviewRepository.count());
+    }
+
+    @Test
+    public void fixtureSeeder_SeedsSampleCatalog() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+        FixtureSeeder seeder = new FixtureSeeder(List.of("classpath:seed/admin.json", "classpath:seed/sample-catalog.json"),
+                new DefaultResourceLoader(), new ObjectMapper(), passwordEncoder,
+                new SeedWriter(jdbcTemplate, transactionManager, 100));
+
+        seeder.seed();
+        seeder.seed();
+
+        assertEquals(Role.ADMIN, userRepository.findByEmail("admin@example.com").orElseThrow().getRole());
+        assertEquals(3, userRepository.count());
+        assertEquals(5, reviewRepository.count());
+        assertNotEquals(seeder.getChecksum(), new FixtureSeeder(List.of("classpath:seed/admin.json"),
+                new DefaultResourceLoader(), new ObjectMapper(), passwordEncoder, null).getChecksum());
+    }
+
+    @Test
+    public void syntheticDataSeeder_GeneratesRequestedDataset() {
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(anyString())).thenReturn("hash");
+        SyntheticDataSeeder seeder = new SyntheticDataSeeder(new SeedWriter(jdbcTemplate, transactionManager, 50),
+                passwordEncoder, 20, 30, 5, 7);
+
+        seeder.seed();
+        seeder.seed();
+
+        assertEquals(20, userRepository.count());
+        assertEquals(150, reviewRepository.count());
+    }
+}
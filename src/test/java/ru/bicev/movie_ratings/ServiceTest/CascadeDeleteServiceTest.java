@@ -0,0 +1,176 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.dto.ReviewRating;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.CascadeDeleteService;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+
+public class CascadeDeleteServiceTest {
+
+    private static final int CHUNK_SIZE = 100;
+    private static final long BACKGROUND_THRESHOLD = 1000;
+
+    private final ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+    private ReviewRepository reviewRepository;
+    private MovieRepository movieRepository;
+    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
+    private CatalogSnapshotService catalogSnapshotService;
+    private JsonResponseCache jsonResponseCache;
+    private RatingStoreService ratingStoreService;
+    private RatingAggregateService ratingAggregateService;
+    private final List<Runnable> backgroundJobs = new ArrayList<>();
+
+    private CascadeDeleteService cascadeDeleteService;
+
+    @BeforeEach
+    public void setUp() {
+        reviewRepository = mock(ReviewRepository.class);
+        movieRepository = mock(MovieRepository.class);
+        userRepository = mock(UserRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+                .thenAnswer(invocation -> new SimpleTransactionStatus());
+        catalogSnapshotService = mock(CatalogSnapshotService.class);
+        jsonResponseCache = mock(JsonResponseCache.class);
+        ratingStoreService = mock(RatingStoreService.class);
+        ratingAggregateService = mock(RatingAggregateService.class);
+        backgroundJobs.clear();
+
+        cascadeDeleteService = new CascadeDeleteService(reviewRepository, movieRepository, userRepository,
+                transactionManager, backgroundJobs::add, catalogSnapshotService, jsonResponseCache, ratingStoreService,
+                ratingAggregateService, CHUNK_SIZE, BACKGROUND_THRESHOLD);
+    }
+
+    @Test
+    public void deleteMovie_FewReviews_DeletesAtOnce() {
+        when(reviewRepository.countByMovieId(1L)).thenReturn(10L);
+
+        assertTrue(cascadeDeleteService.deleteMovie(1L));
+
+        InOrder inOrder = inOrder(reviewRepository, movieRepository);
+        inOrder.verify(reviewRepository).bulkDeleteByMovieId(1L);
+        inOrder.verify(movieRepository).bulkDeleteById(1L);
+        verify(reviewRepository, never()).findByMovieId(1L);
+        verify(ratingStoreService).recordMovieDeleted(1L);
+        verify(ratingAggregateService).recordMovieDeleted(1L);
+        verify(catalogSnapshotService).markStale();
+        verify(jsonResponseCache).invalidateAll();
+        assertTrue(backgroundJobs.isEmpty());
+    }
+
+    @Test
+    public void deleteMovie_ManyReviews_DeletesInChunksInBackground() {
+        when(reviewRepository.countByMovieId(1L)).thenReturn(2 * BACKGROUND_THRESHOLD);
+        when(reviewRepository.deleteChunkByMovieId(1L, CHUNK_SIZE)).thenReturn(CHUNK_SIZE, CHUNK_SIZE, 7);
+
+        assertFalse(cascadeDeleteService.deleteMovie(1L));
+        verify(movieRepository, never()).bulkDeleteById(1L);
+
+        backgroundJobs.get(0).run();
+
+        InOrder inOrder = inOrder(reviewRepository, movieRepository);
+        inOrder.verify(reviewRepository, times(3)).deleteChunkByMovieId(1L, CHUNK_SIZE);
+        inOrder.verify(reviewRepository).bulkDeleteByMovieId(1L);
+        inOrder.verify(movieRepository).bulkDeleteById(1L);
+        verify(transactionManager, times(4)).commit(any());
+    }
+
+    @Test
+    public void deleteMovie_RunningJob_IsNotStartedTwice() {
+        when(reviewRepository.countByMovieId(1L)).thenReturn(2 * BACKGROUND_THRESHOLD);
+
+        cascadeDeleteService.deleteMovie(1L);
+        cascadeDeleteService.deleteMovie(1L);
+
+        assertEquals(1, backgroundJobs.size());
+    }
+
+    @Test
+    public void deleteUser_FewReviews_DeletesAtOnce() {
+        when(reviewRepository.countByUserId(1L)).thenReturn(2L);
+        when(reviewRepository.findRatingsByUserId(1L, Limit.unlimited()))
+                .thenReturn(List.of(rating(10L, 3L, 4), rating(11L, 5L, 2)));
+
+        assertTrue(cascadeDeleteService.deleteUser(1L));
+
+        InOrder inOrder = inOrder(userRepository, reviewRepository, ratingStoreService, catalogSnapshotService,
+                jsonResponseCache);
+        inOrder.verify(userRepository).lockByIdIn(List.of(1L));
+        inOrder.verify(reviewRepository).findRatingsByUserId(1L, Limit.unlimited());
+        inOrder.verify(reviewRepository).bulkDeleteByUserId(1L);
+        inOrder.verify(ratingStoreService).recordChange(3L, 4, 0);
+        inOrder.verify(ratingStoreService).recordChange(5L, 2, 0);
+        inOrder.verify(userRepository).bulkDeleteById(1L);
+        inOrder.verify(catalogSnapshotService).markStale();
+        inOrder.verify(jsonResponseCache).invalidateAll();
+        verify(ratingAggregateService).recordChange(3L, 4, 0);
+        verify(ratingAggregateService).recordChange(5L, 2, 0);
+        verify(ratingStoreService, never()).reload();
+        verify(ratingAggregateService, never()).rebuild();
+    }
+
+    @Test
+    public void deleteUser_ManyReviews_RecordsRatingsOfEveryChunk() {
+        when(reviewRepository.countByUserId(1L)).thenReturn(2 * BACKGROUND_THRESHOLD);
+        List<ReviewRating> chunk = new ArrayList<>();
+        for (long id = 1; id <= CHUNK_SIZE; id++) {
+            chunk.add(rating(id, 3L, 5));
+        }
+        when(reviewRepository.findRatingsByUserId(1L, Limit.of(CHUNK_SIZE)))
+                .thenReturn(chunk, List.of(rating(500L, 4L, 1)));
+        when(reviewRepository.bulkDeleteByIdIn(any())).thenReturn(CHUNK_SIZE, 1);
+        when(reviewRepository.findRatingsByUserId(1L, Limit.unlimited())).thenReturn(List.of(rating(501L, 4L, 3)));
+
+        assertFalse(cascadeDeleteService.deleteUser(1L));
+        backgroundJobs.get(0).run();
+
+        verify(reviewRepository, times(2)).bulkDeleteByIdIn(any());
+        verify(ratingStoreService, times(CHUNK_SIZE)).recordChange(3L, 5, 0);
+        verify(ratingStoreService).recordChange(4L, 1, 0);
+        verify(ratingStoreService).recordChange(4L, 3, 0);
+        verify(ratingAggregateService, times(CHUNK_SIZE)).recordChange(3L, 5, 0);
+        verify(ratingAggregateService).recordChange(4L, 1, 0);
+        verify(ratingAggregateService).recordChange(4L, 3, 0);
+        InOrder inOrder = inOrder(reviewRepository, userRepository);
+        inOrder.verify(reviewRepository).bulkDeleteByUserId(1L);
+        inOrder.verify(userRepository).bulkDeleteById(1L);
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    private ReviewRating rating(Long id, Long movieId, int rating) {
+        return projections.createProjection(ReviewRating.class,
+                Map.of("id", id, "movieId", movieId, "rating", rating));
+    }
+}
@@ -0,0 +1,172 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService.Snapshot;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+
+public class CatalogSnapshotServiceTest {
+
+    private final ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MovieRepository movieRepository;
+    private RatingStoreService ratingStoreService;
+    private PlatformTransactionManager transactionManager;
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @BeforeEach
+    public void setUp() {
+        movieRepository = mock(MovieRepository.class);
+        ratingStoreService = mock(RatingStoreService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+                .thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(movieRepository.findAllSummariesWithoutRatings())
+                .thenReturn(List.of(movie(1L, "Movie 1"), movie(3L, "Movie 3")));
+        when(ratingStoreService.getAverageRating(1L)).thenReturn(4.0);
+        when(ratingStoreService.getAverageRating(3L)).thenReturn(5.0);
+
+        catalogSnapshotService = new CatalogSnapshotService(movieRepository, ratingStoreService, objectMapper,
+                mock(JsonResponseCache.class), transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void getSnapshot_ServesSameSnapshotWithoutQueries() throws Exception {
+        Snapshot first = catalogSnapshotService.getSnapshot();
+        Snapshot second = catalogSnapshotService.getSnapshot();
+
+        assertSame(first, second);
+        assertEquals(1, first.version());
+        assertEquals("Movie 3", first.movies().get(0).getTitle());
+        assertEquals("Movie 1", first.movies().get(1).getTitle());
+        assertEquals(5.0, first.movies().get(0).getRating());
+        assertArrayEquals(objectMapper.writeValueAsBytes(first.movies()), first.json());
+        assertFalse(catalogSnapshotService.refreshIfStale());
+        verify(movieRepository, times(1)).findAllSummariesWithoutRatings();
+    }
+
+    @Test
+    public void refreshIfStale_RebuildsOnceForManyWrites() {
+        Snapshot first = catalogSnapshotService.getSnapshot();
+        when(ratingStoreService.getAverageRating(1L)).thenReturn(4.5);
+        when(ratingStoreService.getAverageRating(3L)).thenReturn(4.0);
+
+        catalogSnapshotService.markStale();
+        catalogSnapshotService.markStale();
+        catalogSnapshotService.markStale();
+
+        assertTrue(catalogSnapshotService.refreshIfStale());
+        assertFalse(catalogSnapshotService.refreshIfStale());
+        Snapshot second = catalogSnapshotService.getSnapshot();
+        assertEquals(2, second.version());
+        assertEquals("Movie 1", second.movies().get(0).getTitle());
+        assertNotEquals(first.eTag(), second.eTag());
+        verify(movieRepository, times(2)).findAllSummariesWithoutRatings();
+    }
+
+    @Test
+    public void refreshIfStale_RebuildsAfterRatingStoreReload() {
+        catalogSnapshotService.getSnapshot();
+        when(ratingStoreService.getAverageRating(1L)).thenReturn(4.5);
+        when(ratingStoreService.getAverageRating(3L)).thenReturn(4.0);
+        when(ratingStoreService.getVersion()).thenReturn(1L);
+
+        assertTrue(catalogSnapshotService.refreshIfStale());
+        assertFalse(catalogSnapshotService.refreshIfStale());
+        Snapshot rebuilt = catalogSnapshotService.getSnapshot();
+        assertEquals(2, rebuilt.version());
+        assertEquals("Movie 1", rebuilt.movies().get(0).getTitle());
+    }
+
+    @Test
+    public void refreshIfStale_KeepsSnapshotWhenRebuildFails() {
+        Snapshot first = catalogSnapshotService.getSnapshot();
+        when(movieRepository.findAllSummariesWithoutRatings()).thenThrow(new IllegalStateException("Database down"));
+
+        catalogSnapshotService.markStale();
+
+        assertFalse(catalogSnapshotService.refreshIfStale());
+        assertSame(first, catalogSnapshotService.getSnapshot());
+        verify(movieRepository, times(2)).findAllSummariesWithoutRatings();
+        assertFalse(catalogSnapshotService.refreshIfStale());
+        verify(movieRepository, times(3)).findAllSummariesWithoutRatings();
+    }
+
+    @Test
+    public void markStale_InTransaction_TakesEffectAfterCommit() {
+        catalogSnapshotService.getSnapshot();
+        TransactionSynchronizationManager.initSynchronization();
+
+        catalogSnapshotService.markStale();
+
+        assertFalse(catalogSnapshotService.refreshIfStale());
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertTrue(catalogSnapshotService.refreshIfStale());
+    }
+
+    @Test
+    public void refreshIfStale_ReadsPrimaryWhileReplicaLags() {
+        // Like ReplicaRoutingDataSource, read-only transactions see a replica that has not replicated the write yet.
+        boolean[] onReplica = new boolean[1];
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenAnswer(invocation -> {
+            onReplica[0] = invocation.<TransactionDefinition>getArgument(0).isReadOnly();
+            return new SimpleTransactionStatus();
+        });
+        catalogSnapshotService.getSnapshot();
+        List<MovieSummary> beforeWrite = List.of(movie(1L, "Movie 1"), movie(3L, "Movie 3"));
+        List<MovieSummary> afterWrite = List.of(movie(1L, "Movie 1"), movie(3L, "Movie 3"), movie(7L, "Movie 7"));
+        when(movieRepository.findAllSummariesWithoutRatings())
+                .thenAnswer(invocation -> onReplica[0] ? beforeWrite : afterWrite);
+
+        catalogSnapshotService.markStale();
+
+        assertTrue(catalogSnapshotService.refreshIfStale());
+        assertFalse(onReplica[0]);
+        assertEquals(List.of("Movie 3", "Movie 1", "Movie 7"), catalogSnapshotService.getSnapshot().movies().stream()
+                .map(MovieDto::getTitle).toList());
+    }
+
+    private MovieSummary movie(Long id, String title) {
+        return projections.createProjection(MovieSummary.class,
+                Map.of("id", id, "title", title, "genre", "Drama", "releaseYear", 2000, "rating", 0.0));
+    }
+}
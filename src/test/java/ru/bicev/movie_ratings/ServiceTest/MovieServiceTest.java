@@ -1,7 +1,7 @@
 package ru.bicev.movie_ratings.ServiceTest;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -11,18 +11,25 @@ import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
+import ru.bicev.movie_ratings.config.JsonResponseCache;
 import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.dto.MovieSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 import ru.bicev.movie_ratings.exceptions.DuplicateMovieException;
 import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
 import ru.bicev.movie_ratings.repositories.MovieRepository;
-import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.services.CascadeDeleteService;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
 import ru.bicev.movie_ratings.services.MovieService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
 
 public class MovieServiceTest {
 
@@ -35,7 +42,16 @@ public class MovieServiceTest {
     private MovieRepository movieRepository;
 
     @Mock
-    private ReviewRepository reviewRepository;
+    private RatingStoreService ratingStoreService;
+
+    @Mock
+    private CascadeDeleteService cascadeDeleteService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private JsonResponseCache jsonResponseCache;
 
     @InjectMocks
     private MovieService movieService;
@@ -62,6 +78,7 @@ public class MovieServiceTest {
         assertEquals(year, savedMovieDto.getReleaseYear());
 
         verify(movieRepository, times(1)).save(any(Movie.class));
+        verify(catalogSnapshotService, times(1)).markStale();
     }
 
     @Test
@@ -77,21 +94,21 @@ public class MovieServiceTest {
 
     @Test
     public void deleteMovie_Success() {
-        Movie movie = new Movie(title, synopsis, genre, year);
-        movie.setId(1L);
-
-        when(movieRepository.findById(1L)).thenReturn(Optional.of(movie));
+        when(movieRepository.existsById(1L)).thenReturn(true);
 
         movieService.deleteMovie(1L);
 
-        verify(movieRepository, times(1)).deleteById(1L);
+        verify(cascadeDeleteService, times(1)).deleteMovie(1L);
+        verify(movieRepository, never()).findById(1L);
+        verify(movieRepository, never()).deleteById(1L);
     }
 
     @Test
     public void deleteMovie_ShouldThrowException() {
-        when(movieRepository.findById(1L)).thenReturn(Optional.empty());
+        when(movieRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(MovieNotFoundException.class, () -> movieService.deleteMovie(1L));
+        verify(cascadeDeleteService, never()).deleteMovie(1L);
     }
 
     @Test
@@ -100,7 +117,7 @@ public class MovieServiceTest {
         movie.setId(1L);
 
         when(movieRepository.findByTitle(title)).thenReturn(Optional.of(movie));
-        when(reviewRepository.findAverageRatingByMovieId(1L)).thenReturn(4.0);
+        when(ratingStoreService.getAverageRating(1L)).thenReturn(4.0);
 
         MovieDto foundMovie = movieService.findMovieByTitle(title);
 
@@ -124,7 +141,7 @@ public class MovieServiceTest {
         movie.setId(1L);
 
         when(movieRepository.findById(1L)).thenReturn(Optional.of(movie));
-        when(reviewRepository.findAverageRatingByMovieId(1L)).thenReturn(4.0);
+        when(ratingStoreService.getAverageRating(1L)).thenReturn(4.0);
 
         MovieDto foundMovie = movieService.findMovieById(1L);
 
@@ -170,32 +187,30 @@ public class MovieServiceTest {
 
     @Test
     public void getAllMoviesWithRatingsSortedByRatingDesc_Success() {
-        Movie movie1 = new Movie("Movie 1", "Synopsis 1", "Genre 1", 2000);
-        movie1.setId(1L);
-        Movie movie2 = new Movie("Movie 2", "Synopsis 2", "Genre 2", 2005);
-        movie2.setId(2L);
-        Movie movie3 = new Movie("Movie 3", "Synopsis 3", "Genre 3", 2010);
-        movie3.setId(3L);
-
-        movie1.setRating(4.0);
-        movie2.setRating(3.5);
-        movie3.setRating(5.0);
-
-        List<Movie> movieList = new ArrayList<>(List.of(movie1, movie2, movie3));
-
-        when(movieRepository.findAll()).thenReturn(movieList);
-        when(reviewRepository.findAverageRatingByMovieId(1L)).thenReturn(4.0);
-        when(reviewRepository.findAverageRatingByMovieId(2L)).thenReturn(3.5);
-        when(reviewRepository.findAverageRatingByMovieId(3L)).thenReturn(5.0);
+        ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+        List<MovieSummary> summaries = List.of(
+                projections.createProjection(MovieSummary.class,
+                        Map.of("id", 1L, "title", "Movie 1", "genre", "Genre 1", "releaseYear", 2000, "rating", 0.0)),
+                projections.createProjection(MovieSummary.class,
+                        Map.of("id", 2L, "title", "Movie 2", "genre", "Genre 2", "releaseYear", 2005, "rating", 0.0)),
+                projections.createProjection(MovieSummary.class,
+                        Map.of("id", 3L, "title", "Movie 3", "genre", "Genre 3", "releaseYear", 2010, "rating", 0.0)));
+
+        when(movieRepository.findAllSummariesWithoutRatings()).thenReturn(summaries);
+        when(ratingStoreService.getAverageRating(1L)).thenReturn(4.0);
+        when(ratingStoreService.getAverageRating(2L)).thenReturn(4.0);
+        when(ratingStoreService.getAverageRating(3L)).thenReturn(5.0);
 
         List<MovieDto> sortedMovies = movieService.getAllMoviesWithRatingsSortedByRatingDesc();
 
         assertEquals(3, sortedMovies.size());
         assertEquals("Movie 3", sortedMovies.get(0).getTitle());
+        assertEquals(5.0, sortedMovies.get(0).getRating());
+        assertEquals(2010, sortedMovies.get(0).getReleaseYear());
         assertEquals("Movie 1", sortedMovies.get(1).getTitle());
         assertEquals("Movie 2", sortedMovies.get(2).getTitle());
 
-        verify(movieRepository, times(1)).findAll();
+        verify(movieRepository, never()).findAll();
     }
 
 }
@@ -0,0 +1,90 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.PurgeService;
+
+public class PurgeServiceTest {
+
+    private static final int BATCH_SIZE = 10;
+
+    private ReviewRepository reviewRepository;
+    private MovieRepository movieRepository;
+    private UserRepository userRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() {
+        reviewRepository = mock(ReviewRepository.class);
+        movieRepository = mock(MovieRepository.class);
+        userRepository = mock(UserRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+                .thenAnswer(invocation -> new SimpleTransactionStatus());
+    }
+
+    private PurgeService purgeService(int maxBatches) {
+        return new PurgeService(reviewRepository, movieRepository, userRepository, transactionManager,
+                BATCH_SIZE, 0, maxBatches);
+    }
+
+    @Test
+    public void purge_RemovesReviewsBeforeOwners() {
+        when(reviewRepository.purgeDeletedChunk(BATCH_SIZE)).thenReturn(BATCH_SIZE, 3);
+        when(reviewRepository.purgeChunkOfDeletedMovies(BATCH_SIZE)).thenReturn(4);
+        when(movieRepository.purgeDeletedChunk(BATCH_SIZE)).thenReturn(1);
+        when(userRepository.purgeDeletedChunk(BATCH_SIZE)).thenReturn(2);
+        when(reviewRepository.countDeleted()).thenReturn(0L);
+
+        PurgeService purgeService = purgeService(100);
+
+        assertEquals(6, purgeService.purge());
+
+        InOrder inOrder = inOrder(reviewRepository, movieRepository, userRepository);
+        inOrder.verify(reviewRepository, times(2)).purgeDeletedChunk(BATCH_SIZE);
+        inOrder.verify(reviewRepository).purgeChunkOfDeletedMovies(BATCH_SIZE);
+        inOrder.verify(reviewRepository).purgeChunkOfDeletedUsers(BATCH_SIZE);
+        inOrder.verify(movieRepository).purgeDeletedChunk(BATCH_SIZE);
+        inOrder.verify(userRepository).purgeDeletedChunk(BATCH_SIZE);
+        verify(transactionManager, times(6)).commit(any());
+
+        assertEquals(17, purgeService.getPurgedCount("review"));
+        assertEquals(1, purgeService.getPurgedCount("movie"));
+        assertEquals(2, purgeService.getPurgedCount("user"));
+    }
+
+    @Test
+    public void purge_StopsWhenBatchBudgetIsUsedUp() {
+        when(reviewRepository.purgeDeletedChunk(BATCH_SIZE)).thenReturn(BATCH_SIZE);
+        when(reviewRepository.countDeleted()).thenReturn(1234L);
+
+        PurgeService purgeService = purgeService(3);
+
+        assertEquals(3, purgeService.purge());
+
+        verify(reviewRepository, times(3)).purgeDeletedChunk(BATCH_SIZE);
+        verify(reviewRepository, never()).purgeChunkOfDeletedMovies(anyInt());
+        verify(movieRepository, never()).purgeDeletedChunk(anyInt());
+        verify(userRepository, never()).purgeDeletedChunk(anyInt());
+        assertEquals(30, purgeService.getPurgedCount("review"));
+        assertEquals(1234, purgeService.getBacklog("review"));
+    }
+}
@@ -0,0 +1,187 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.dto.RatingBucket;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
+
+public class RatingStoreServiceTest {
+
+    private final ProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+    private RatingAggregateService ratingAggregateService;
+    private JsonResponseCache jsonResponseCache;
+    private RatingStoreService ratingStoreService;
+
+    @BeforeEach
+    public void setUp() {
+        ratingAggregateService = mock(RatingAggregateService.class);
+        jsonResponseCache = mock(JsonResponseCache.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+                .thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(ratingAggregateService.findRatingBuckets())
+                .thenReturn(List.of(bucket(1L, 5, 2), bucket(1L, 3, 1), bucket(2L, 4, 1)));
+
+        ratingStoreService = new RatingStoreService(mock(ReviewRepository.class), ratingAggregateService,
+                jsonResponseCache, transactionManager, 4);
+    }
+
+    @Test
+    public void read_LoadsHistogramsOnce() {
+        assertEquals(13.0 / 3, ratingStoreService.getAverageRating(1L));
+        assertEquals(3, ratingStoreService.getReviewCount(1L));
+        assertEquals(2, ratingStoreService.getRatingCount(1L, 5));
+        assertEquals(4.0, ratingStoreService.getAverageRating(2L));
+        assertEquals(0.0, ratingStoreService.getAverageRating(3L));
+
+        verify(ratingAggregateService, times(1)).findRatingBuckets();
+    }
+
+    @Test
+    public void loadOnStartup_ServesReadsWithoutLoadingAgain() {
+        ratingStoreService.loadOnStartup();
+
+        assertEquals(13.0 / 3, ratingStoreService.getAverageRating(1L));
+        assertEquals(4.0, ratingStoreService.getAverageRating(2L));
+        verify(ratingAggregateService, times(1)).findRatingBuckets();
+    }
+
+    @Test
+    public void loadOnStartup_Failed_LoadsOnFirstRead() {
+        when(ratingAggregateService.findRatingBuckets())
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenReturn(List.of(bucket(1L, 5, 2)));
+
+        ratingStoreService.loadOnStartup();
+
+        assertEquals(5.0, ratingStoreService.getAverageRating(1L));
+        verify(ratingAggregateService, times(2)).findRatingBuckets();
+    }
+
+    @Test
+    public void recordChange_UpdatesLoadedStore() {
+        ratingStoreService.getAverageRating(1L);
+
+        ratingStoreService.recordChange(2L, 0, 2);
+        ratingStoreService.recordChange(1L, 3, 5);
+        ratingStoreService.recordMovieDeleted(3L);
+
+        assertEquals(3.0, ratingStoreService.getAverageRating(2L));
+        assertEquals(5.0, ratingStoreService.getAverageRating(1L));
+        assertEquals(3, ratingStoreService.getRatingCount(1L, 5));
+    }
+
+    @Test
+    public void reload_InvalidatesCachedResponsesAndChangesVersion() {
+        ratingStoreService.getAverageRating(1L);
+        long loadedVersion = ratingStoreService.getVersion();
+        when(ratingAggregateService.findRatingBuckets()).thenReturn(List.of(bucket(1L, 1, 1)));
+
+        ratingStoreService.reload();
+
+        assertEquals(1.0, ratingStoreService.getAverageRating(1L));
+        assertEquals(loadedVersion + 1, ratingStoreService.getVersion());
+        verify(jsonResponseCache, times(2)).invalidateAll();
+    }
+
+    @Test
+    public void reload_ReplaysChangesCommittedWhileLoading() {
+        ratingStoreService.getAverageRating(1L);
+        when(ratingAggregateService.findRatingBuckets()).thenAnswer(invocation -> {
+            // Committed after the load read its rows.
+            ratingStoreService.recordChange(1L, 0, 1);
+            ratingStoreService.recordMovieDeleted(2L);
+            return List.of(bucket(1L, 5, 2), bucket(1L, 3, 1), bucket(2L, 4, 1));
+        });
+
+        ratingStoreService.reload();
+
+        assertEquals(4, ratingStoreService.getReviewCount(1L));
+        assertEquals(14.0 / 4, ratingStoreService.getAverageRating(1L));
+        assertEquals(0, ratingStoreService.getReviewCount(2L));
+    }
+
+    @Test
+    public void reload_DoesNotCountChangeCommittedBeforeLoadTwice() throws Exception {
+        ratingStoreService.getAverageRating(1L);
+        AtomicBoolean committed = new AtomicBoolean();
+        when(ratingAggregateService.findRatingBuckets()).thenAnswer(invocation -> committed.get()
+                ? List.of(bucket(1L, 5, 2), bucket(1L, 3, 1), bucket(1L, 1, 1), bucket(2L, 4, 1))
+                : List.of(bucket(1L, 5, 2), bucket(1L, 3, 1), bucket(2L, 4, 1)));
+
+        // The write commits, then the reload starts before the after-commit update of the store has run.
+        TransactionSynchronizationManager.initSynchronization();
+        CompletableFuture<Void> reload;
+        try {
+            ratingStoreService.recordChange(1L, 0, 1);
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            committed.set(true);
+            reload = CompletableFuture.runAsync(ratingStoreService::reload);
+            // Gives the reload time to reach the cut-over, where it waits for the commit to be applied.
+            Thread.sleep(100);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        reload.get(5, TimeUnit.SECONDS);
+
+        assertEquals(4, ratingStoreService.getReviewCount(1L));
+        assertEquals(14.0 / 4, ratingStoreService.getAverageRating(1L));
+    }
+
+    @Test
+    public void recordChange_InTransaction_AppliesChangesTogetherAfterCommit() {
+        ratingStoreService.getAverageRating(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ratingStoreService.recordChange(1L, 5, 0);
+            ratingStoreService.recordChange(1L, 5, 0);
+            ratingStoreService.recordChange(2L, 4, 0);
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            assertEquals(3, ratingStoreService.getReviewCount(1L));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1, ratingStoreService.getReviewCount(1L));
+        assertEquals(3.0, ratingStoreService.getAverageRating(1L));
+        assertEquals(0, ratingStoreService.getReviewCount(2L));
+        assertNull(TransactionSynchronizationManager.getResource(ratingStoreService));
+    }
+
+    private RatingBucket bucket(long movieId, int rating, long reviewCount) {
+        return projections.createProjection(RatingBucket.class,
+                Map.of("movieId", movieId, "rating", rating, "reviewCount", reviewCount));
+    }
+}
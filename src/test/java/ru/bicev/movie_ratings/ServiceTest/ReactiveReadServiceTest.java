@@ -0,0 +1,178 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import reactor.test.StepVerifier;
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.dto.MovieDto;
+import ru.bicev.movie_ratings.entitites.Movie;
+import ru.bicev.movie_ratings.entitites.Review;
+import ru.bicev.movie_ratings.entitites.User;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.repositories.ReviewRepository;
+import ru.bicev.movie_ratings.services.MovieService;
+import ru.bicev.movie_ratings.services.ReactiveReadService;
+import ru.bicev.movie_ratings.utils.Role;
+
+public class ReactiveReadServiceTest {
+
+    private static final int CHUNK = ReactiveReadService.STREAM_CHUNK_SIZE;
+
+    private final User user = new User("test@example.com", "test_username", "password", Role.USER);
+    private final Movie movie = new Movie("Casablanca", "Test synopsis", "Drama", 1940);
+
+    @Mock
+    private MovieService movieService;
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @InjectMocks
+    private ReactiveReadService reactiveReadService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        user.setId(1L);
+        movie.setId(1L);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void streamReviewsByMovie_ReadsAllChunks() {
+        List<Review> firstChunk = reviews(1, CHUNK);
+        List<Review> lastChunk = reviews(CHUNK + 1, 3);
+        when(reviewRepository.findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any(Limit.class)))
+                .thenReturn(firstChunk);
+        when(reviewRepository.findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq((long) CHUNK), any(Limit.class)))
+                .thenReturn(lastChunk);
+
+        StepVerifier.create(reactiveReadService.streamReviewsByMovie(1L))
+                .expectNextCount(CHUNK + 3)
+                .verifyComplete();
+
+        verify(reviewRepository, times(2)).findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), any(Long.class),
+                any(Limit.class));
+    }
+
+    @Test
+    public void streamReviewsByMovie_DoesNotReadAheadOfDemand() {
+        when(reviewRepository.findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any(Limit.class)))
+                .thenReturn(reviews(1, CHUNK));
+        when(reviewRepository.findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq((long) CHUNK), any(Limit.class)))
+                .thenReturn(reviews(CHUNK + 1, CHUNK));
+
+        StepVerifier.create(reactiveReadService.streamReviewsByMovie(1L), 1)
+                .expectNextCount(1)
+                .thenCancel()
+                .verify();
+
+        verify(reviewRepository, never()).findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq((long) (2 * CHUNK)),
+                any(Limit.class));
+    }
+
+    @Test
+    public void streamReviewsByUser_EmptyCompletes() {
+        when(reviewRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any(Limit.class)))
+                .thenReturn(List.of());
+
+        StepVerifier.create(reactiveReadService.streamReviewsByUser(1L))
+                .verifyComplete();
+    }
+
+    @Test
+    public void findMovieById_SignalsNotFound() {
+        when(movieService.findMovieById(1L)).thenThrow(new MovieNotFoundException("Movie with id: 1 is not found"));
+
+        StepVerifier.create(reactiveReadService.findMovieById(1L))
+                .verifyError(MovieNotFoundException.class);
+    }
+
+    @Test
+    public void getAllMoviesSortedByRating_EmitsMovies() {
+        when(movieService.getAllMoviesWithRatingsSortedByRatingDesc())
+                .thenReturn(List.of(new MovieDto("Movie 1", "Synopsis", "Drama", 2000),
+                        new MovieDto("Movie 2", "Synopsis", "Drama", 2001)));
+
+        StepVerifier.create(reactiveReadService.getAllMoviesSortedByRating())
+                .expectNextMatches(movieDto -> movieDto.getTitle().equals("Movie 1"))
+                .expectNextMatches(movieDto -> movieDto.getTitle().equals("Movie 2"))
+                .verifyComplete();
+    }
+
+    @Test
+    public void streamReviewsByMovie_ReadsInsideReadYourWritesWindowOfCaller() {
+        ReadYourWritesWindow readYourWritesWindow = new ReadYourWritesWindow(60_000);
+        readYourWritesWindow.recordWrite("test_username");
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("test_username",
+                "password", AuthorityUtils.createAuthorityList("ROLE_USER")));
+        List<Boolean> windowOpen = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+        when(reviewRepository.findByMovieIdAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L), any(Limit.class)))
+                .thenAnswer(invocation -> {
+                    // ReplicaRoutingDataSource asks the window the same way when the read picks its connection.
+                    windowOpen.add(readYourWritesWindow.isOpen());
+                    readers.add(Thread.currentThread());
+                    return reviews(1, 3);
+                });
+
+        StepVerifier.create(reactiveReadService.streamReviewsByMovie(1L))
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals(List.of(true), windowOpen);
+        assertNotEquals(Thread.currentThread(), readers.get(0));
+    }
+
+    @Test
+    public void findMovieById_RunsAsCaller() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("test_username",
+                "password", AuthorityUtils.createAuthorityList("ROLE_USER")));
+        List<String> callers = new ArrayList<>();
+        when(movieService.findMovieById(1L)).thenAnswer(invocation -> {
+            callers.add(SecurityContextHolder.getContext().getAuthentication().getName());
+            return new MovieDto("Movie 1", "Synopsis", "Drama", 2000);
+        });
+
+        StepVerifier.create(reactiveReadService.findMovieById(1L))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertEquals(List.of("test_username"), callers);
+    }
+
+    private List<Review> reviews(int firstId, int count) {
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Review review = new Review("Comment " + (firstId + i), user, movie, 4);
+            review.setId((long) (firstId + i));
+            reviews.add(review);
+        }
+        return reviews;
+    }
+}
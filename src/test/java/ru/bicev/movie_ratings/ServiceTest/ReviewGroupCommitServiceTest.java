@@ -0,0 +1,203 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+import ru.bicev.movie_ratings.services.ReviewGroupCommitService;
+import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.services.ReviewService.WriteResult;
+
+public class ReviewGroupCommitServiceTest {
+
+    private final CountDownLatch firstGroupStarted = new CountDownLatch(1);
+    private final CountDownLatch firstGroupReleased = new CountDownLatch(1);
+    private final List<Integer> groupSizes = new ArrayList<>();
+    private final ExecutorService requests = Executors.newCachedThreadPool();
+
+    private final ReadYourWritesWindow readYourWritesWindow = new ReadYourWritesWindow(60_000);
+
+    private ReviewService reviewService;
+
+    @BeforeEach
+    public void setUp() {
+        reviewService = mock(ReviewService.class);
+        when(reviewService.createReviews(anyList())).thenAnswer(invocation -> {
+            List<ReviewDto> reviews = invocation.getArgument(0);
+            synchronized (groupSizes) {
+                groupSizes.add(reviews.size());
+            }
+            firstGroupStarted.countDown();
+            firstGroupReleased.await(10, TimeUnit.SECONDS);
+            List<WriteResult> results = new ArrayList<>();
+            for (ReviewDto review : reviews) {
+                if (review.getMovieId() == 0) {
+                    results.add(new WriteResult(null, new MovieNotFoundException("Movie with id: 0 is not found")));
+                    continue;
+                }
+                ReviewDto written = new ReviewDto(review.getComment(), review.getUserId(), review.getMovieId(),
+                        review.getRating());
+                written.setId(100 + review.getUserId());
+                results.add(new WriteResult(written, null));
+            }
+            return results;
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        firstGroupReleased.countDown();
+        requests.shutdownNow();
+    }
+
+    @Test
+    public void createReview_Alone_CommitsRightAway() {
+        firstGroupReleased.countDown();
+        ReviewGroupCommitService groupCommit = new ReviewGroupCommitService(reviewService, readYourWritesWindow,
+                true, 10, 10000, 3);
+
+        ReviewDto written = groupCommit.createReview(new ReviewDto("Comment", 1L, 1L, 4));
+
+        assertEquals(101L, written.getId());
+        assertEquals(List.of(1), groupSizes);
+        assertEquals(1, groupCommit.getGroupCount());
+    }
+
+    @Test
+    public void createReview_Concurrent_SharesNextCommit() throws Exception {
+        ReviewGroupCommitService groupCommit = new ReviewGroupCommitService(reviewService, readYourWritesWindow,
+                true, 10, 10000, 3);
+        List<CompletableFuture<ReviewDto>> results = new ArrayList<>();
+        results.add(submit(groupCommit, 1L, 1L));
+        assertTrue(firstGroupStarted.await(10, TimeUnit.SECONDS));
+        for (long userId = 2; userId <= 5; userId++) {
+            results.add(submit(groupCommit, userId, 1L));
+        }
+        results.add(submit(groupCommit, 6L, 0L));
+        awaitPending(groupCommit, 5);
+
+        firstGroupReleased.countDown();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(101L + i, results.get(i).get(10, TimeUnit.SECONDS).getId());
+        }
+        CompletionException failure = assertThrows(CompletionException.class, () -> results.get(5).join());
+        assertInstanceOf(MovieNotFoundException.class, failure.getCause());
+        assertEquals(List.of(1, 5), groupSizes);
+        assertEquals(5, groupCommit.getWrittenReviewCount());
+        assertEquals(1, groupCommit.getFailedReviewCount());
+    }
+
+    @Test
+    public void createReview_ManyWaiting_SplitsGroupsAtMaxBatchSize() throws Exception {
+        ReviewGroupCommitService groupCommit = new ReviewGroupCommitService(reviewService, readYourWritesWindow,
+                true, 2, 10000, 3);
+        List<CompletableFuture<ReviewDto>> results = new ArrayList<>();
+        results.add(submit(groupCommit, 1L, 1L));
+        assertTrue(firstGroupStarted.await(10, TimeUnit.SECONDS));
+        for (long userId = 2; userId <= 6; userId++) {
+            results.add(submit(groupCommit, userId, 1L));
+        }
+        awaitPending(groupCommit, 5);
+
+        firstGroupReleased.countDown();
+
+        for (CompletableFuture<ReviewDto> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(6, groupSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(groupSizes.stream().allMatch(size -> size <= 2), groupSizes.toString());
+        assertEquals(0, groupCommit.getPendingReviewCount());
+    }
+
+    @Test
+    public void createReview_LeaderTooSlow_FailsWithRetryAfterAndWithdrawsReview() throws Exception {
+        ReviewGroupCommitService groupCommit = new ReviewGroupCommitService(reviewService, readYourWritesWindow,
+                true, 10, 50, 3);
+        CompletableFuture<ReviewDto> leader = submit(groupCommit, 1L, 1L);
+        assertTrue(firstGroupStarted.await(10, TimeUnit.SECONDS));
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> groupCommit.createReview(new ReviewDto("Comment", 2L, 1L, 4)));
+
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(0, groupCommit.getPendingReviewCount());
+        firstGroupReleased.countDown();
+        assertEquals(101L, leader.get(10, TimeUnit.SECONDS).getId());
+        assertEquals(List.of(1), groupSizes);
+    }
+
+    @Test
+    public void createReview_Concurrent_OpensReadYourWritesWindowOfEveryAuthor() throws Exception {
+        ReviewGroupCommitService groupCommit = new ReviewGroupCommitService(reviewService, readYourWritesWindow,
+                true, 10, 10000, 3);
+        List<CompletableFuture<ReviewDto>> results = new ArrayList<>();
+        results.add(submit(groupCommit, 1L, 1L, "john.doe@example.com"));
+        assertTrue(firstGroupStarted.await(10, TimeUnit.SECONDS));
+        results.add(submit(groupCommit, 2L, 1L, "jane.doe@example.com"));
+        results.add(submit(groupCommit, 3L, 1L, "jim.doe@example.com"));
+        awaitPending(groupCommit, 2);
+        assertFalse(readYourWritesWindow.isOpen("john.doe@example.com"));
+
+        firstGroupReleased.countDown();
+
+        for (CompletableFuture<ReviewDto> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        // The second group is led by one of its two authors and writes the review of the other.
+        assertEquals(List.of(1, 2), groupSizes);
+        assertTrue(readYourWritesWindow.isOpen("john.doe@example.com"));
+        assertTrue(readYourWritesWindow.isOpen("jane.doe@example.com"));
+        assertTrue(readYourWritesWindow.isOpen("jim.doe@example.com"));
+    }
+
+    private CompletableFuture<ReviewDto> submit(ReviewGroupCommitService groupCommit, long userId, long movieId) {
+        return CompletableFuture.supplyAsync(
+                () -> groupCommit.createReview(new ReviewDto("Comment", userId, movieId, 4)), requests);
+    }
+
+    private CompletableFuture<ReviewDto> submit(ReviewGroupCommitService groupCommit, long userId, long movieId,
+            String username) {
+        return CompletableFuture.supplyAsync(() -> {
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(username, null, List.of()));
+            try {
+                return groupCommit.createReview(new ReviewDto("Comment", userId, movieId, 4));
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }, requests);
+    }
+
+    private static void awaitPending(ReviewGroupCommitService groupCommit, int reviews) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (groupCommit.getPendingReviewCount() != reviews) {
+            assertTrue(System.nanoTime() < deadline, "pending " + groupCommit.getPendingReviewCount());
+            Thread.sleep(1);
+        }
+    }
+}
@@ -1,21 +1,36 @@
 package ru.bicev.movie_ratings.ServiceTest;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import ru.bicev.movie_ratings.config.JsonResponseCache;
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
 import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.dto.ReviewPageDto;
+import ru.bicev.movie_ratings.dto.ReviewSummary;
 import ru.bicev.movie_ratings.entitites.Movie;
 import ru.bicev.movie_ratings.entitites.Review;
 import ru.bicev.movie_ratings.entitites.User;
@@ -26,6 +41,9 @@ import ru.bicev.movie_ratings.exceptions.UserNotFoundException;
 import ru.bicev.movie_ratings.repositories.MovieRepository;
 import ru.bicev.movie_ratings.repositories.ReviewRepository;
 import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.CatalogSnapshotService;
+import ru.bicev.movie_ratings.services.RatingAggregateService;
+import ru.bicev.movie_ratings.services.RatingStoreService;
 import ru.bicev.movie_ratings.services.ReviewService;
 import ru.bicev.movie_ratings.utils.Role;
 
@@ -52,6 +70,21 @@ public class ReviewServiceTest {
     @Mock
     private ReviewRepository reviewRepository;
 
+    @Mock
+    private ReadYourWritesWindow readYourWritesWindow;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private JsonResponseCache jsonResponseCache;
+
+    @Mock
+    private RatingStoreService ratingStoreService;
+
+    @Mock
+    private RatingAggregateService ratingAggregateService;
+
     @InjectMocks
     private ReviewService reviewService;
 
@@ -62,30 +95,48 @@ public class ReviewServiceTest {
 
     @Test
     public void createReview_Success() {
-        user.setId(1L);
-        movie.setId(1L);
-
         ReviewDto reviewDto = new ReviewDto("Test comment", 1L, 1L, 4);
 
-        when(userRepository.findById(reviewDto.getUserId())).thenReturn(Optional.of(user));
-        when(movieRepository.findById(reviewDto.getMovieId())).thenReturn(Optional.of(movie));
+        when(reviewRepository.findRatingByUserIdAndMovieId(1L, 1L)).thenReturn(Optional.of(2));
+        when(reviewRepository.upsertReview(1L, 1L, 4, "Test comment")).thenReturn(Optional.of(10L));
 
         ReviewDto createdReview = reviewService.createReview(reviewDto);
 
+        assertEquals(10L, createdReview.getId());
         assertEquals(reviewDto.getComment(), createdReview.getComment());
         assertEquals(reviewDto.getRating(), createdReview.getRating());
         assertEquals(1L, createdReview.getMovieId());
         assertEquals(1L, createdReview.getUserId());
 
-        verify(reviewRepository, times(1)).save(any(Review.class));
+        verify(reviewRepository, times(1)).upsertReview(1L, 1L, 4, "Test comment");
+        verify(reviewRepository, never()).save(any(Review.class));
+        verify(movieRepository, never()).existsById(any());
+        verify(userRepository, never()).existsById(any());
+        verify(readYourWritesWindow, times(1)).recordWrite();
+        verify(catalogSnapshotService, times(1)).markStale();
+        verify(ratingStoreService, times(1)).recordChange(1L, 2, 4);
+        verify(ratingAggregateService, times(1)).recordChange(1L, 2, 4);
+    }
+
+    @Test
+    public void createReview_LocksAuthorBeforeReadingPreviousRating() {
+        ReviewDto reviewDto = new ReviewDto("Test comment", 1L, 1L, 4);
+        when(reviewRepository.findRatingByUserIdAndMovieId(1L, 1L)).thenReturn(Optional.of(2));
+        when(reviewRepository.upsertReview(1L, 1L, 4, "Test comment")).thenReturn(Optional.of(10L));
+
+        reviewService.createReview(reviewDto);
+
+        InOrder order = inOrder(userRepository, reviewRepository);
+        order.verify(userRepository).lockByIdIn(List.of(1L));
+        order.verify(reviewRepository).findRatingByUserIdAndMovieId(1L, 1L);
+        order.verify(reviewRepository).upsertReview(1L, 1L, 4, "Test comment");
     }
 
     @Test
     public void createReview_ThrowsMovieNotFoundException() {
         ReviewDto reviewDto = new ReviewDto("Test comment", 1L, 1L, 4);
-        user.setId(1L);
-        when(userRepository.findById(reviewDto.getUserId())).thenReturn(Optional.of(user));
-        when(movieRepository.findById(reviewDto.getMovieId())).thenReturn(Optional.empty());
+        when(reviewRepository.upsertReview(1L, 1L, 4, "Test comment")).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(true);
 
         assertThrows(MovieNotFoundException.class, () -> reviewService.createReview(reviewDto));
     }
@@ -93,18 +144,46 @@ public class ReviewServiceTest {
     @Test
     public void createReview_ThrowsUserNotFoundException() {
         ReviewDto reviewDto = new ReviewDto("Test comment", 1L, 1L, 4);
-        movie.setId(1L);
-        when(movieRepository.findById(reviewDto.getMovieId())).thenReturn(Optional.of(movie));
-        when(userRepository.findById(reviewDto.getUserId())).thenReturn(Optional.empty());
+        when(reviewRepository.upsertReview(1L, 1L, 4, "Test comment")).thenReturn(Optional.empty());
+        when(userRepository.existsById(1L)).thenReturn(false);
 
         assertThrows(UserNotFoundException.class, () -> reviewService.createReview(reviewDto));
     }
 
+    @Test
+    public void createReviews_WritesBatchAndFailsReviewsIndividually() {
+        List<ReviewDto> reviewDtos = List.of(new ReviewDto("First take", 1L, 1L, 4),
+                new ReviewDto("Unknown movie", 1L, 9L, 3),
+                new ReviewDto("Second take", 1L, 1L, 5));
+        when(reviewRepository.findSummariesByUserIdInAndMovieIdIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(summary(10L, "Old take", 2, 1L, 1L)))
+                .thenReturn(List.of(summary(10L, "Second take", 5, 1L, 1L)));
+        when(reviewRepository.upsertReviews(reviewDtos)).thenReturn(new int[] { 1, 0, 1 });
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        List<ReviewService.WriteResult> results = reviewService.createReviews(reviewDtos);
+
+        assertEquals(10L, results.get(0).review().getId());
+        assertEquals(4, results.get(0).review().getRating());
+        assertInstanceOf(MovieNotFoundException.class, results.get(1).failure());
+        assertNull(results.get(1).review());
+        assertEquals(10L, results.get(2).review().getId());
+        verify(ratingStoreService, times(1)).recordChange(1L, 2, 4);
+        verify(ratingStoreService, times(1)).recordChange(1L, 4, 5);
+        verify(ratingAggregateService, times(1)).recordChange(1L, 2, 4);
+        verify(ratingAggregateService, times(1)).recordChange(1L, 4, 5);
+        verify(ratingStoreService, never()).recordChange(9L, 0, 3);
+        InOrder order = inOrder(userRepository, reviewRepository);
+        order.verify(userRepository).lockByIdIn(Set.of(1L));
+        order.verify(reviewRepository).findSummariesByUserIdInAndMovieIdIn(anyCollection(), anyCollection());
+    }
+
     @Test
     public void deleteReview_Success() {
         Review review = new Review("Test comment", user, movie, 4);
         review.setId(1L);
         user.setId(1L);
+        movie.setId(3L);
 
         when(reviewRepository.findById(1L)).thenReturn(Optional.of(review));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
@@ -112,6 +191,7 @@ public class ReviewServiceTest {
         reviewService.deleteReview(1L, 1L);
 
         verify(reviewRepository, times(1)).deleteById(1L);
+        verify(ratingStoreService, times(1)).recordChange(3L, 4, 0);
     }
 
     @Test
@@ -135,36 +215,57 @@ public class ReviewServiceTest {
 
     @Test
     public void getReviewsByMovie_Success() {
-        Review review = new Review("Test comment", user, movie, 4);
-        review.setId(1L);
-        Review review2 = new Review("Test2 comment", user2, movie, 3);
-        review2.setId(2L);
-
-        when(reviewRepository.findByMovieId(1L)).thenReturn(List.of(review, review2));
+        when(reviewRepository.findSummariesByMovieId(1L))
+                .thenReturn(List.of(summary(1L, "Test comment", 4, 1L, 1L), summary(2L, "Test2 comment", 3, 1L, 2L)));
 
         List<ReviewDto> reviewDtos = reviewService.getReviewsByMovie(1L);
 
         assertEquals("Test comment", reviewDtos.get(0).getComment());
         assertEquals(4, reviewDtos.get(0).getRating());
+        assertEquals(1L, reviewDtos.get(0).getUserId());
         assertEquals("Test2 comment", reviewDtos.get(1).getComment());
         assertEquals(3, reviewDtos.get(1).getRating());
+        assertEquals(2L, reviewDtos.get(1).getUserId());
+        verify(reviewRepository, never()).findByMovieId(any());
     }
 
     @Test
     public void getReviewsByUser_Success() {
-        Review review = new Review("Test comment", user, movie, 4);
-        review.setId(1L);
-        Review review2 = new Review("Test2 comment", user, movie2, 3);
-        review2.setId(2L);
-
-        when(reviewRepository.findByUserId(1L)).thenReturn(List.of(review, review2));
+        when(reviewRepository.findSummariesByUserId(1L))
+                .thenReturn(List.of(summary(1L, "Test comment", 4, 1L, 1L), summary(2L, "Test2 comment", 3, 2L, 1L)));
 
         List<ReviewDto> reviewDtos = reviewService.getReviewsByUser(1L);
 
         assertEquals("Test comment", reviewDtos.get(0).getComment());
         assertEquals(4, reviewDtos.get(0).getRating());
+        assertEquals(1L, reviewDtos.get(0).getMovieId());
         assertEquals("Test2 comment", reviewDtos.get(1).getComment());
         assertEquals(3, reviewDtos.get(1).getRating());
+        assertEquals(2L, reviewDtos.get(1).getMovieId());
+    }
+
+    @Test
+    public void getReviewsByMovie_FirstPageHasNextCursor() {
+        when(reviewRepository.findSummariesByMovieIdBefore(1L, Long.MAX_VALUE, Limit.of(3)))
+                .thenReturn(List.of(summary(3L, "Test3 comment", 5, 1L, 1L), summary(2L, "Test2 comment", 3, 1L, 2L),
+                        summary(1L, "Test comment", 4, 1L, 1L)));
+
+        ReviewPageDto page = reviewService.getReviewsByMovie(1L, null, 2);
+
+        assertEquals(2, page.getReviews().size());
+        assertEquals("Test3 comment", page.getReviews().get(0).getComment());
+        assertEquals(2L, page.getNextCursor());
+    }
+
+    @Test
+    public void getReviewsByUser_LastPageHasNoCursor() {
+        when(reviewRepository.findSummariesByUserIdBefore(1L, 2L, Limit.of(ReviewService.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of(summary(1L, "Test comment", 4, 1L, 1L)));
+
+        ReviewPageDto page = reviewService.getReviewsByUser(1L, 2L, 1000);
+
+        assertEquals(1, page.getReviews().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
@@ -172,6 +273,7 @@ public class ReviewServiceTest {
         Review review = new Review("Test comment", user, movie, 4);
         review.setId(1L);
         user.setId(1L);
+        movie.setId(3L);
 
         when(reviewRepository.findById(1L)).thenReturn(Optional.of(review));
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
@@ -184,6 +286,7 @@ public class ReviewServiceTest {
         assertEquals(reviewDto.getRating(), changedReview.getRating());
 
         verify(reviewRepository, times(1)).save(any(Review.class));
+        verify(ratingStoreService, times(1)).recordChange(3L, 4, 2);
     }
 
     @Test
@@ -206,4 +309,8 @@ public class ReviewServiceTest {
         assertThrows(IllegalAccessException.class, () -> reviewService.updateReview(1L, reviewDto, 1L));
     }
 
+    private static ReviewSummary summary(Long id, String comment, int rating, Long movieId, Long userId) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ReviewSummary.class,
+                Map.of("id", id, "comment", comment, "rating", rating, "movieId", movieId, "userId", userId));
+    }
 }
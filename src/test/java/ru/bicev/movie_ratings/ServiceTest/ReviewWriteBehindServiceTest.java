@@ -0,0 +1,199 @@
+package ru.bicev.movie_ratings.ServiceTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import ru.bicev.movie_ratings.config.ReadYourWritesWindow;
+import ru.bicev.movie_ratings.dto.ReviewDto;
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.exceptions.ServiceOverloadedException;
+import ru.bicev.movie_ratings.exceptions.UserNotFoundException;
+import ru.bicev.movie_ratings.repositories.MovieRepository;
+import ru.bicev.movie_ratings.services.ReviewService;
+import ru.bicev.movie_ratings.services.ReviewService.WriteResult;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService;
+import ru.bicev.movie_ratings.services.ReviewWriteBehindService.Acknowledgement;
+
+public class ReviewWriteBehindServiceTest {
+
+    private final CountDownLatch writerBusy = new CountDownLatch(1);
+    private final CountDownLatch writerReleased = new CountDownLatch(1);
+    private final List<Integer> batchSizes = new ArrayList<>();
+
+    private ReviewService reviewService;
+    private MovieRepository movieRepository;
+    private ReadYourWritesWindow readYourWritesWindow;
+    private ReviewWriteBehindService reviewWriteBehindService;
+
+    @BeforeEach
+    public void setUp() {
+        reviewService = mock(ReviewService.class);
+        movieRepository = mock(MovieRepository.class);
+        readYourWritesWindow = mock(ReadYourWritesWindow.class);
+        when(movieRepository.existsById(anyLong())).thenReturn(true);
+        when(reviewService.createReviews(anyList())).thenAnswer(invocation -> {
+            List<ReviewDto> reviews = invocation.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(reviews.size());
+            }
+            writerBusy.countDown();
+            writerReleased.await(10, TimeUnit.SECONDS);
+            List<WriteResult> results = new ArrayList<>();
+            for (ReviewDto review : reviews) {
+                if (review.getUserId() == 0) {
+                    results.add(new WriteResult(null, new UserNotFoundException("User with id: 0 is not found")));
+                    continue;
+                }
+                ReviewDto written = new ReviewDto(review.getComment(), review.getUserId(), review.getMovieId(),
+                        review.getRating());
+                written.setId(100 + review.getUserId());
+                results.add(new WriteResult(written, null));
+            }
+            return results;
+        });
+
+        reviewWriteBehindService = new ReviewWriteBehindService(reviewService, movieRepository,
+                readYourWritesWindow, true, 2, 10, 0, 500, 3);
+        reviewWriteBehindService.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writerReleased.countDown();
+        reviewWriteBehindService.stop();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void createReview_Durable_ReturnsWrittenReview() {
+        writerReleased.countDown();
+
+        ReviewDto written = reviewWriteBehindService.createReview(new ReviewDto("Comment", 1L, 1L, 4),
+                Acknowledgement.DURABLE);
+
+        assertEquals(101L, written.getId());
+        assertEquals(1, reviewWriteBehindService.getWrittenReviewCount());
+    }
+
+    @Test
+    public void createReview_Durable_ThrowsFailureOfReview() {
+        writerReleased.countDown();
+
+        assertThrows(UserNotFoundException.class, () -> reviewWriteBehindService
+                .createReview(new ReviewDto("Comment", 0L, 1L, 4), Acknowledgement.DURABLE));
+        assertEquals(1, reviewWriteBehindService.getFailedReviewCount());
+    }
+
+    @Test
+    public void createReview_Durable_RejectsReviewNotWrittenInTime() {
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> reviewWriteBehindService.createReview(new ReviewDto("Comment", 1L, 1L, 4),
+                        Acknowledgement.DURABLE));
+
+        assertEquals(3, exception.getRetryAfterSeconds());
+    }
+
+    @Test
+    public void createReview_Accepted_OpensReadYourWritesWindowOnceCommitted() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("john.doe@example.com", null, List.of()));
+
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 1L, 1L, 4), Acknowledgement.ACCEPTED);
+        assertTrue(writerBusy.await(10, TimeUnit.SECONDS));
+        verify(readYourWritesWindow, never()).recordWrite(anyString());
+
+        writerReleased.countDown();
+        reviewWriteBehindService.stop();
+        verify(readYourWritesWindow).recordWrite("john.doe@example.com");
+    }
+
+    @Test
+    public void createReview_Accepted_ReturnsBeforeWrite() {
+        ReviewDto queued = reviewWriteBehindService.createReview(new ReviewDto("Comment", 1L, 1L, 4),
+                Acknowledgement.ACCEPTED);
+
+        assertNull(queued.getId());
+        assertEquals(0, reviewWriteBehindService.getWrittenReviewCount());
+        writerReleased.countDown();
+        reviewWriteBehindService.stop();
+        assertEquals(1, reviewWriteBehindService.getWrittenReviewCount());
+    }
+
+    @Test
+    public void createReview_QueueFull_RejectsAndBatchesQueuedReviews() throws Exception {
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 1L, 1L, 4), Acknowledgement.ACCEPTED);
+        // The writer holds the first review, the queue holds the next two.
+        assertTrue(writerBusy.await(10, TimeUnit.SECONDS));
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 2L, 1L, 4), Acknowledgement.ACCEPTED);
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 3L, 1L, 4), Acknowledgement.ACCEPTED);
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class,
+                () -> reviewWriteBehindService.createReview(new ReviewDto("Comment", 4L, 1L, 4),
+                        Acknowledgement.ACCEPTED));
+
+        assertEquals(3, exception.getRetryAfterSeconds());
+        assertEquals(1, reviewWriteBehindService.getRejectedReviewCount());
+        assertEquals(2, reviewWriteBehindService.getQueueDepth());
+        writerReleased.countDown();
+        reviewWriteBehindService.stop();
+        assertEquals(3, reviewWriteBehindService.getWrittenReviewCount());
+        assertEquals(List.of(1, 2), batchSizes);
+    }
+
+    @Test
+    public void createReview_UnknownMovie_IsNotQueued() {
+        when(movieRepository.existsById(9L)).thenReturn(false);
+
+        assertThrows(MovieNotFoundException.class, () -> reviewWriteBehindService
+                .createReview(new ReviewDto("Comment", 1L, 9L, 4), Acknowledgement.ACCEPTED));
+        writerReleased.countDown();
+        reviewWriteBehindService.stop();
+        verify(reviewService, never()).createReviews(anyList());
+    }
+
+    @Test
+    public void createReview_FailedBatch_RetriesReviewsOneByOne() throws Exception {
+        doAnswer(invocation -> {
+            List<ReviewDto> reviews = invocation.getArgument(0);
+            writerBusy.countDown();
+            writerReleased.await(10, TimeUnit.SECONDS);
+            if (reviews.size() > 1) {
+                throw new IllegalStateException("Deadlock detected");
+            }
+            ReviewDto written = reviews.get(0);
+            written.setId(7L);
+            return List.of(new WriteResult(written, null));
+        }).when(reviewService).createReviews(anyList());
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 1L, 1L, 4), Acknowledgement.ACCEPTED);
+        assertTrue(writerBusy.await(10, TimeUnit.SECONDS));
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 2L, 1L, 4), Acknowledgement.ACCEPTED);
+        reviewWriteBehindService.createReview(new ReviewDto("Comment", 3L, 1L, 4), Acknowledgement.ACCEPTED);
+
+        writerReleased.countDown();
+        reviewWriteBehindService.stop();
+
+        assertEquals(3, reviewWriteBehindService.getWrittenReviewCount());
+        assertEquals(0, reviewWriteBehindService.getFailedReviewCount());
+    }
+}
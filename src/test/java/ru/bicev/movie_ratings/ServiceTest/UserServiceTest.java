@@ -17,12 +17,14 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import ru.bicev.movie_ratings.dto.UserDto;
 import ru.bicev.movie_ratings.entitites.User;
 import ru.bicev.movie_ratings.exceptions.DuplicateUserException;
 import ru.bicev.movie_ratings.repositories.UserRepository;
+import ru.bicev.movie_ratings.services.CascadeDeleteService;
 import ru.bicev.movie_ratings.services.UserService;
 import ru.bicev.movie_ratings.utils.Role;
 
@@ -41,6 +43,9 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CascadeDeleteService cascadeDeleteService;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
@@ -86,6 +91,16 @@ public class UserServiceTest {
 
     }
 
+    @Test
+    public void createNewUser_DeletedUserNotPurged_ThrowsDuplicateUserException() {
+        UserDto userDto = new UserDto(email, username, password, "USER");
+
+        when(passwordEncoder.encode(userDto.getPassword())).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("uk_users_email"));
+
+        assertThrows(DuplicateUserException.class, () -> userService.createNewUser(userDto));
+    }
+
     @Test
     public void updateUser_Success() {
         Long userId = 1L;
@@ -108,15 +123,12 @@ public class UserServiceTest {
 
     @Test
     public void deleteUser_Success() {
-        User user = new User(email, username, password, Role.USER);
-        user.setId(1L);
-
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.existsById(1L)).thenReturn(true);
 
         userService.deleteUserById(1L);
 
-        verify(userRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).deleteById(1L);
+        verify(userRepository, times(1)).existsById(1L);
+        verify(cascadeDeleteService, times(1)).deleteUser(1L);
 
         verifyNoMoreInteractions(userRepository);
     }
@@ -0,0 +1,92 @@
+package ru.bicev.movie_ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import ru.bicev.movie_ratings.exceptions.MovieNotFoundException;
+import ru.bicev.movie_ratings.utils.SingleFlight;
+
+public class SingleFlightTest {
+
+    @Test
+    public void execute_ConcurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        int callers = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                loaderCalls.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "Brazil";
+            })));
+            loaderStarted.await(5, TimeUnit.SECONDS);
+
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1L, () -> {
+                    loaderCalls.incrementAndGet();
+                    return "Other";
+                })));
+            }
+            while (singleFlight.getCoalescedCount() < callers - 1) {
+                Thread.sleep(5);
+            }
+            releaseLoader.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("Brazil", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, singleFlight.getLoadCount());
+        assertEquals(callers - 1, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void execute_SequentialCallsLoadAgain() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        singleFlight.execute(1L, () -> "Brazil");
+        singleFlight.execute(1L, () -> "Brazil");
+
+        assertEquals(2, singleFlight.getLoadCount());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void execute_ShouldRethrowLoaderException() {
+        SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+
+        assertThrows(MovieNotFoundException.class, () -> singleFlight.execute(1L, () -> {
+            throw new MovieNotFoundException("Movie with id: 1 is not found");
+        }));
+        assertEquals("Brazil", singleFlight.execute(1L, () -> "Brazil"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}